@@ -0,0 +1,84 @@
+package com.ank.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.ank.policy.PolicyRateLimiter;
+import com.ank.policy.ThrottlePolicy;
+import com.ank.util.GcraRateLimiter;
+import com.ank.util.IMarketDataLimiter;
+import com.ank.util.MultiWindowRateLimiter;
+import com.ank.util.RingBufferRateLimiter;
+import com.ank.util.SlidingWindowRateLimiter;
+import com.ank.util.TokenBucketRateLimiter;
+
+/**
+ * Throughput of a single isNewDataAllowed check for each limiter implementation.
+ * Run with -prof gc to see the allocation rate.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LimiterBenchmark {
+
+	@Param({ "slidingWindow", "ringBuffer", "gcra", "tokenBucket", "multiWindow" })
+	public String limiter;
+
+	@Param({ "1.0", "0.1", "0.001" })
+	public double acceptRatio;
+
+	private VirtualTimer timer;
+	private IMarketDataLimiter rateLimiter;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		timer = new VirtualTimer(acceptRatio);
+		rateLimiter = Limiters.create(limiter, timer);
+	}
+
+	@Benchmark
+	public boolean isNewDataAllowed() {
+		timer.advance();
+		return rateLimiter.isNewDataAllowed();
+	}
+
+	static final class Limiters {
+		private Limiters() {
+		}
+
+		static IMarketDataLimiter create(String name, VirtualTimer timer) {
+			switch (name) {
+			case "slidingWindow":
+				return new SlidingWindowRateLimiter(timer);
+			case "ringBuffer":
+				return new RingBufferRateLimiter(timer);
+			case "gcra":
+				return new GcraRateLimiter(timer, 100, 1000L);
+			case "tokenBucket":
+				return new TokenBucketRateLimiter(timer, 100, 1000L);
+			case "policy":
+				return new PolicyRateLimiter(timer, ThrottlePolicy.defaults());
+			case "multiWindow":
+				return new MultiWindowRateLimiter(timer, new MultiWindowRateLimiter.Window(10, 100L),
+						new MultiWindowRateLimiter.Window(100, 1000L), new MultiWindowRateLimiter.Window(5000, 60_000L));
+			default:
+				throw new IllegalArgumentException("Unknown limiter " + name);
+			}
+		}
+	}
+}
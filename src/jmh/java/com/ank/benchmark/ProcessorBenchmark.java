@@ -0,0 +1,95 @@
+package com.ank.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.ank.model.MarketData;
+import com.ank.processor.MarketDataProcessor;
+import com.ank.util.IMarketDataLimiter;
+
+/**
+ * Throughput of the processor hot paths under different symbol cardinalities and feed rates.
+ * acceptRatio is the feed rate relative to the global budget of 100 publishes per second; with
+ * few symbols the per-symbol window lowers the real accept ratio further. policy is the limiter of
+ * the default processor.
+ * Run with -prof gc to see the allocation rate.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProcessorBenchmark {
+
+	@Param({ "policy", "ringBuffer", "slidingWindow", "gcra", "tokenBucket" })
+	public String limiter;
+
+	@Param({ "10", "1000", "100000" })
+	public int symbolCount;
+
+	@Param({ "1.0", "0.1", "0.001" })
+	public double acceptRatio;
+
+	private VirtualTimer timer;
+	private BlackholeProcessor processor;
+	private String[] symbols;
+	private MarketData tick;
+	private int next;
+
+	@Setup(Level.Trial)
+	public void setUp(Blackhole blackhole) {
+		timer = new VirtualTimer(acceptRatio);
+		processor = new BlackholeProcessor(timer, LimiterBenchmark.Limiters.create(limiter, timer), blackhole);
+		symbols = new String[symbolCount];
+		for (int i = 0; i < symbolCount; i++) {
+			symbols[i] = "SYM" + i;
+			processor.subscribe(symbols[i]);
+		}
+		tick = new MarketData();
+	}
+
+	@Benchmark
+	public boolean isSymbolAllowed() {
+		return processor.isSymbolAllowed(nextTick());
+	}
+
+	@Benchmark
+	public void onMessage() {
+		processor.onMessage(nextTick());
+	}
+
+	private MarketData nextTick() {
+		timer.advance();
+		String symbol = symbols[next];
+		next = next + 1 == symbolCount ? 0 : next + 1;
+		return tick.set(symbol, 10_000, 10_001, 10_000, 2, timer.getCurrentTime());
+	}
+
+	static final class BlackholeProcessor extends MarketDataProcessor {
+		private final Blackhole blackhole;
+
+		BlackholeProcessor(VirtualTimer timer, IMarketDataLimiter rateLimiter, Blackhole blackhole) {
+			super(timer, rateLimiter);
+			this.blackhole = blackhole;
+		}
+
+		@Override
+		public void publishAggregatedMarketData(MarketData data) {
+			blackhole.consume(data);
+		}
+	}
+}
@@ -0,0 +1,98 @@
+package com.ank.benchmark;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.ank.feed.PublishCodec;
+import com.ank.feed.PublishDecoder;
+import com.ank.feed.PublishEncoder;
+import com.ank.model.MarketData;
+
+/**
+ * Encode and decode cost of the publish codec, with prices moving by at most maxMove ticks per
+ * update. The bytes and messages counters give the average message length.
+ * Run with -prof gc to check that nothing is allocated.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PublishCodecBenchmark {
+
+	@Param({ "1000" })
+	public int symbolCount;
+
+	@Param({ "10", "100000" })
+	public int maxMove;
+
+	private final PublishEncoder encoder = new PublishEncoder();
+	private final PublishDecoder decoder = new PublishDecoder(data -> {
+	});
+	private final ByteBuffer buffer = ByteBuffer.allocateDirect(64 * 1024).order(PublishCodec.BYTE_ORDER);
+	private final Random random = new Random(42);
+
+	private String[] symbols;
+	private long[] prices;
+	private MarketData tick;
+	private long updateTime;
+	private int next;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		symbols = new String[symbolCount];
+		prices = new long[symbolCount];
+		for (int i = 0; i < symbolCount; i++) {
+			symbols[i] = "SYM" + i;
+			prices[i] = 1_000_000;
+		}
+		tick = new MarketData();
+	}
+
+	@Benchmark
+	public int roundTrip(BytesCounter counter) {
+		int length = encoder.encode(buffer, nextTick());
+		counter.bytes += length;
+		counter.messages++;
+		buffer.flip();
+		int decoded = decoder.decode(buffer);
+		buffer.clear();
+		return decoded;
+	}
+
+	private MarketData nextTick() {
+		int symbol = next;
+		next = next + 1 == symbolCount ? 0 : next + 1;
+		long price = prices[symbol] += random.nextInt(2 * maxMove + 1) - maxMove;
+		return tick.set(symbols[symbol], price, price + 1, price, 2, ++updateTime);
+	}
+
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.EVENTS)
+	public static class BytesCounter {
+		public long bytes;
+		public long messages;
+
+		@Setup(Level.Iteration)
+		public void reset() {
+			bytes = 0;
+			messages = 0;
+		}
+	}
+}
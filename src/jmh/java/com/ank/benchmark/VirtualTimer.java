@@ -0,0 +1,30 @@
+package com.ank.benchmark;
+
+import com.ank.util.MyTimer;
+
+/**
+ * Timer for benchmarks that moves virtual time forward by a fixed step per operation, so that
+ * the share of accepted publishes is controlled by the step rather than by the machine speed.
+ */
+public class VirtualTimer extends MyTimer {
+	private static final long BASE_TIME = 1_600_000_000_000L;
+
+	private final long stepNanos;
+	private long operations;
+
+	/**
+	 * @param acceptRatio share of operations that fit a budget of 100 publishes per second
+	 */
+	public VirtualTimer(double acceptRatio) {
+		this.stepNanos = (long) (10_000_000L * acceptRatio);
+	}
+
+	public void advance() {
+		operations++;
+	}
+
+	@Override
+	public long getCurrentTime() {
+		return BASE_TIME + operations * stepNanos / 1_000_000L;
+	}
+}
@@ -0,0 +1,97 @@
+package com.ank.cluster;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import com.ank.util.ITimer;
+import com.ank.util.RingBufferRateLimiter;
+
+/**
+ * Owner of the publish budget shared by several processor nodes.
+ *
+ * Nodes lease blocks of permits and may use them for leaseMillis from their request. A permit is
+ * therefore used somewhere in [grant, grant + leaseMillis], and the coordinator counts it in an
+ * exact sliding window of windowMillis + leaseMillis: no window of windowMillis can then see more
+ * than limit publishes across the cluster, whenever within its lease each permit is used. A node
+ * that dies keeps its permits until they leave that window, so the limit holds without it ever
+ * returning them.
+ *
+ * The permits still available are shared in proportion to the demand each node reported with its
+ * last request; nodes that have not asked for a whole window no longer count.
+ */
+public class BudgetCoordinator {
+	private final ITimer timer;
+	private final int limit;
+	private final long leaseMillis;
+	private final long horizonMillis;
+	private final RingBufferRateLimiter grants;
+
+	// last reported demand of each node, guarded by this
+	private final Map<String, Demand> demands = new HashMap<>();
+	private long grantedCount;
+
+	public BudgetCoordinator(final ITimer timer, final int limit, final long windowMillis, final long leaseMillis) {
+		if (leaseMillis <= 0)
+			throw new IllegalArgumentException("leaseMillis must be positive");
+		this.timer = timer;
+		this.limit = limit;
+		this.leaseMillis = leaseMillis;
+		this.horizonMillis = windowMillis + leaseMillis;
+		this.grants = new RingBufferRateLimiter(timer, limit, horizonMillis);
+	}
+
+	public synchronized LeaseGrant acquire(final String nodeId, final int permits, final int demand) {
+		long currentTime = timer.getCurrentTime();
+		Demand node = demands.get(nodeId);
+		if (node == null) {
+			node = new Demand();
+			demands.put(nodeId, node);
+		}
+		node.demand = Math.max(1, demand);
+		node.time = currentTime;
+
+		long totalDemand = 0;
+		for (Iterator<Demand> it = demands.values().iterator(); it.hasNext();) {
+			Demand other = it.next();
+			if (currentTime - other.time > horizonMillis)
+				it.remove();
+			else
+				totalDemand += other.demand;
+		}
+		int available = limit - grants.getCurrentCount();
+		int share = (int) Math.max(1, (long) available * node.demand / totalDemand);
+		int wanted = Math.min(permits, share);
+
+		int granted = 0;
+		while (granted < wanted && grants.isNewDataAllowed())
+			granted++;
+		grantedCount += granted;
+		long retryAfter = granted > 0 ? 0 : grants.getNextPermitTime(currentTime) - currentTime;
+		return new LeaseGrant(granted, leaseMillis, retryAfter);
+	}
+
+	public int getLimit() {
+		return limit;
+	}
+
+	public long getLeaseMillis() {
+		return leaseMillis;
+	}
+
+	/**
+	 * @return nodes that asked for a lease within the last window
+	 */
+	public synchronized int getNodeCount() {
+		return demands.size();
+	}
+
+	public synchronized long getGrantedCount() {
+		return grantedCount;
+	}
+
+	private static final class Demand {
+		private int demand;
+		private long time;
+	}
+}
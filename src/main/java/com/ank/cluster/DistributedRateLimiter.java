@@ -0,0 +1,240 @@
+package com.ank.cluster;
+
+import java.io.IOException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.ank.util.IMarketDataLimiter;
+import com.ank.util.ITimer;
+
+/**
+ * Node-local limiter drawing on a publish budget shared across the cluster.
+ *
+ * Permits are leased in blocks from the {@link BudgetCoordinator} and used locally until the block
+ * is empty or the lease expires, so the coordinator is only asked once per block. The block size
+ * doubles when a lease is used up before it expires and halves when permits expire unused. When
+ * the coordinator has no permits it says when it may have some again, and the node does not ask
+ * before then; a failing transport is retried after a back-off. Either way refused ticks never reach the coordinator, and a node that cannot
+ * reach it publishes nothing rather than more than its share.
+ *
+ * Leases are requested on the lease executor, never on the calling thread: the next block is
+ * prefetched once half of the current one is used, so the check itself only takes a local permit.
+ * A node that runs dry before the next block arrives refuses until it does.
+ */
+public class DistributedRateLimiter implements IMarketDataLimiter, AutoCloseable {
+	private static final Logger LOG = LoggerFactory.getLogger(DistributedRateLimiter.class);
+
+	private static final long FAILURE_BACKOFF_MILLIS = 100L;
+
+	private final ITimer timer;
+	private final IBudgetTransport transport;
+	private final String nodeId;
+	private final int maxLeaseSize;
+	private final Executor leaseExecutor;
+	private final boolean ownsExecutor;
+
+	private int permits;
+	private int leaseSize = 1;
+	private long leaseExpiry = Long.MIN_VALUE;
+	// block prefetched while the current one is in use
+	private int nextPermits;
+	private long nextLeaseExpiry = Long.MIN_VALUE;
+	private boolean requesting;
+	private long retryTime = Long.MIN_VALUE;
+	// permits wanted since the last lease
+	private int demand;
+
+	private long leasedCount;
+	private long expiredCount;
+	private long requestCount;
+	private long failureCount;
+
+	/**
+	 * Request leases on a thread of the limiter's own, stopped by {@link #close()}.
+	 */
+	public DistributedRateLimiter(final ITimer timer, final IBudgetTransport transport, final String nodeId,
+			final int maxLeaseSize) {
+		this(timer, transport, nodeId, maxLeaseSize, newLeaseExecutor(nodeId), true);
+	}
+
+	/**
+	 * @param leaseExecutor runs the lease requests, it is not shut down by {@link #close()}
+	 */
+	public DistributedRateLimiter(final ITimer timer, final IBudgetTransport transport, final String nodeId,
+			final int maxLeaseSize, final Executor leaseExecutor) {
+		this(timer, transport, nodeId, maxLeaseSize, leaseExecutor, false);
+	}
+
+	private DistributedRateLimiter(final ITimer timer, final IBudgetTransport transport, final String nodeId,
+			final int maxLeaseSize, final Executor leaseExecutor, final boolean ownsExecutor) {
+		if (maxLeaseSize <= 0)
+			throw new IllegalArgumentException("maxLeaseSize must be positive");
+		this.timer = timer;
+		this.transport = transport;
+		this.nodeId = nodeId;
+		this.maxLeaseSize = maxLeaseSize;
+		this.leaseExecutor = leaseExecutor;
+		this.ownsExecutor = ownsExecutor;
+	}
+
+	public boolean isNewDataAllowed() {
+		long currentTime = timer.getCurrentTime();
+		if (startRequest(currentTime))
+			requestLease(currentTime);
+		return takePermit(currentTime);
+	}
+
+	@Override
+	public synchronized long getNextPermitTime(final long currentTime) {
+		if (permits > 0 && currentTime < leaseExpiry || nextPermits > 0 && currentTime < nextLeaseExpiry)
+			return currentTime;
+		// a lease on its way is taken as soon as it arrives
+		if (requesting)
+			return currentTime;
+		return Math.max(currentTime, retryTime);
+	}
+
+	@Override
+	public void close() {
+		if (ownsExecutor)
+			((ExecutorService) leaseExecutor).shutdownNow();
+	}
+
+	public synchronized int getLeaseSize() {
+		return leaseSize;
+	}
+
+	/**
+	 * @return permits left of the current lease
+	 */
+	public synchronized int getPermits() {
+		return permits;
+	}
+
+	public synchronized long getLeasedCount() {
+		return leasedCount;
+	}
+
+	/**
+	 * @return leased permits whose lease expired before they were used
+	 */
+	public synchronized long getExpiredCount() {
+		return expiredCount;
+	}
+
+	/**
+	 * @return number of calls to the coordinator
+	 */
+	public synchronized long getRequestCount() {
+		return requestCount;
+	}
+
+	public synchronized long getFailureCount() {
+		return failureCount;
+	}
+
+	public String getNodeId() {
+		return nodeId;
+	}
+
+	/**
+	 * Expire unused permits and decide whether to prefetch the next block.
+	 *
+	 * @return true if the caller must request a lease
+	 */
+	private synchronized boolean startRequest(final long currentTime) {
+		if (demand < Integer.MAX_VALUE)
+			demand++;
+		if (currentTime >= leaseExpiry && permits > 0) {
+			expiredCount += permits;
+			permits = 0;
+			leaseSize = Math.max(1, leaseSize / 2);
+		}
+		if (currentTime >= nextLeaseExpiry && nextPermits > 0) {
+			expiredCount += nextPermits;
+			nextPermits = 0;
+			leaseSize = Math.max(1, leaseSize / 2);
+		}
+		if (requesting || nextPermits > 0 || permits > leaseSize / 2 || currentTime < retryTime)
+			return false;
+		requesting = true;
+		return true;
+	}
+
+	private synchronized boolean takePermit(final long currentTime) {
+		if (permits == 0 && nextPermits > 0) {
+			permits = nextPermits;
+			leaseExpiry = nextLeaseExpiry;
+			nextPermits = 0;
+		}
+		if (permits == 0)
+			return false;
+		// the whole lease is used before it expires
+		if (--permits == 0 && currentTime < leaseExpiry)
+			leaseSize = Math.min(maxLeaseSize, leaseSize * 2);
+		return true;
+	}
+
+	private void requestLease(final long requestTime) {
+		try {
+			leaseExecutor.execute(() -> lease(requestTime));
+		} catch (RejectedExecutionException e) {
+			onLeaseFailed(requestTime, e);
+		}
+	}
+
+	// runs on the lease executor, the transport is called without holding the lock
+	private void lease(final long requestTime) {
+		int size;
+		int wanted;
+		synchronized (this) {
+			size = leaseSize;
+			wanted = demand;
+			requestCount++;
+		}
+		LeaseGrant grant;
+		try {
+			grant = transport.acquire(nodeId, size, wanted);
+		} catch (IOException | RuntimeException e) {
+			onLeaseFailed(requestTime, e);
+			return;
+		}
+		synchronized (this) {
+			demand -= Math.min(demand, wanted);
+			leasedCount += grant.getPermits();
+			// measured from before the request, so the lease never outlives the coordinator's view of it
+			long expiry = requestTime + grant.getLeaseMillis();
+			if (permits == 0) {
+				permits = grant.getPermits();
+				leaseExpiry = expiry;
+			} else {
+				nextPermits = grant.getPermits();
+				nextLeaseExpiry = expiry;
+			}
+			retryTime = requestTime + grant.getRetryAfterMillis();
+			requesting = false;
+		}
+	}
+
+	private void onLeaseFailed(final long requestTime, final Exception e) {
+		synchronized (this) {
+			failureCount++;
+			retryTime = requestTime + FAILURE_BACKOFF_MILLIS;
+			requesting = false;
+		}
+		LOG.warn("Lease request of {} failed: {}", nodeId, e.toString());
+	}
+
+	private static ExecutorService newLeaseExecutor(final String nodeId) {
+		return Executors.newSingleThreadExecutor(task -> {
+			Thread thread = new Thread(task, "budget-lease-" + nodeId);
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+}
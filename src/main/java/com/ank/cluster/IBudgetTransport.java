@@ -0,0 +1,17 @@
+package com.ank.cluster;
+
+import java.io.IOException;
+
+/**
+ * Link from a node to the {@link BudgetCoordinator} of the cluster
+ */
+public interface IBudgetTransport {
+    /**
+     * Ask the coordinator for a lease.
+     *
+     * @param nodeId  name of the asking node
+     * @param permits number of permits wanted
+     * @param demand  permits the node wanted since its previous lease, used or refused
+     */
+    LeaseGrant acquire(String nodeId, int permits, int demand) throws IOException;
+}
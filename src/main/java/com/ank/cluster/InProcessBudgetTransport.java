@@ -0,0 +1,16 @@
+package com.ank.cluster;
+
+/**
+ * Transport to a coordinator in the same JVM, for tests and single host setups.
+ */
+public class InProcessBudgetTransport implements IBudgetTransport {
+	private final BudgetCoordinator coordinator;
+
+	public InProcessBudgetTransport(final BudgetCoordinator coordinator) {
+		this.coordinator = coordinator;
+	}
+
+	public LeaseGrant acquire(final String nodeId, final int permits, final int demand) {
+		return coordinator.acquire(nodeId, permits, demand);
+	}
+}
@@ -0,0 +1,45 @@
+package com.ank.cluster;
+
+/**
+ * Answer of the coordinator to a lease request. Times are durations, so nodes and coordinator
+ * need no common clock.
+ */
+public class LeaseGrant {
+	private final int permits;
+	private final long leaseMillis;
+	private final long retryAfterMillis;
+
+	public LeaseGrant(int permits, long leaseMillis, long retryAfterMillis) {
+		this.permits = permits;
+		this.leaseMillis = leaseMillis;
+		this.retryAfterMillis = retryAfterMillis;
+	}
+
+	/**
+	 * @return permits granted, possibly 0
+	 */
+	public int getPermits() {
+		return permits;
+	}
+
+	/**
+	 * @return time from the request within which the permits must be used
+	 */
+	public long getLeaseMillis() {
+		return leaseMillis;
+	}
+
+	/**
+	 * @return time from the request before the coordinator may have permits again, 0 if it may
+	 *         have some now
+	 */
+	public long getRetryAfterMillis() {
+		return retryAfterMillis;
+	}
+
+	@Override
+	public String toString() {
+		return "LeaseGrant{permits=" + permits + " leaseMillis=" + leaseMillis + " retryAfterMillis="
+				+ retryAfterMillis + "}";
+	}
+}
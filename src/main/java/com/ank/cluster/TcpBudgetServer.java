@@ -0,0 +1,94 @@
+package com.ank.cluster;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Serves a {@link BudgetCoordinator} to {@link TcpBudgetTransport} clients, one thread per node
+ * connection.
+ *
+ * Request: node id (modified UTF-8), int permits, int demand. Reply: int permits, long
+ * leaseMillis, long retryAfterMillis.
+ */
+public class TcpBudgetServer implements AutoCloseable {
+	private static final Logger LOG = LoggerFactory.getLogger(TcpBudgetServer.class);
+
+	private final BudgetCoordinator coordinator;
+	private final ServerSocket serverSocket;
+	private volatile boolean running;
+
+	/**
+	 * @param address address to listen on, port 0 picks a free one
+	 */
+	public TcpBudgetServer(final BudgetCoordinator coordinator, final InetSocketAddress address) throws IOException {
+		this.coordinator = coordinator;
+		this.serverSocket = new ServerSocket();
+		serverSocket.bind(address);
+	}
+
+	public synchronized void start() {
+		if (running)
+			return;
+		running = true;
+		Thread acceptor = new Thread(this::accept, "budget-server-acceptor");
+		acceptor.setDaemon(true);
+		acceptor.start();
+	}
+
+	public int getPort() {
+		return serverSocket.getLocalPort();
+	}
+
+	@Override
+	public void close() throws IOException {
+		running = false;
+		serverSocket.close();
+	}
+
+	private void accept() {
+		while (running) {
+			try {
+				Socket socket = serverSocket.accept();
+				Thread connection = new Thread(() -> serve(socket), "budget-server-" + socket.getRemoteSocketAddress());
+				connection.setDaemon(true);
+				connection.start();
+			} catch (IOException e) {
+				if (running)
+					LOG.error("Failed to accept budget connection", e);
+			}
+		}
+	}
+
+	private void serve(final Socket socket) {
+		try (Socket client = socket;
+				DataInputStream in = new DataInputStream(new BufferedInputStream(client.getInputStream()));
+				DataOutputStream out = new DataOutputStream(new BufferedOutputStream(client.getOutputStream()))) {
+			client.setTcpNoDelay(true);
+			while (running) {
+				String nodeId = in.readUTF();
+				int permits = in.readInt();
+				int demand = in.readInt();
+				LeaseGrant grant = coordinator.acquire(nodeId, permits, demand);
+				out.writeInt(grant.getPermits());
+				out.writeLong(grant.getLeaseMillis());
+				out.writeLong(grant.getRetryAfterMillis());
+				out.flush();
+			}
+		} catch (EOFException e) {
+			// node disconnected
+		} catch (IOException e) {
+			if (running)
+				LOG.warn("Budget connection failed: {}", e.toString());
+		}
+	}
+}
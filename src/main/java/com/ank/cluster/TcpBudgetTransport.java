@@ -0,0 +1,72 @@
+package com.ank.cluster;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+
+/**
+ * Transport to a {@link TcpBudgetServer}. The connection is opened on first use and reopened on
+ * the next request after a failure.
+ */
+public class TcpBudgetTransport implements IBudgetTransport, AutoCloseable {
+	private final InetSocketAddress address;
+	private final int timeoutMillis;
+
+	private Socket socket;
+	private DataInputStream in;
+	private DataOutputStream out;
+
+	public TcpBudgetTransport(final InetSocketAddress address, final int timeoutMillis) {
+		this.address = address;
+		this.timeoutMillis = timeoutMillis;
+	}
+
+	public synchronized LeaseGrant acquire(final String nodeId, final int permits, final int demand)
+			throws IOException {
+		try {
+			if (socket == null)
+				connect();
+			out.writeUTF(nodeId);
+			out.writeInt(permits);
+			out.writeInt(demand);
+			out.flush();
+			return new LeaseGrant(in.readInt(), in.readLong(), in.readLong());
+		} catch (IOException e) {
+			close();
+			throw e;
+		}
+	}
+
+	@Override
+	public synchronized void close() {
+		if (socket == null)
+			return;
+		try {
+			socket.close();
+		} catch (IOException e) {
+			// nothing left to release
+		}
+		socket = null;
+		in = null;
+		out = null;
+	}
+
+	private void connect() throws IOException {
+		Socket newSocket = new Socket();
+		try {
+			newSocket.connect(address, timeoutMillis);
+			newSocket.setSoTimeout(timeoutMillis);
+			newSocket.setTcpNoDelay(true);
+			in = new DataInputStream(new BufferedInputStream(newSocket.getInputStream()));
+			out = new DataOutputStream(new BufferedOutputStream(newSocket.getOutputStream()));
+		} catch (IOException e) {
+			newSocket.close();
+			throw e;
+		}
+		socket = newSocket;
+	}
+}
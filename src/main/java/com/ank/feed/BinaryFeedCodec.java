@@ -0,0 +1,62 @@
+package com.ank.feed;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+import com.ank.model.MarketData;
+
+/**
+ * Fixed binary layout of the market data feed, little endian.
+ * <pre>
+ * 0  short length of the message in bytes
+ * 2  byte  type, {@link #SYMBOL} or {@link #TICK}
+ * 3  byte  price scale                TICK
+ * 4  int   feed symbol id
+ * 8  long  bid, ask, last mantissas   TICK
+ * 32 long  market update time         TICK
+ * 8  bytes symbol, US-ASCII           SYMBOL
+ * </pre>
+ * A SYMBOL message binds a feed symbol id to its name before the first TICK using it.
+ */
+public final class BinaryFeedCodec {
+	public static final ByteOrder BYTE_ORDER = ByteOrder.LITTLE_ENDIAN;
+
+	public static final byte SYMBOL = 1;
+	public static final byte TICK = 2;
+
+	public static final int HEADER_LENGTH = 8;
+	public static final int TICK_LENGTH = 40;
+	public static final int MAX_SYMBOL_LENGTH = Short.MAX_VALUE - HEADER_LENGTH;
+	// bounds the symbol table a corrupt or hostile SYMBOL message can make a decoder allocate
+	public static final int MAX_SYMBOL_ID = (1 << 20) - 1;
+
+	private BinaryFeedCodec() {
+	}
+
+	/**
+	 * Write a SYMBOL message at the position of the buffer, which must use {@link #BYTE_ORDER}.
+	 */
+	public static void putSymbol(final ByteBuffer buffer, final int symbolId, final String symbol) {
+		if (symbolId < 0 || symbolId > MAX_SYMBOL_ID)
+			throw new IllegalArgumentException("symbolId out of range: " + symbolId);
+		byte[] bytes = symbol.getBytes(StandardCharsets.US_ASCII);
+		if (bytes.length > MAX_SYMBOL_LENGTH)
+			throw new IllegalArgumentException("Symbol too long: " + symbol);
+		buffer.putShort((short) (HEADER_LENGTH + bytes.length)).put(SYMBOL).put((byte) 0).putInt(symbolId).put(bytes);
+	}
+
+	/**
+	 * Write a TICK message at the position of the buffer, which must use {@link #BYTE_ORDER}.
+	 */
+	public static void putTick(final ByteBuffer buffer, final int symbolId, final long bid, final long ask,
+			final long last, final int priceScale, final long updateTime) {
+		buffer.putShort((short) TICK_LENGTH).put(TICK).put((byte) priceScale).putInt(symbolId)
+				.putLong(bid).putLong(ask).putLong(last).putLong(updateTime);
+	}
+
+	public static void putTick(final ByteBuffer buffer, final int symbolId, final MarketData data) {
+		putTick(buffer, symbolId, data.getBidMantissa(), data.getAskMantissa(), data.getLastMantissa(),
+				data.getPriceScale(), data.getUpdateTime());
+	}
+}
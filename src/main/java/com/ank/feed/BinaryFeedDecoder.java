@@ -0,0 +1,161 @@
+package com.ank.feed;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+import com.ank.model.MarketData;
+
+/**
+ * Decodes {@link BinaryFeedCodec} messages straight out of a buffer into one reused
+ * {@link MarketData} flyweight and hands it to the processor, e.g.
+ * {@code new BinaryFeedDecoder(processor::onMessage)}.
+ *
+ * Prices stay fixed point mantissas and the symbol name is resolved from an array by feed id,
+ * so the symbol and rate checks run on the raw fields and a decoded tick allocates nothing.
+ * Processors copy what they keep, so the flyweight is overwritten by the next tick. Not thread
+ * safe, one decoder per feed connection.
+ */
+public class BinaryFeedDecoder {
+	private static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+	private final Consumer<MarketData> handler;
+	private final MarketData tick = new MarketData();
+
+	private String[] symbols = new String[256];
+	private ByteBuffer readBuffer;
+	private long decodedCount;
+	private long unknownSymbolCount;
+	private long malformedCount;
+
+	public BinaryFeedDecoder(final Consumer<MarketData> handler) {
+		this.handler = handler;
+	}
+
+	/**
+	 * Decode every complete message between the position and the limit of the buffer. The
+	 * position is left at the start of a trailing partial message.
+	 *
+	 * @return number of ticks handed to the processor
+	 */
+	public int decode(final ByteBuffer buffer) {
+		int ticks = 0;
+		int position = buffer.position();
+		int limit = buffer.limit();
+		while (limit - position >= BinaryFeedCodec.HEADER_LENGTH) {
+			int length = getShort(buffer, position) & 0xFFFF;
+			if (length < BinaryFeedCodec.HEADER_LENGTH)
+				throw new IllegalArgumentException("Corrupt feed message length " + length + " at " + position);
+			if (limit - position < length)
+				break;
+			byte type = buffer.get(position + 2);
+			if (type == BinaryFeedCodec.TICK && length >= BinaryFeedCodec.TICK_LENGTH) {
+				if (decodeTick(buffer, position))
+					ticks++;
+			} else if (type == BinaryFeedCodec.SYMBOL) {
+				defineSymbol(getInt(buffer, position + 4), buffer, position + BinaryFeedCodec.HEADER_LENGTH,
+						length - BinaryFeedCodec.HEADER_LENGTH);
+			}
+			// other types are skipped by length
+			position += length;
+		}
+		buffer.position(position);
+		return ticks;
+	}
+
+	/**
+	 * Decode the channel until it reaches end of stream, through a direct buffer reused across
+	 * reads.
+	 *
+	 * @return number of ticks handed to the processor
+	 */
+	public long readFrom(final ReadableByteChannel channel) throws IOException {
+		if (readBuffer == null)
+			readBuffer = ByteBuffer.allocateDirect(DEFAULT_BUFFER_SIZE).order(BinaryFeedCodec.BYTE_ORDER);
+		long ticks = 0;
+		while (channel.read(readBuffer) >= 0) {
+			readBuffer.flip();
+			ticks += decode(readBuffer);
+			readBuffer.compact();
+		}
+		return ticks;
+	}
+
+	/**
+	 * Bind a feed symbol id to its name, as a SYMBOL message would.
+	 */
+	public void defineSymbol(final int symbolId, final String symbol) {
+		if (symbolId < 0 || symbolId > BinaryFeedCodec.MAX_SYMBOL_ID)
+			throw new IllegalArgumentException("symbolId out of range: " + symbolId);
+		if (symbolId >= symbols.length)
+			symbols = Arrays.copyOf(symbols,
+					Math.min(Math.max(symbolId + 1, symbols.length << 1), BinaryFeedCodec.MAX_SYMBOL_ID + 1));
+		symbols[symbolId] = symbol;
+	}
+
+	public long getDecodedCount() {
+		return decodedCount;
+	}
+
+	/**
+	 * @return ticks skipped because their symbol id was never defined
+	 */
+	public long getUnknownSymbolCount() {
+		return unknownSymbolCount;
+	}
+
+	/**
+	 * @return SYMBOL messages skipped because their symbol id was out of range
+	 */
+	public long getMalformedCount() {
+		return malformedCount;
+	}
+
+	private boolean decodeTick(final ByteBuffer buffer, final int position) {
+		int symbolId = getInt(buffer, position + 4);
+		String symbol = symbolId >= 0 && symbolId < symbols.length ? symbols[symbolId] : null;
+		if (symbol == null) {
+			unknownSymbolCount++;
+			return false;
+		}
+		tick.set(symbol, getLong(buffer, position + 8), getLong(buffer, position + 16), getLong(buffer, position + 24),
+				buffer.get(position + 3), getLong(buffer, position + 32));
+		decodedCount++;
+		handler.accept(tick);
+		return true;
+	}
+
+	private void defineSymbol(final int symbolId, final ByteBuffer buffer, final int offset, final int length) {
+		if (symbolId < 0 || symbolId > BinaryFeedCodec.MAX_SYMBOL_ID) {
+			malformedCount++;
+			return;
+		}
+		byte[] bytes = new byte[length];
+		for (int i = 0; i < length; i++)
+			bytes[i] = buffer.get(offset + i);
+		String symbol = new String(bytes, StandardCharsets.US_ASCII);
+		// a repeated definition keeps the existing instance
+		if (symbolId < symbols.length && symbol.equals(symbols[symbolId]))
+			return;
+		defineSymbol(symbolId, symbol);
+	}
+
+	// absolute reads in the feed byte order regardless of the order set on the buffer
+	private static short getShort(final ByteBuffer buffer, final int index) {
+		short value = buffer.getShort(index);
+		return buffer.order() == BinaryFeedCodec.BYTE_ORDER ? value : Short.reverseBytes(value);
+	}
+
+	private static int getInt(final ByteBuffer buffer, final int index) {
+		int value = buffer.getInt(index);
+		return buffer.order() == BinaryFeedCodec.BYTE_ORDER ? value : Integer.reverseBytes(value);
+	}
+
+	private static long getLong(final ByteBuffer buffer, final int index) {
+		long value = buffer.getLong(index);
+		return buffer.order() == BinaryFeedCodec.BYTE_ORDER ? value : Long.reverseBytes(value);
+	}
+}
@@ -0,0 +1,48 @@
+package com.ank.feed;
+
+import java.nio.ByteOrder;
+
+/**
+ * Compact binary layout of published updates, little endian. A message carries one update, or
+ * every update of an AggregatedMarketData.
+ * <pre>
+ * 0  short  length of the message in bytes, unsigned
+ * 2  byte   template, {@link #UPDATES}
+ * 3  byte   {@link #VERSION}
+ * 4  short  number of entries, unsigned
+ * 6  entries
+ * </pre>
+ * Each entry is
+ * <pre>
+ * byte    flags, {@link #FULL} and {@link #NAME}
+ * varint  symbol id
+ * byte    length, then the symbol in US-ASCII      NAME
+ * byte    price scale                              FULL
+ * zigzag varints bid, ask, last mantissas and market update time
+ * </pre>
+ * A FULL entry holds the values themselves, any other entry their difference from the previous
+ * entry of the symbol in the stream. A NAME entry binds the symbol id to its name before its
+ * first use. A delta entry of one of the first 128 symbols takes 6 bytes when every value moved
+ * by less than 64 units, against 40 for a feed tick.
+ */
+public final class PublishCodec {
+	public static final ByteOrder BYTE_ORDER = ByteOrder.LITTLE_ENDIAN;
+
+	public static final byte UPDATES = 1;
+	public static final byte VERSION = 1;
+
+	public static final byte FULL = 1;
+	public static final byte NAME = 2;
+
+	public static final int HEADER_LENGTH = 6;
+	public static final int MAX_MESSAGE_LENGTH = 0xFFFF;
+	public static final int MAX_ENTRIES = 0xFFFF;
+	public static final int MAX_SYMBOL_LENGTH = 0xFF;
+	// bounds the per-symbol state a corrupt id can make a decoder allocate
+	public static final int MAX_SYMBOL_ID = (1 << 20) - 1;
+	// flags, symbol id, name, price scale and four values
+	public static final int MAX_ENTRY_LENGTH = 1 + 5 + 1 + MAX_SYMBOL_LENGTH + 1 + 4 * 10;
+
+	private PublishCodec() {
+	}
+}
@@ -0,0 +1,252 @@
+package com.ank.feed;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+import com.ank.model.AggregatedMarketData;
+import com.ank.model.MarketData;
+
+/**
+ * Decodes {@link PublishCodec} messages written by a {@link PublishEncoder} into one reused
+ * {@link MarketData} flyweight, or into a reused {@link AggregatedMarketData} a message at a time.
+ *
+ * Keeps the last entry of every symbol to add the differences to. A difference arriving before
+ * the full entry of its symbol, e.g. after joining a stream late, is skipped and counted as a gap
+ * until the encoder is reset. Decoding a known symbol allocates nothing. Not thread safe.
+ */
+public class PublishDecoder {
+	private static final int INITIAL_SYMBOLS = 256;
+
+	private final Consumer<MarketData> handler;
+	private final MarketData entry = new MarketData();
+
+	private String[] symbols = new String[INITIAL_SYMBOLS];
+	private long[] bids = new long[INITIAL_SYMBOLS];
+	private long[] asks = new long[INITIAL_SYMBOLS];
+	private long[] lasts = new long[INITIAL_SYMBOLS];
+	private long[] updateTimes = new long[INITIAL_SYMBOLS];
+	private int[] priceScales = new int[INITIAL_SYMBOLS];
+	private boolean[] known = new boolean[INITIAL_SYMBOLS];
+
+	// read position within the message being decoded and its end
+	private int cursor;
+	private int end;
+
+	private long decodedCount;
+	private long gapCount;
+	private long unknownSymbolCount;
+
+	/**
+	 * For decoding into an AggregatedMarketData only.
+	 */
+	public PublishDecoder() {
+		this(data -> {
+		});
+	}
+
+	public PublishDecoder(final Consumer<MarketData> handler) {
+		this.handler = handler;
+	}
+
+	/**
+	 * Decode every complete message between the position and the limit of the buffer, passing
+	 * each entry to the handler. The position is left at the start of a trailing partial message.
+	 *
+	 * @return number of entries handed to the handler
+	 */
+	public int decode(final ByteBuffer buffer) {
+		int entries = 0;
+		int position = buffer.position();
+		int limit = buffer.limit();
+		while (limit - position >= PublishCodec.HEADER_LENGTH) {
+			int length = messageLength(buffer, position);
+			if (limit - position < length)
+				break;
+			int count = begin(buffer, position, length);
+			for (int i = 0; i < count; i++) {
+				if (decodeEntry(buffer)) {
+					handler.accept(entry);
+					entries++;
+				}
+			}
+			position += length;
+		}
+		buffer.position(position);
+		return entries;
+	}
+
+	/**
+	 * Decode the message at the position of the buffer into target, replacing its entries, and
+	 * move the position past it. A message with more entries than target can hold is refused
+	 * before any entry is decoded, so the symbol state stays as it was.
+	 *
+	 * @return false if the buffer does not hold the whole message yet
+	 */
+	public boolean decode(final ByteBuffer buffer, final AggregatedMarketData target) {
+		int position = buffer.position();
+		if (buffer.limit() - position < PublishCodec.HEADER_LENGTH)
+			return false;
+		int length = messageLength(buffer, position);
+		if (buffer.limit() - position < length)
+			return false;
+		int count = begin(buffer, position, length);
+		if (count > target.capacity())
+			throw new IllegalArgumentException("Message of " + count + " entries does not fit a snapshot of "
+					+ target.capacity());
+		target.clear();
+		for (int i = 0; i < count; i++) {
+			if (decodeEntry(buffer))
+				target.add(entry);
+		}
+		buffer.position(position + length);
+		return true;
+	}
+
+	/**
+	 * Forget the last entry of every symbol, to be paired with {@link PublishEncoder#reset()}.
+	 */
+	public void reset() {
+		Arrays.fill(known, false);
+	}
+
+	public long getDecodedCount() {
+		return decodedCount;
+	}
+
+	/**
+	 * @return differences skipped because the full entry of their symbol was never received
+	 */
+	public long getGapCount() {
+		return gapCount;
+	}
+
+	/**
+	 * @return entries skipped because the name of their symbol was never received
+	 */
+	public long getUnknownSymbolCount() {
+		return unknownSymbolCount;
+	}
+
+	private static int messageLength(final ByteBuffer buffer, final int position) {
+		int length = getShort(buffer, position) & 0xFFFF;
+		if (length < PublishCodec.HEADER_LENGTH)
+			throw new IllegalArgumentException("Corrupt message length " + length + " at " + position);
+		return length;
+	}
+
+	/**
+	 * @return number of entries to decode, none for other templates which are skipped by length
+	 */
+	private int begin(final ByteBuffer buffer, final int position, final int length) {
+		if (buffer.get(position + 2) != PublishCodec.UPDATES)
+			return 0;
+		cursor = position + PublishCodec.HEADER_LENGTH;
+		end = position + length;
+		return getShort(buffer, position + 4) & 0xFFFF;
+	}
+
+	private boolean decodeEntry(final ByteBuffer buffer) {
+		int flags = nextByte(buffer);
+		long symbolId = nextVarint(buffer);
+		if (symbolId < 0 || symbolId > PublishCodec.MAX_SYMBOL_ID)
+			throw new IllegalArgumentException("Corrupt symbol id " + symbolId);
+		int id = (int) symbolId;
+		ensureCapacity(id);
+		if ((flags & PublishCodec.NAME) != 0)
+			readName(buffer, id);
+		boolean full = (flags & PublishCodec.FULL) != 0;
+		int priceScale = full ? nextByte(buffer) : priceScales[id];
+		long bid = nextZigZag(buffer);
+		long ask = nextZigZag(buffer);
+		long last = nextZigZag(buffer);
+		long updateTime = nextZigZag(buffer);
+		if (!full) {
+			if (!known[id]) {
+				gapCount++;
+				return false;
+			}
+			bid += bids[id];
+			ask += asks[id];
+			last += lasts[id];
+			updateTime += updateTimes[id];
+		}
+		bids[id] = bid;
+		asks[id] = ask;
+		lasts[id] = last;
+		updateTimes[id] = updateTime;
+		priceScales[id] = priceScale;
+		known[id] = true;
+		String symbol = symbols[id];
+		if (symbol == null) {
+			unknownSymbolCount++;
+			return false;
+		}
+		entry.set(symbol, bid, ask, last, priceScale, updateTime);
+		decodedCount++;
+		return true;
+	}
+
+	private void readName(final ByteBuffer buffer, final int id) {
+		int length = nextByte(buffer) & 0xFF;
+		if (end - cursor < length)
+			throw new IllegalArgumentException("Corrupt symbol length " + length + " at " + cursor);
+		int offset = cursor;
+		cursor += length;
+		// a repeated definition keeps the existing instance
+		String existing = symbols[id];
+		if (existing != null && existing.length() == length) {
+			int i = 0;
+			while (i < length && buffer.get(offset + i) == existing.charAt(i))
+				i++;
+			if (i == length)
+				return;
+		}
+		byte[] bytes = new byte[length];
+		for (int i = 0; i < length; i++)
+			bytes[i] = buffer.get(offset + i);
+		symbols[id] = new String(bytes, StandardCharsets.US_ASCII);
+	}
+
+	private void ensureCapacity(final int id) {
+		if (id < symbols.length)
+			return;
+		int capacity = Math.max(id + 1, symbols.length << 1);
+		symbols = Arrays.copyOf(symbols, capacity);
+		bids = Arrays.copyOf(bids, capacity);
+		asks = Arrays.copyOf(asks, capacity);
+		lasts = Arrays.copyOf(lasts, capacity);
+		updateTimes = Arrays.copyOf(updateTimes, capacity);
+		priceScales = Arrays.copyOf(priceScales, capacity);
+		known = Arrays.copyOf(known, capacity);
+	}
+
+	private byte nextByte(final ByteBuffer buffer) {
+		if (cursor >= end)
+			throw new IllegalArgumentException("Corrupt message, entry runs past its end at " + cursor);
+		return buffer.get(cursor++);
+	}
+
+	private long nextZigZag(final ByteBuffer buffer) {
+		long value = nextVarint(buffer);
+		return (value >>> 1) ^ -(value & 1);
+	}
+
+	private long nextVarint(final ByteBuffer buffer) {
+		long value = 0;
+		for (int shift = 0; shift < 64; shift += 7) {
+			byte b = nextByte(buffer);
+			value |= (long) (b & 0x7F) << shift;
+			if (b >= 0)
+				return value;
+		}
+		throw new IllegalArgumentException("Corrupt varint at " + cursor);
+	}
+
+	// absolute read in the codec byte order regardless of the order set on the buffer
+	private static short getShort(final ByteBuffer buffer, final int index) {
+		short value = buffer.getShort(index);
+		return buffer.order() == PublishCodec.BYTE_ORDER ? value : Short.reverseBytes(value);
+	}
+}
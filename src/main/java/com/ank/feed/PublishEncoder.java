@@ -0,0 +1,218 @@
+package com.ank.feed;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.ank.model.AggregatedMarketData;
+import com.ank.model.MarketData;
+
+/**
+ * Encodes published updates in the {@link PublishCodec} layout straight into a caller's buffer.
+ *
+ * The encoder remembers the last entry it wrote per symbol, which is what the decoder at the other
+ * end holds, so every entry after the first of a symbol is written as varint differences and a
+ * price moving by a few ticks costs a byte per field. Symbol ids and per symbol state live in
+ * arrays; once a symbol has been seen, encoding allocates nothing. One encoder per stream, not
+ * thread safe.
+ */
+public class PublishEncoder {
+	private static final int INITIAL_SYMBOLS = 256;
+
+	private final Map<String, Integer> symbolIds = new HashMap<>();
+	private String[] symbols = new String[INITIAL_SYMBOLS];
+
+	// last entry written per symbol id
+	private long[] bids = new long[INITIAL_SYMBOLS];
+	private long[] asks = new long[INITIAL_SYMBOLS];
+	private long[] lasts = new long[INITIAL_SYMBOLS];
+	private long[] updateTimes = new long[INITIAL_SYMBOLS];
+	private int[] priceScales = new int[INITIAL_SYMBOLS];
+	// the decoder holds the last entry of the symbol, so the next one may be a delta
+	private boolean[] known = new boolean[INITIAL_SYMBOLS];
+	// the decoder knows the name of the symbol
+	private boolean[] named = new boolean[INITIAL_SYMBOLS];
+
+	private long encodedCount;
+	private long deltaCount;
+
+	/**
+	 * Write a message holding the update at the position of the buffer and move the position past
+	 * it. If the buffer is too small, the position is left unchanged and the next entry of the
+	 * symbol is written in full.
+	 *
+	 * @return length of the message
+	 */
+	public int encode(final ByteBuffer buffer, final MarketData data) {
+		int start = begin(buffer);
+		try {
+			putEntry(buffer, data);
+			return finish(buffer, start, 1);
+		} catch (RuntimeException e) {
+			forget(data.getSymbol());
+			buffer.position(start);
+			throw e;
+		}
+	}
+
+	/**
+	 * Write a message holding every update of the snapshot, as {@link #encode(ByteBuffer, MarketData)}.
+	 */
+	public int encode(final ByteBuffer buffer, final AggregatedMarketData data) {
+		if (data.size() > PublishCodec.MAX_ENTRIES)
+			throw new IllegalArgumentException("Too many entries: " + data.size());
+		int start = begin(buffer);
+		int written = 0;
+		try {
+			for (; written < data.size(); written++)
+				putEntry(buffer, data.get(written));
+			return finish(buffer, start, data.size());
+		} catch (RuntimeException e) {
+			for (int i = 0; i <= written && i < data.size(); i++)
+				forget(data.get(i).getSymbol());
+			buffer.position(start);
+			throw e;
+		}
+	}
+
+	/**
+	 * Write the next entry of every symbol in full with its name, e.g. when the stream is sent to
+	 * a new subscriber or after a reconnect.
+	 */
+	public void reset() {
+		Arrays.fill(known, false);
+		Arrays.fill(named, false);
+	}
+
+	public long getEncodedCount() {
+		return encodedCount;
+	}
+
+	/**
+	 * @return entries written as differences from the previous entry of their symbol
+	 */
+	public long getDeltaCount() {
+		return deltaCount;
+	}
+
+	public int getSymbolCount() {
+		return symbolIds.size();
+	}
+
+	private static int begin(final ByteBuffer buffer) {
+		if (buffer.remaining() < PublishCodec.HEADER_LENGTH)
+			throw new BufferOverflowException();
+		int start = buffer.position();
+		buffer.position(start + PublishCodec.HEADER_LENGTH);
+		return start;
+	}
+
+	private static int finish(final ByteBuffer buffer, final int start, final int entries) {
+		int length = buffer.position() - start;
+		if (length > PublishCodec.MAX_MESSAGE_LENGTH)
+			throw new IllegalArgumentException("Message too long: " + length);
+		putShort(buffer, start, (short) length);
+		buffer.put(start + 2, PublishCodec.UPDATES);
+		buffer.put(start + 3, PublishCodec.VERSION);
+		putShort(buffer, start + 4, (short) entries);
+		return length;
+	}
+
+	private void putEntry(final ByteBuffer buffer, final MarketData data) {
+		int id = symbolId(data.getSymbol());
+		boolean full = !known[id] || priceScales[id] != data.getPriceScale();
+		int flags = (full ? PublishCodec.FULL : 0) | (named[id] ? 0 : PublishCodec.NAME);
+		buffer.put((byte) flags);
+		putVarint(buffer, id);
+		if (!named[id])
+			putName(buffer, symbols[id]);
+		long bid = data.getBidMantissa();
+		long ask = data.getAskMantissa();
+		long last = data.getLastMantissa();
+		long updateTime = data.getUpdateTime();
+		if (full) {
+			buffer.put((byte) data.getPriceScale());
+			putZigZag(buffer, bid);
+			putZigZag(buffer, ask);
+			putZigZag(buffer, last);
+			putZigZag(buffer, updateTime);
+		} else {
+			putZigZag(buffer, bid - bids[id]);
+			putZigZag(buffer, ask - asks[id]);
+			putZigZag(buffer, last - lasts[id]);
+			putZigZag(buffer, updateTime - updateTimes[id]);
+			deltaCount++;
+		}
+		bids[id] = bid;
+		asks[id] = ask;
+		lasts[id] = last;
+		updateTimes[id] = updateTime;
+		priceScales[id] = data.getPriceScale();
+		known[id] = true;
+		named[id] = true;
+		encodedCount++;
+	}
+
+	private int symbolId(final String symbol) {
+		Integer id = symbolIds.get(symbol);
+		return id != null ? id : define(symbol);
+	}
+
+	private int define(final String symbol) {
+		if (symbol.length() > PublishCodec.MAX_SYMBOL_LENGTH)
+			throw new IllegalArgumentException("Symbol too long: " + symbol);
+		int id = symbolIds.size();
+		if (id > PublishCodec.MAX_SYMBOL_ID)
+			throw new IllegalStateException("Too many symbols: " + id);
+		if (id == symbols.length) {
+			int capacity = symbols.length << 1;
+			symbols = Arrays.copyOf(symbols, capacity);
+			bids = Arrays.copyOf(bids, capacity);
+			asks = Arrays.copyOf(asks, capacity);
+			lasts = Arrays.copyOf(lasts, capacity);
+			updateTimes = Arrays.copyOf(updateTimes, capacity);
+			priceScales = Arrays.copyOf(priceScales, capacity);
+			known = Arrays.copyOf(known, capacity);
+			named = Arrays.copyOf(named, capacity);
+		}
+		symbols[id] = symbol;
+		symbolIds.put(symbol, id);
+		return id;
+	}
+
+	// the message the entry went into was not written, the decoder never sees it
+	private void forget(final String symbol) {
+		Integer id = symbolIds.get(symbol);
+		if (id != null) {
+			known[id] = false;
+			named[id] = false;
+		}
+	}
+
+	private static void putName(final ByteBuffer buffer, final String symbol) {
+		buffer.put((byte) symbol.length());
+		for (int i = 0; i < symbol.length(); i++) {
+			char c = symbol.charAt(i);
+			buffer.put((byte) (c < 0x80 ? c : '?'));
+		}
+	}
+
+	private static void putZigZag(final ByteBuffer buffer, final long value) {
+		putVarint(buffer, (value << 1) ^ (value >> 63));
+	}
+
+	private static void putVarint(final ByteBuffer buffer, long value) {
+		while ((value & ~0x7FL) != 0) {
+			buffer.put((byte) (value & 0x7F | 0x80));
+			value >>>= 7;
+		}
+		buffer.put((byte) value);
+	}
+
+	// absolute write in the codec byte order regardless of the order set on the buffer
+	private static void putShort(final ByteBuffer buffer, final int index, final short value) {
+		buffer.putShort(index, buffer.order() == PublishCodec.BYTE_ORDER ? value : Short.reverseBytes(value));
+	}
+}
@@ -0,0 +1,99 @@
+package com.ank.journal;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+import com.ank.metrics.ThrottleMetricsSnapshot;
+import com.ank.model.MarketData;
+import com.ank.processor.MarketDataProcessor;
+import com.ank.util.RingBufferRateLimiter;
+import com.ank.util.SimulatedTimer;
+
+/**
+ * Feeds a journal back through a processor on simulated time.
+ *
+ * The timer is moved to the system time of each record before the tick is passed to onMessage
+ * or the journaled drain is repeated, so a processor built on that timer makes its decisions as
+ * in production. Comparing its metrics with the journaled decisions shows whether a change to
+ * the limiter or processor would have behaved differently on the same traffic.
+ */
+public class JournalReplay {
+	private final Path path;
+	private final long[] journaledCounts = new long[Byte.MAX_VALUE + 1];
+
+	public JournalReplay(final Path path) {
+		this.path = path;
+	}
+
+	/**
+	 * Replay the whole journal. The processor must use the given timer.
+	 *
+	 * @return number of ticks replayed
+	 */
+	public long replay(final MarketDataProcessor processor, final SimulatedTimer timer) throws IOException {
+		Arrays.fill(journaledCounts, 0);
+		MarketData tick = new MarketData();
+		long ticks = 0;
+		try (MarketDataJournalReader reader = new MarketDataJournalReader(path)) {
+			while (reader.next()) {
+				byte type = reader.getType();
+				journaledCounts[type]++;
+				timer.setCurrentTime(reader.getTime());
+				if (type == MarketDataJournal.TICK) {
+					processor.onMessage(reader.readMarketData(tick));
+					ticks++;
+				} else if (type == MarketDataJournal.DRAIN) {
+					processor.drainPending();
+				}
+			}
+		}
+		return ticks;
+	}
+
+	/**
+	 * @return number of records of the given type read by the last replay
+	 */
+	public long getJournaledCount(final byte type) {
+		return journaledCounts[type];
+	}
+
+	/**
+	 * Replay a journal through a processor with an exact limiter and print the journaled next to
+	 * the replayed decisions.
+	 *
+	 * Usage: JournalReplay &lt;journal&gt; [limit] [windowMillis]
+	 */
+	public static void main(final String[] args) throws IOException {
+		if (args.length < 1) {
+			System.err.println("Usage: JournalReplay <journal> [limit] [windowMillis]");
+			System.exit(1);
+		}
+		int limit = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+		long windowMillis = args.length > 2 ? Long.parseLong(args[2]) : 1000L;
+
+		SimulatedTimer timer = new SimulatedTimer(0);
+		MarketDataProcessor processor = new MarketDataProcessor(timer, new RingBufferRateLimiter(timer, limit, windowMillis));
+		JournalReplay replay = new JournalReplay(Paths.get(args[0]));
+		long start = System.nanoTime();
+		long ticks = replay.replay(processor, timer);
+		long elapsedNanos = System.nanoTime() - start;
+
+		ThrottleMetricsSnapshot replayed = processor.getMetrics().snapshot();
+		System.out.printf("Replayed %d ticks in %d ms%n", ticks, elapsedNanos / 1_000_000);
+		System.out.printf("%-22s %12s %12s%n", "", "journaled", "replayed");
+		print("published", replay.getJournaledCount(MarketDataJournal.PUBLISH), replayed.getTicksPublished());
+		print("rejected global limit", replay.getJournaledCount(MarketDataJournal.REJECT_GLOBAL_LIMIT),
+				replayed.getRejectedGlobalLimit());
+		print("rejected symbol window", replay.getJournaledCount(MarketDataJournal.REJECT_SYMBOL_WINDOW),
+				replayed.getRejectedSymbolWindow());
+		print("rejected stale", replay.getJournaledCount(MarketDataJournal.REJECT_STALE), replayed.getRejectedStale());
+		print("conflated", replay.getJournaledCount(MarketDataJournal.CONFLATED), replayed.getConflated());
+		System.out.println(replayed);
+	}
+
+	private static void print(final String name, final long journaled, final long replayed) {
+		System.out.printf("%-22s %12d %12d%n", name, journaled, replayed);
+	}
+}
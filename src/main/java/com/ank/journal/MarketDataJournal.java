@@ -0,0 +1,254 @@
+package com.ank.journal;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.ank.model.MarketData;
+
+/**
+ * Append-only journal of inbound ticks and throttle decisions, written through memory-mapped
+ * chunks of a file.
+ *
+ * The file starts with a header of {@value #HEADER_LENGTH} bytes, followed by records aligned to
+ * 8 bytes:
+ * <pre>
+ * 0  int   record length
+ * 4  byte  type
+ * 5  byte  price scale          TICK
+ * 6  short symbol length        SYMBOL
+ * 8  long  system time
+ * 16 int   symbol id            all but DRAIN
+ * 24 long  market update time   TICK and decisions
+ * 32 long  bid, ask, last       TICK
+ * 24 bytes symbol, UTF-8        SYMBOL
+ * </pre>
+ * A symbol is written as a SYMBOL record once, before its first use. Records never span chunks;
+ * a length of 0 marks the unused end of a chunk. An append is a few absolute puts into the
+ * mapped chunk. A chunk the journal moves past is forced to disk on a background thread, the
+ * last one when the journal is closed. If a new chunk cannot be mapped the error is logged once
+ * and further records are counted as dropped, so the journal never fails the feed; records of
+ * symbols longer than {@value #MAX_SYMBOL_BYTES} bytes are dropped as well.
+ */
+public class MarketDataJournal implements AutoCloseable {
+	private static final Logger LOG = LoggerFactory.getLogger(MarketDataJournal.class);
+
+	public static final int MAGIC = 0x4A4D4454;
+	public static final int VERSION = 1;
+	public static final int HEADER_LENGTH = 16;
+	public static final int DEFAULT_CHUNK_SIZE = 64 << 20;
+
+	public static final byte SYMBOL = 1;
+	public static final byte TICK = 2;
+	public static final byte PUBLISH = 3;
+	public static final byte REJECT_GLOBAL_LIMIT = 4;
+	public static final byte REJECT_SYMBOL_WINDOW = 5;
+	public static final byte REJECT_STALE = 6;
+	public static final byte SUPPRESSED = 7;
+	public static final byte CONFLATED = 8;
+	/**
+	 * drain of pending updates requested outside onMessage, written after the publishes it made,
+	 * if any
+	 */
+	public static final byte DRAIN = 9;
+
+	static final int DRAIN_LENGTH = 16;
+	static final int DECISION_LENGTH = 32;
+	static final int TICK_LENGTH = 56;
+	static final int SYMBOL_HEADER_LENGTH = 24;
+	static final int MAX_SYMBOL_BYTES = Short.MAX_VALUE;
+	private static final long FLUSH_TIMEOUT_SECONDS = 30;
+
+	private final FileChannel channel;
+	private final int chunkSize;
+	private final Map<String, Integer> symbolIds = new HashMap<>();
+	// forces retired chunks so that the thread appending never waits for the disk
+	private final ExecutorService flusher = Executors.newSingleThreadExecutor(task -> {
+		Thread thread = new Thread(task, "journal-flush");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	private MappedByteBuffer chunk;
+	private long chunkStart;
+	private long recordCount;
+	private long droppedCount;
+	private boolean failed;
+
+	public MarketDataJournal(final Path path) throws IOException {
+		this(path, DEFAULT_CHUNK_SIZE);
+	}
+
+	/**
+	 * Create the journal, replacing any existing file.
+	 */
+	public MarketDataJournal(final Path path, final int chunkSize) throws IOException {
+		if (chunkSize < HEADER_LENGTH + TICK_LENGTH || (chunkSize & 7) != 0)
+			throw new IllegalArgumentException("chunkSize must be a multiple of 8 of at least " + (HEADER_LENGTH + TICK_LENGTH));
+		this.chunkSize = chunkSize;
+		this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+				StandardOpenOption.READ, StandardOpenOption.WRITE);
+		this.chunk = channel.map(FileChannel.MapMode.READ_WRITE, 0, chunkSize);
+		chunk.putInt(MAGIC).putInt(VERSION).putInt(chunkSize).putInt(0);
+	}
+
+	public synchronized void appendTick(final long time, final MarketData data) {
+		int symbolId = symbolId(time, data.getSymbol());
+		ByteBuffer buffer = symbolId < 0 ? null : claim(TICK_LENGTH);
+		if (buffer == null)
+			return;
+		int position = buffer.position();
+		buffer.putInt(position, TICK_LENGTH);
+		buffer.put(position + 5, (byte) data.getPriceScale());
+		buffer.putLong(position + 8, time);
+		buffer.putInt(position + 16, symbolId);
+		buffer.putLong(position + 24, data.getUpdateTime());
+		buffer.putLong(position + 32, data.getBidMantissa());
+		buffer.putLong(position + 40, data.getAskMantissa());
+		buffer.putLong(position + 48, data.getLastMantissa());
+		commit(buffer, position, TICK, TICK_LENGTH);
+	}
+
+	/**
+	 * @param type one of the decision types, e.g. {@link #PUBLISH}
+	 */
+	public synchronized void appendDecision(final byte type, final long time, final MarketData data) {
+		int symbolId = symbolId(time, data.getSymbol());
+		ByteBuffer buffer = symbolId < 0 ? null : claim(DECISION_LENGTH);
+		if (buffer == null)
+			return;
+		int position = buffer.position();
+		buffer.putInt(position, DECISION_LENGTH);
+		buffer.putLong(position + 8, time);
+		buffer.putInt(position + 16, symbolId);
+		buffer.putLong(position + 24, data.getUpdateTime());
+		commit(buffer, position, type, DECISION_LENGTH);
+	}
+
+	public synchronized void appendDrain(final long time) {
+		ByteBuffer buffer = claim(DRAIN_LENGTH);
+		if (buffer == null)
+			return;
+		int position = buffer.position();
+		buffer.putInt(position, DRAIN_LENGTH);
+		buffer.putLong(position + 8, time);
+		commit(buffer, position, DRAIN, DRAIN_LENGTH);
+	}
+
+	/**
+	 * @return number of records written, including symbol records
+	 */
+	public synchronized long getRecordCount() {
+		return recordCount;
+	}
+
+	/**
+	 * @return number of records lost because the journal could not grow or their symbol was too
+	 *         long
+	 */
+	public synchronized long getDroppedCount() {
+		return droppedCount;
+	}
+
+	/**
+	 * Wait for earlier chunks to be flushed, flush the current chunk to disk and close the file.
+	 */
+	@Override
+	public synchronized void close() throws IOException {
+		if (!channel.isOpen())
+			return;
+		flusher.shutdown();
+		try {
+			if (!flusher.awaitTermination(FLUSH_TIMEOUT_SECONDS, TimeUnit.SECONDS))
+				LOG.warn("Journal chunks still being flushed after {} s", FLUSH_TIMEOUT_SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		chunk.force();
+		channel.close();
+	}
+
+	/**
+	 * @return id of the symbol, or -1 if it is too long and its record dropped
+	 */
+	private int symbolId(final long time, final String symbol) {
+		Integer id = symbolIds.get(symbol);
+		if (id != null)
+			return id;
+		int newId = symbolIds.size();
+		byte[] bytes = symbol.getBytes(StandardCharsets.UTF_8);
+		if (bytes.length > MAX_SYMBOL_BYTES) {
+			droppedCount++;
+			return -1;
+		}
+		int length = align(SYMBOL_HEADER_LENGTH + bytes.length);
+		ByteBuffer buffer = claim(length);
+		if (buffer != null) {
+			int position = buffer.position();
+			buffer.putInt(position, length);
+			buffer.putShort(position + 6, (short) bytes.length);
+			buffer.putLong(position + 8, time);
+			buffer.putInt(position + 16, newId);
+			for (int i = 0; i < bytes.length; i++)
+				buffer.put(position + SYMBOL_HEADER_LENGTH + i, bytes[i]);
+			commit(buffer, position, SYMBOL, length);
+		}
+		symbolIds.put(symbol, newId);
+		return newId;
+	}
+
+	/**
+	 * @return the chunk with room for the record at its position, or null if the record is dropped
+	 */
+	private ByteBuffer claim(final int length) {
+		if (!channel.isOpen() || failed || length > chunkSize) {
+			droppedCount++;
+			return null;
+		}
+		if (chunk.remaining() < length) {
+			try {
+				MappedByteBuffer retired = chunk;
+				chunkStart += chunkSize;
+				chunk = channel.map(FileChannel.MapMode.READ_WRITE, chunkStart, chunkSize);
+				flusher.execute(() -> force(retired));
+			} catch (IOException e) {
+				LOG.error("Failed to grow journal, dropping further records", e);
+				failed = true;
+				droppedCount++;
+				return null;
+			}
+		}
+		return chunk;
+	}
+
+	private static void force(final MappedByteBuffer retired) {
+		try {
+			retired.force();
+		} catch (RuntimeException e) {
+			LOG.error("Failed to flush journal chunk", e);
+		}
+	}
+
+	// the type is written last so that a reader of a live journal never sees a partial record
+	private void commit(final ByteBuffer buffer, final int position, final byte type, final int length) {
+		buffer.put(position + 4, type);
+		buffer.position(position + length);
+		recordCount++;
+	}
+
+	static int align(final int length) {
+		return (length + 7) & ~7;
+	}
+}
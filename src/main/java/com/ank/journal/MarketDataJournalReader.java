@@ -0,0 +1,148 @@
+package com.ank.journal;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.ank.model.MarketData;
+
+/**
+ * Sequential reader of a {@link MarketDataJournal}. {@link #next()} moves to the next tick,
+ * decision or drain record, whose fields are then available through the getters; symbol records
+ * are resolved internally.
+ */
+public class MarketDataJournalReader implements AutoCloseable {
+	private final FileChannel channel;
+	private final long fileSize;
+	private final int chunkSize;
+	private final List<String> symbols = new ArrayList<>();
+
+	private MappedByteBuffer chunk;
+	private long chunkStart;
+	private int position;
+
+	private byte type;
+	private long time;
+	private String symbol;
+	private long updateTime;
+	private long bid;
+	private long ask;
+	private long last;
+	private int priceScale;
+
+	public MarketDataJournalReader(final Path path) throws IOException {
+		this.channel = FileChannel.open(path, StandardOpenOption.READ);
+		this.fileSize = channel.size();
+		if (fileSize < MarketDataJournal.HEADER_LENGTH) {
+			channel.close();
+			throw new IOException("Not a market data journal: " + path);
+		}
+		this.chunk = channel.map(FileChannel.MapMode.READ_ONLY, 0, MarketDataJournal.HEADER_LENGTH);
+		if (chunk.getInt(0) != MarketDataJournal.MAGIC || chunk.getInt(4) != MarketDataJournal.VERSION) {
+			channel.close();
+			throw new IOException("Not a market data journal: " + path);
+		}
+		this.chunkSize = chunk.getInt(8);
+		this.chunk = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(fileSize, chunkSize));
+		this.position = MarketDataJournal.HEADER_LENGTH;
+	}
+
+	/**
+	 * @return false at the end of the journal
+	 */
+	public boolean next() throws IOException {
+		for (;;) {
+			int length = position + 8 <= chunk.limit() ? chunk.getInt(position) : 0;
+			if (length == 0) {
+				// unused end of a chunk, or the end of the journal
+				if (position == 0 || !nextChunk())
+					return false;
+				continue;
+			}
+			byte recordType = chunk.get(position + 4);
+			// 0 is a record still being written
+			if (recordType == 0 || length < MarketDataJournal.DRAIN_LENGTH || position + length > chunk.limit())
+				return false;
+			read(recordType);
+			position += length;
+			if (recordType != MarketDataJournal.SYMBOL)
+				return true;
+		}
+	}
+
+	public byte getType() {
+		return type;
+	}
+
+	/**
+	 * @return system time of the record
+	 */
+	public long getTime() {
+		return time;
+	}
+
+	/**
+	 * @return symbol of a tick or decision record, null for a drain record
+	 */
+	public String getSymbol() {
+		return symbol;
+	}
+
+	public long getUpdateTime() {
+		return updateTime;
+	}
+
+	/**
+	 * Copy a tick record into the target.
+	 */
+	public MarketData readMarketData(final MarketData target) {
+		return target.set(symbol, bid, ask, last, priceScale, updateTime);
+	}
+
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+
+	private void read(final byte recordType) {
+		type = recordType;
+		time = chunk.getLong(position + 8);
+		if (recordType == MarketDataJournal.DRAIN) {
+			symbol = null;
+			return;
+		}
+		int symbolId = chunk.getInt(position + 16);
+		if (recordType == MarketDataJournal.SYMBOL) {
+			byte[] bytes = new byte[chunk.getShort(position + 6)];
+			for (int i = 0; i < bytes.length; i++)
+				bytes[i] = chunk.get(position + MarketDataJournal.SYMBOL_HEADER_LENGTH + i);
+			while (symbols.size() <= symbolId)
+				symbols.add(null);
+			symbols.set(symbolId, new String(bytes, StandardCharsets.UTF_8));
+			return;
+		}
+		symbol = symbolId < symbols.size() ? symbols.get(symbolId) : null;
+		updateTime = chunk.getLong(position + 24);
+		if (recordType == MarketDataJournal.TICK) {
+			priceScale = chunk.get(position + 5);
+			bid = chunk.getLong(position + 32);
+			ask = chunk.getLong(position + 40);
+			last = chunk.getLong(position + 48);
+		}
+	}
+
+	private boolean nextChunk() throws IOException {
+		long start = chunkStart + chunkSize;
+		if (start >= fileSize)
+			return false;
+		chunkStart = start;
+		chunk = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(fileSize - start, chunkSize));
+		position = 0;
+		return true;
+	}
+}
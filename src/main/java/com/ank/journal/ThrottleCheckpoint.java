@@ -0,0 +1,257 @@
+package com.ank.journal;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.ank.processor.SymbolStateTable;
+
+/**
+ * Memory-mapped snapshot of throttle state: the accept times of the global rate limiter and the
+ * last published market update time and publish time of every symbol.
+ * <pre>
+ * 0  int   magic
+ * 4  int   version
+ * 8  long  checkpoint time
+ * 16 int   number of accept times
+ * 20 int   number of slots, a power of two
+ * 24 int   number of symbols
+ * 32 long  accept times, oldest first
+ *    slots of 24 bytes: int symbol hash code, int offset of the name (0 for an empty slot),
+ *    long market update time, long publish time
+ *    names: short length, chars
+ * </pre>
+ * Slots form an open addressing hash table of at most half load, so a symbol is looked up in the
+ * mapped file directly and opening a checkpoint reads nothing but its header, however many
+ * symbols it holds. The file is written beside its final path and moved over it, so a crash
+ * while writing leaves the previous checkpoint in place.
+ */
+public class ThrottleCheckpoint {
+	public static final int MAGIC = 0x54434B50;
+	public static final int VERSION = 1;
+	public static final int HEADER_LENGTH = 32;
+
+	static final int SLOT_LENGTH = 24;
+	// name offsets of a slot without a symbol and of one already restored
+	private static final int EMPTY = 0;
+	private static final int RESTORED = -1;
+
+	// private mapping, marking slots restored never reaches the file
+	private final MappedByteBuffer buffer;
+	private final long checkpointTime;
+	private final int acceptCount;
+	private final int slotCount;
+	private final int symbolCount;
+	private final int slotsStart;
+
+	private ThrottleCheckpoint(final Path path, final MappedByteBuffer buffer) throws IOException {
+		if (buffer.capacity() < HEADER_LENGTH || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION)
+			throw new IOException("Not a throttle checkpoint: " + path);
+		this.buffer = buffer;
+		this.checkpointTime = buffer.getLong(8);
+		this.acceptCount = buffer.getInt(16);
+		this.slotCount = buffer.getInt(20);
+		this.symbolCount = buffer.getInt(24);
+		this.slotsStart = HEADER_LENGTH + (acceptCount << 3);
+		if (acceptCount < 0 || slotCount <= 0 || Integer.bitCount(slotCount) != 1
+				|| (long) slotsStart + (long) slotCount * SLOT_LENGTH > buffer.capacity())
+			throw new IOException("Corrupt throttle checkpoint: " + path);
+	}
+
+	/**
+	 * Map a checkpoint. Only the header is read until symbols are looked up.
+	 */
+	public static ThrottleCheckpoint open(final Path path) throws IOException {
+		// a private mapping needs a channel open for writing, the file itself is not changed
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			return new ThrottleCheckpoint(path, channel.map(FileChannel.MapMode.PRIVATE, 0, channel.size()));
+		}
+	}
+
+	/**
+	 * Write a checkpoint of every published symbol of the table, replacing the file at path.
+	 *
+	 * @param previous  checkpoint restored from, whose symbols not seen since are carried over,
+	 *                  or null
+	 * @param keepSince carried over symbols published before this time are dropped
+	 * @return number of symbols written
+	 */
+	public static int write(final Path path, final long checkpointTime, final long[] acceptTimes,
+			final SymbolStateTable table, final ThrottleCheckpoint previous, final long keepSince) throws IOException {
+		List<String> symbols = new ArrayList<>();
+		long[] times;
+		if (previous == null) {
+			times = addPublished(symbols, table);
+		} else {
+			// a symbol restored between the two steps would be in neither
+			synchronized (previous) {
+				times = previous.carryOver(symbols, addPublished(symbols, table), table, keepSince);
+			}
+		}
+
+		int count = symbols.size();
+		int slots = Integer.highestOneBit(Math.max(4, count) * 2 - 1) << 1;
+		int namesStart = HEADER_LENGTH + (acceptTimes.length << 3) + slots * SLOT_LENGTH;
+		long length = namesStart;
+		for (String symbol : symbols)
+			length += 2 + 2 * symbol.length();
+		if (length > Integer.MAX_VALUE)
+			throw new IOException("Too many symbols for a checkpoint: " + count);
+
+		Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+		try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			MappedByteBuffer out = channel.map(FileChannel.MapMode.READ_WRITE, 0, length);
+			out.putInt(MAGIC).putInt(VERSION).putLong(checkpointTime).putInt(acceptTimes.length).putInt(slots)
+					.putInt(count).putInt(0);
+			for (long acceptTime : acceptTimes)
+				out.putLong(acceptTime);
+			int slotsStart = out.position();
+			int nameOffset = namesStart;
+			for (int i = 0; i < count; i++) {
+				String symbol = symbols.get(i);
+				int hash = symbol.hashCode();
+				int slot = spread(hash) & (slots - 1);
+				while (out.getInt(slotsStart + slot * SLOT_LENGTH + 4) != EMPTY)
+					slot = (slot + 1) & (slots - 1);
+				int position = slotsStart + slot * SLOT_LENGTH;
+				out.putInt(position, hash);
+				out.putInt(position + 4, nameOffset);
+				out.putLong(position + 8, times[i << 1]);
+				out.putLong(position + 16, times[(i << 1) + 1]);
+				out.putShort(nameOffset, (short) symbol.length());
+				for (int c = 0; c < symbol.length(); c++)
+					out.putChar(nameOffset + 2 + 2 * c, symbol.charAt(c));
+				nameOffset += 2 + 2 * symbol.length();
+			}
+			out.force();
+		}
+		Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		return count;
+	}
+
+	/**
+	 * Restore the state of a symbol on its first use since the restart. A symbol is restored at
+	 * most once, so one released as idle and seen again starts afresh.
+	 *
+	 * @return false if the checkpoint has no state for the symbol
+	 */
+	public synchronized boolean restore(final String symbol, final SymbolStateTable table, final int id) {
+		int position = find(symbol);
+		if (position < 0)
+			return false;
+		buffer.putInt(position + 4, RESTORED);
+		// published since the restart, that state is newer
+		if (table.getSystemProcessTime(id) != SymbolStateTable.NONE)
+			return false;
+		table.set(id, buffer.getLong(position + 8), buffer.getLong(position + 16));
+		return true;
+	}
+
+	/**
+	 * @return accept times of the global rate limiter, oldest first
+	 */
+	public long[] getAcceptTimes() {
+		long[] times = new long[acceptCount];
+		for (int i = 0; i < acceptCount; i++)
+			times[i] = buffer.getLong(HEADER_LENGTH + (i << 3));
+		return times;
+	}
+
+	public long getCheckpointTime() {
+		return checkpointTime;
+	}
+
+	public int getSymbolCount() {
+		return symbolCount;
+	}
+
+	/**
+	 * @return position of the slot of the symbol, or -1
+	 */
+	private int find(final String symbol) {
+		int hash = symbol.hashCode();
+		int mask = slotCount - 1;
+		int slot = spread(hash) & mask;
+		for (int probes = 0; probes < slotCount; probes++, slot = (slot + 1) & mask) {
+			int position = slotsStart + slot * SLOT_LENGTH;
+			int nameOffset = buffer.getInt(position + 4);
+			if (nameOffset == EMPTY)
+				return -1;
+			if (nameOffset != RESTORED && buffer.getInt(position) == hash && nameEquals(nameOffset, symbol))
+				return position;
+		}
+		return -1;
+	}
+
+	private boolean nameEquals(final int offset, final String symbol) {
+		int length = buffer.getShort(offset);
+		if (length != symbol.length())
+			return false;
+		for (int i = 0; i < length; i++) {
+			if (buffer.getChar(offset + 2 + 2 * i) != symbol.charAt(i))
+				return false;
+		}
+		return true;
+	}
+
+	private static long[] addPublished(final List<String> symbols, final SymbolStateTable table) {
+		long[] times = new long[64];
+		int idLimit = table.getIdLimit();
+		for (int id = 0; id < idLimit; id++) {
+			String symbol = table.symbolOf(id);
+			long processTime = table.getSystemProcessTime(id);
+			if (symbol == null || processTime == SymbolStateTable.NONE)
+				continue;
+			times = add(symbols, times, symbol, table.getMarketUpdateTime(id), processTime);
+		}
+		return times;
+	}
+
+	/**
+	 * Add the symbols not restored yet, which the table knows nothing about. Called holding the
+	 * lock of this checkpoint.
+	 */
+	private long[] carryOver(final List<String> symbols, long[] times, final SymbolStateTable table,
+			final long keepSince) {
+		for (int slot = 0; slot < slotCount; slot++) {
+			int position = slotsStart + slot * SLOT_LENGTH;
+			int nameOffset = buffer.getInt(position + 4);
+			long processTime = buffer.getLong(position + 16);
+			if (nameOffset == EMPTY || nameOffset == RESTORED || processTime < keepSince)
+				continue;
+			char[] name = new char[buffer.getShort(nameOffset)];
+			for (int i = 0; i < name.length; i++)
+				name[i] = buffer.getChar(nameOffset + 2 + 2 * i);
+			String symbol = new String(name);
+			int id = table.idOf(symbol);
+			if (id != SymbolStateTable.UNKNOWN_SYMBOL && table.getSystemProcessTime(id) != SymbolStateTable.NONE)
+				continue;
+			times = add(symbols, times, symbol, buffer.getLong(position + 8), processTime);
+		}
+		return times;
+	}
+
+	private static long[] add(final List<String> symbols, long[] times, final String symbol,
+			final long marketUpdateTime, final long processTime) {
+		int index = symbols.size() << 1;
+		if (index == times.length)
+			times = Arrays.copyOf(times, times.length << 1);
+		times[index] = marketUpdateTime;
+		times[index + 1] = processTime;
+		symbols.add(symbol);
+		return times;
+	}
+
+	private static int spread(final int hash) {
+		return hash ^ (hash >>> 16);
+	}
+}
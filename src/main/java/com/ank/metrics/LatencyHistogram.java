@@ -0,0 +1,93 @@
+package com.ank.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Concurrent log-linear histogram of non-negative values, in the style of HdrHistogram.
+ *
+ * Values below 128 are counted exactly; larger values fall into one of 64 linear sub-buckets of
+ * their power of two, so any value is reported within 1/64 (about 1.6%) of what was recorded.
+ * The bucket array is allocated up front and recording is a single atomic increment, without
+ * locks or allocation.
+ */
+public class LatencyHistogram {
+	private static final int EXACT_LIMIT = 128;
+	private static final int SUB_BUCKET_BITS = 6;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	private static final int BUCKET_COUNT = EXACT_LIMIT + (63 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+	private final LongAdder totalCount = new LongAdder();
+	private final LongAdder totalValue = new LongAdder();
+	private final LongAccumulator maxValue = new LongAccumulator(Math::max, 0);
+
+	/**
+	 * Record a value; negative values are recorded as 0.
+	 */
+	public void record(final long value) {
+		long recorded = Math.max(0, value);
+		counts.incrementAndGet(indexOf(recorded));
+		totalCount.increment();
+		totalValue.add(recorded);
+		maxValue.accumulate(recorded);
+	}
+
+	public long getCount() {
+		return totalCount.sum();
+	}
+
+	public long getMax() {
+		return maxValue.get();
+	}
+
+	public double getMean() {
+		long count = totalCount.sum();
+		return count == 0 ? 0 : (double) totalValue.sum() / count;
+	}
+
+	/**
+	 * @return the highest value of the bucket the given percentile falls into, capped at the
+	 *         recorded maximum, or 0 if nothing was recorded
+	 */
+	public long getValueAtPercentile(final double percentile) {
+		long count = 0;
+		for (int i = 0; i < BUCKET_COUNT; i++)
+			count += counts.get(i);
+		if (count == 0)
+			return 0;
+		long target = Math.max(1, (long) Math.ceil(Math.min(100, percentile) / 100 * count));
+		long seen = 0;
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			seen += counts.get(i);
+			if (seen >= target)
+				return Math.min(highestValueOf(i), getMax());
+		}
+		return getMax();
+	}
+
+	public void reset() {
+		for (int i = 0; i < BUCKET_COUNT; i++)
+			counts.set(i, 0);
+		totalCount.reset();
+		totalValue.reset();
+		maxValue.reset();
+	}
+
+	static int indexOf(final long value) {
+		if (value < EXACT_LIMIT)
+			return (int) value;
+		int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+		return EXACT_LIMIT + (shift - 1) * SUB_BUCKETS + (int) ((value >>> shift) - SUB_BUCKETS);
+	}
+
+	static long highestValueOf(final int index) {
+		if (index < EXACT_LIMIT)
+			return index;
+		int bucket = index - EXACT_LIMIT;
+		int shift = bucket / SUB_BUCKETS + 1;
+		long lowest = (long) (bucket % SUB_BUCKETS + SUB_BUCKETS) << shift;
+		return lowest + (1L << shift) - 1;
+	}
+}
@@ -0,0 +1,144 @@
+package com.ank.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Counters and latency histogram of a processor.
+ *
+ * Counters are striped {@link LongAdder}s, so recording from the tick path is a single
+ * uncontended add. Publish latency is the time from the receipt of a tick to its publish, so it
+ * includes the time spent conflated but not the feed delay or the feed clock skew. Read it
+ * through {@link #snapshot()} or JMX.
+ */
+public class ThrottleMetrics implements ThrottleMetricsMXBean {
+	private final LongAdder ticksReceived = new LongAdder();
+	private final LongAdder ticksPublished = new LongAdder();
+	private final LongAdder rejectedGlobalLimit = new LongAdder();
+	private final LongAdder rejectedSymbolWindow = new LongAdder();
+	private final LongAdder rejectedStale = new LongAdder();
+	private final LongAdder suppressed = new LongAdder();
+	private final LongAdder conflated = new LongAdder();
+	private final LatencyHistogram publishLatency = new LatencyHistogram();
+	private final LongSupplier queueDepth;
+
+	/**
+	 * @param queueDepth number of updates currently waiting to be published
+	 */
+	public ThrottleMetrics(final LongSupplier queueDepth) {
+		this.queueDepth = queueDepth;
+	}
+
+	public void onTickReceived() {
+		ticksReceived.increment();
+	}
+
+	public void onPublished(final long latencyMillis) {
+		ticksPublished.increment();
+		publishLatency.record(latencyMillis);
+	}
+
+	public void onRejectedGlobalLimit() {
+		rejectedGlobalLimit.increment();
+	}
+
+	public void onRejectedSymbolWindow() {
+		rejectedSymbolWindow.increment();
+	}
+
+	public void onRejectedStale() {
+		rejectedStale.increment();
+	}
+
+	public void onSuppressed() {
+		suppressed.increment();
+	}
+
+	public void onConflated() {
+		conflated.increment();
+	}
+
+	public ThrottleMetricsSnapshot snapshot() {
+		return new ThrottleMetricsSnapshot(getTicksReceived(), getTicksPublished(), getRejectedGlobalLimit(),
+				getRejectedSymbolWindow(), getRejectedStale(), getSuppressed(), getConflated(), getQueueDepth(),
+				getPublishLatencyP50Millis(), getPublishLatencyP99Millis(), getPublishLatencyP999Millis(),
+				getPublishLatencyMaxMillis());
+	}
+
+	/**
+	 * Register with the platform MBean server as com.ank:type=ThrottleMetrics,name=&lt;name&gt;.
+	 */
+	public ObjectName registerMBean(final String name) throws JMException {
+		ObjectName objectName = new ObjectName("com.ank:type=ThrottleMetrics,name=" + ObjectName.quote(name));
+		ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+		return objectName;
+	}
+
+	public LatencyHistogram getPublishLatency() {
+		return publishLatency;
+	}
+
+	@Override
+	public long getTicksReceived() {
+		return ticksReceived.sum();
+	}
+
+	@Override
+	public long getTicksPublished() {
+		return ticksPublished.sum();
+	}
+
+	@Override
+	public long getRejectedGlobalLimit() {
+		return rejectedGlobalLimit.sum();
+	}
+
+	@Override
+	public long getRejectedSymbolWindow() {
+		return rejectedSymbolWindow.sum();
+	}
+
+	@Override
+	public long getRejectedStale() {
+		return rejectedStale.sum();
+	}
+
+	@Override
+	public long getSuppressed() {
+		return suppressed.sum();
+	}
+
+	@Override
+	public long getConflated() {
+		return conflated.sum();
+	}
+
+	@Override
+	public long getQueueDepth() {
+		return queueDepth.getAsLong();
+	}
+
+	@Override
+	public long getPublishLatencyP50Millis() {
+		return publishLatency.getValueAtPercentile(50);
+	}
+
+	@Override
+	public long getPublishLatencyP99Millis() {
+		return publishLatency.getValueAtPercentile(99);
+	}
+
+	@Override
+	public long getPublishLatencyP999Millis() {
+		return publishLatency.getValueAtPercentile(99.9);
+	}
+
+	@Override
+	public long getPublishLatencyMaxMillis() {
+		return publishLatency.getMax();
+	}
+}
@@ -0,0 +1,45 @@
+package com.ank.metrics;
+
+/**
+ * JMX view of {@link ThrottleMetrics}
+ */
+public interface ThrottleMetricsMXBean {
+    long getTicksReceived();
+
+    long getTicksPublished();
+
+    /**
+     * @return ticks refused by the global rate limit
+     */
+    long getRejectedGlobalLimit();
+
+    /**
+     * @return ticks refused because their symbol was published within its window
+     */
+    long getRejectedSymbolWindow();
+
+    /**
+     * @return ticks dropped because newer data of their symbol was already published
+     */
+    long getRejectedStale();
+
+    /**
+     * @return ticks dropped by the significant-change filter
+     */
+    long getSuppressed();
+
+    /**
+     * @return ticks kept for a later publish
+     */
+    long getConflated();
+
+    long getQueueDepth();
+
+    long getPublishLatencyP50Millis();
+
+    long getPublishLatencyP99Millis();
+
+    long getPublishLatencyP999Millis();
+
+    long getPublishLatencyMaxMillis();
+}
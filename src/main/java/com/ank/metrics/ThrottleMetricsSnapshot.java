@@ -0,0 +1,96 @@
+package com.ank.metrics;
+
+/**
+ * Point in time copy of {@link ThrottleMetrics}. Counters are read one after the other, so they
+ * are individually exact but not an atomic cut across all of them.
+ */
+public class ThrottleMetricsSnapshot {
+	private final long ticksReceived;
+	private final long ticksPublished;
+	private final long rejectedGlobalLimit;
+	private final long rejectedSymbolWindow;
+	private final long rejectedStale;
+	private final long suppressed;
+	private final long conflated;
+	private final long queueDepth;
+	private final long publishLatencyP50Millis;
+	private final long publishLatencyP99Millis;
+	private final long publishLatencyP999Millis;
+	private final long publishLatencyMaxMillis;
+
+	public ThrottleMetricsSnapshot(long ticksReceived, long ticksPublished, long rejectedGlobalLimit,
+			long rejectedSymbolWindow, long rejectedStale, long suppressed, long conflated, long queueDepth,
+			long publishLatencyP50Millis, long publishLatencyP99Millis, long publishLatencyP999Millis,
+			long publishLatencyMaxMillis) {
+		this.ticksReceived = ticksReceived;
+		this.ticksPublished = ticksPublished;
+		this.rejectedGlobalLimit = rejectedGlobalLimit;
+		this.rejectedSymbolWindow = rejectedSymbolWindow;
+		this.rejectedStale = rejectedStale;
+		this.suppressed = suppressed;
+		this.conflated = conflated;
+		this.queueDepth = queueDepth;
+		this.publishLatencyP50Millis = publishLatencyP50Millis;
+		this.publishLatencyP99Millis = publishLatencyP99Millis;
+		this.publishLatencyP999Millis = publishLatencyP999Millis;
+		this.publishLatencyMaxMillis = publishLatencyMaxMillis;
+	}
+
+	public long getTicksReceived() {
+		return ticksReceived;
+	}
+
+	public long getTicksPublished() {
+		return ticksPublished;
+	}
+
+	public long getRejectedGlobalLimit() {
+		return rejectedGlobalLimit;
+	}
+
+	public long getRejectedSymbolWindow() {
+		return rejectedSymbolWindow;
+	}
+
+	public long getRejectedStale() {
+		return rejectedStale;
+	}
+
+	public long getSuppressed() {
+		return suppressed;
+	}
+
+	public long getConflated() {
+		return conflated;
+	}
+
+	public long getQueueDepth() {
+		return queueDepth;
+	}
+
+	public long getPublishLatencyP50Millis() {
+		return publishLatencyP50Millis;
+	}
+
+	public long getPublishLatencyP99Millis() {
+		return publishLatencyP99Millis;
+	}
+
+	public long getPublishLatencyP999Millis() {
+		return publishLatencyP999Millis;
+	}
+
+	public long getPublishLatencyMaxMillis() {
+		return publishLatencyMaxMillis;
+	}
+
+	@Override
+	public String toString() {
+		return "ThrottleMetricsSnapshot [ticksReceived=" + ticksReceived + ", ticksPublished=" + ticksPublished
+				+ ", rejectedGlobalLimit=" + rejectedGlobalLimit + ", rejectedSymbolWindow=" + rejectedSymbolWindow
+				+ ", rejectedStale=" + rejectedStale + ", suppressed=" + suppressed + ", conflated=" + conflated
+				+ ", queueDepth=" + queueDepth + ", publishLatencyP50Millis=" + publishLatencyP50Millis
+				+ ", publishLatencyP99Millis=" + publishLatencyP99Millis + ", publishLatencyP999Millis="
+				+ publishLatencyP999Millis + ", publishLatencyMaxMillis=" + publishLatencyMaxMillis + "]";
+	}
+}
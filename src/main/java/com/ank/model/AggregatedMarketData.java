@@ -0,0 +1,53 @@
+package com.ank.model;
+
+/**
+ * Snapshot of the latest market data of several symbols, published in a single call.
+ *
+ * Entries are preallocated and reused from one publish to the next, so a consumer that wants to
+ * keep an entry after the publish call returns has to copy it.
+ */
+public class AggregatedMarketData {
+	private final MarketData[] entries;
+	private int size;
+
+	public AggregatedMarketData(final int capacity) {
+		this.entries = new MarketData[capacity];
+		for (int i = 0; i < capacity; i++)
+			entries[i] = new MarketData();
+	}
+
+	/**
+	 * Append a copy of the data.
+	 */
+	public void add(final MarketData data) {
+		if (size == entries.length)
+			throw new IllegalStateException("Snapshot is full: " + entries.length);
+		entries[size++].copyFrom(data);
+	}
+
+	public MarketData get(final int index) {
+		if (index >= size)
+			throw new IndexOutOfBoundsException("Index " + index + " size " + size);
+		return entries[index];
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	public boolean isFull() {
+		return size == entries.length;
+	}
+
+	public int capacity() {
+		return entries.length;
+	}
+
+	public void clear() {
+		size = 0;
+	}
+}
@@ -4,20 +4,47 @@ import java.math.BigDecimal;
 
 /**
  * Model for storing market data info
+ *
+ * Prices are kept as fixed-point long mantissas sharing the price scale of the instrument,
+ * i.e. price = mantissa * 10^-scale. Instances are mutable so that feed handlers can pool and
+ * reuse them; BigDecimal accessors are only meant for the edges of the system.
  */
 public class MarketData {
 	private String symbol;
-	private BigDecimal bid;
-	private BigDecimal ask;
-	private BigDecimal last;
+	private long bid;
+	private long ask;
+	private long last;
+	private int priceScale;
 	private long updateTime;
 
+	public MarketData() {
+	}
+
 	public MarketData(String symbol, BigDecimal bid, BigDecimal ask, BigDecimal last, long updateTime) {
+		int scale = Math.max(Math.max(bid.scale(), ask.scale()), Math.max(last.scale(), 0));
+		set(symbol, toMantissa(bid, scale), toMantissa(ask, scale), toMantissa(last, scale), scale, updateTime);
+	}
+
+	public MarketData(String symbol, long bid, long ask, long last, int priceScale, long updateTime) {
+		set(symbol, bid, ask, last, priceScale, updateTime);
+	}
+
+	public MarketData(MarketData other) {
+		copyFrom(other);
+	}
+
+	public MarketData set(String symbol, long bid, long ask, long last, int priceScale, long updateTime) {
 		this.symbol = symbol;
 		this.bid = bid;
 		this.ask = ask;
 		this.last = last;
+		this.priceScale = priceScale;
 		this.updateTime = updateTime;
+		return this;
+	}
+
+	public MarketData copyFrom(MarketData other) {
+		return set(other.symbol, other.bid, other.ask, other.last, other.priceScale, other.updateTime);
 	}
 
 	public String getSymbol() {
@@ -25,18 +52,44 @@ public class MarketData {
 	}
 
 	public BigDecimal getBid() {
-		return bid;
+		return BigDecimal.valueOf(bid, priceScale);
 	}
 
 	public BigDecimal getAsk() {
-		return ask;
+		return BigDecimal.valueOf(ask, priceScale);
 	}
 
 	public BigDecimal getLast() {
+		return BigDecimal.valueOf(last, priceScale);
+	}
+
+	public long getBidMantissa() {
+		return bid;
+	}
+
+	public long getAskMantissa() {
+		return ask;
+	}
+
+	public long getLastMantissa() {
 		return last;
 	}
 
+	public int getPriceScale() {
+		return priceScale;
+	}
+
 	public long getUpdateTime() {
 		return updateTime;
 	}
+
+	@Override
+	public String toString() {
+		return "MarketData{" + symbol + " bid=" + getBid() + " ask=" + getAsk() + " last=" + getLast()
+				+ " updateTime=" + updateTime + "}";
+	}
+
+	private static long toMantissa(BigDecimal price, int scale) {
+		return price.setScale(scale).unscaledValue().longValueExact();
+	}
 }
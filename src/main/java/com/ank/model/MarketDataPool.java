@@ -0,0 +1,43 @@
+package com.ank.model;
+
+/**
+ * Bounded pool of reusable {@link MarketData} instances for feed handlers.
+ *
+ * The processor never keeps a reference to a tick after onMessage returns, so a feed handler
+ * can acquire a tick, fill it, pass it on and release it straight away. Not thread safe, each
+ * feed thread should own its pool.
+ */
+public class MarketDataPool {
+	private final MarketData[] free;
+	private int size;
+
+	public MarketDataPool(final int capacity) {
+		this.free = new MarketData[capacity];
+		for (int i = 0; i < capacity; i++)
+			free[i] = new MarketData();
+		this.size = capacity;
+	}
+
+	/**
+	 * @return a pooled instance, or a new one if the pool is exhausted
+	 */
+	public MarketData acquire() {
+		if (size == 0)
+			return new MarketData();
+		MarketData data = free[--size];
+		free[size] = null;
+		return data;
+	}
+
+	/**
+	 * Return an instance to the pool, it is dropped if the pool is already full.
+	 */
+	public void release(final MarketData data) {
+		if (size < free.length)
+			free[size++] = data;
+	}
+
+	public int available() {
+		return size;
+	}
+}
@@ -0,0 +1,160 @@
+package com.ank.policy;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.ank.util.IMarketDataLimiter;
+import com.ank.util.IRestorableLimiter;
+import com.ank.util.ITimer;
+import com.ank.util.RingBufferRateLimiter;
+
+/**
+ * Rate limiter applying a {@link ThrottlePolicy}: a global budget, optional caps per symbol group
+ * and per-symbol windows.
+ *
+ * The policy can be replaced at any time with {@link #update(ThrottlePolicy)}. Limiters whose
+ * settings did not change are kept as they are, changed ones are rebuilt carrying over their
+ * recent accepts, and the new state is swapped in with a single volatile write, so the feed is
+ * never paused and a reload does not open a fresh window. Accepts the old limiters make while
+ * the new ones are built are charged to the new ones once swapped in.
+ *
+ * A publish of a capped group takes a permit from the group's cap and from the global budget, or
+ * from neither: the global budget is checked before the group permit is taken. Caps reserve
+ * nothing, other symbols may still use up the global budget before a group reaches its cap.
+ */
+public class PolicyRateLimiter implements IMarketDataLimiter, IRestorableLimiter {
+	private static final Logger LOG = LoggerFactory.getLogger(PolicyRateLimiter.class);
+
+	private final ITimer timer;
+	private volatile State state;
+
+	public PolicyRateLimiter(final ITimer timer, final ThrottlePolicy policy) {
+		this.timer = timer;
+		this.state = new State(timer, policy, null);
+	}
+
+	public boolean isNewDataAllowed() {
+		return state.globalLimiter.isNewDataAllowed();
+	}
+
+	public boolean isNewDataAllowed(final String symbol) {
+		State current = state;
+		ThrottlePolicy.SymbolGroup group = current.policy.getGroup(symbol);
+		RingBufferRateLimiter groupLimiter = group == null ? null : current.groupLimiters.get(group.getName());
+		if (groupLimiter == null)
+			return current.globalLimiter.isNewDataAllowed();
+		// a group permit is not taken while the global budget would refuse anyway; only a race for
+		// the last global permit can still cost the group one
+		long currentTime = timer.getCurrentTime();
+		if (current.globalLimiter.getNextPermitTime(currentTime) > currentTime)
+			return false;
+		return groupLimiter.isNewDataAllowed() && current.globalLimiter.isNewDataAllowed();
+	}
+
+	public long getSymbolWindowMillis(final String symbol) {
+		return state.policy.getSymbolWindowMillis(symbol);
+	}
+
+	/**
+	 * Only the global budget is considered, a group cap may refuse for longer.
+	 */
+	@Override
+	public long getNextPermitTime(final long currentTime) {
+		return state.globalLimiter.getNextPermitTime(currentTime);
+	}
+
+	/**
+	 * Only the global budget is saved and restored, group caps start afresh.
+	 */
+	@Override
+	public long[] getAcceptTimes() {
+		return state.globalLimiter.getAcceptTimes();
+	}
+
+	@Override
+	public void restoreAcceptTimes(final long[] acceptTimes) {
+		state.globalLimiter.restoreAcceptTimes(acceptTimes);
+	}
+
+	public ThrottlePolicy getPolicy() {
+		return state.policy;
+	}
+
+	/**
+	 * Apply a new policy without pausing callers.
+	 */
+	public synchronized void update(final ThrottlePolicy policy) {
+		State next = new State(timer, policy, state);
+		state = next;
+		next.chargeMissedAccepts();
+		LOG.info("Applied throttle policy: global {} per {} ms, {} groups", policy.getGlobalLimit(),
+				policy.getGlobalWindowMillis(), policy.getGroups().size());
+	}
+
+	private static final class State {
+		private final ThrottlePolicy policy;
+		private final RingBufferRateLimiter globalLimiter;
+		private final Map<String, RingBufferRateLimiter> groupLimiters;
+		// limiters rebuilt from a previous one, until their missed accepts are charged
+		private final List<Rebuilt> rebuilt = new ArrayList<>();
+
+		private State(final ITimer timer, final ThrottlePolicy policy, final State previous) {
+			this.policy = policy;
+			this.globalLimiter = limiter(timer, policy.getGlobalLimit(), policy.getGlobalWindowMillis(),
+					previous == null ? null : previous.globalLimiter);
+			this.groupLimiters = new HashMap<>();
+			for (ThrottlePolicy.SymbolGroup group : policy.getGroups().values()) {
+				if (group.getCap() == 0)
+					continue;
+				RingBufferRateLimiter old = previous == null ? null : previous.groupLimiters.get(group.getName());
+				groupLimiters.put(group.getName(),
+						limiter(timer, group.getCap(), policy.getGlobalWindowMillis(), old));
+			}
+		}
+
+		/**
+		 * Take a permit from each rebuilt limiter for every accept its previous one made after
+		 * the accept times were copied. Charged at the current time, so a reload errs towards
+		 * refusing rather than overshooting.
+		 */
+		private void chargeMissedAccepts() {
+			for (Rebuilt limiters : rebuilt) {
+				long missed = limiters.previous.getAcceptedCount() - limiters.acceptedCount;
+				for (long i = 0; i < Math.min(missed, limiters.limiter.getLimit()); i++)
+					limiters.limiter.isNewDataAllowed();
+			}
+			rebuilt.clear();
+		}
+
+		private RingBufferRateLimiter limiter(final ITimer timer, final int limit, final long windowMillis,
+				final RingBufferRateLimiter previous) {
+			if (previous == null)
+				return new RingBufferRateLimiter(timer, limit, windowMillis);
+			if (previous.getLimit() == limit && previous.getWindowMillis() == windowMillis)
+				return previous;
+			// counted before the copy, an accept in between is charged twice rather than lost
+			long acceptedCount = previous.getAcceptedCount();
+			RingBufferRateLimiter limiter = new RingBufferRateLimiter(timer, limit, windowMillis, previous);
+			rebuilt.add(new Rebuilt(previous, limiter, acceptedCount));
+			return limiter;
+		}
+	}
+
+	private static final class Rebuilt {
+		private final RingBufferRateLimiter previous;
+		private final RingBufferRateLimiter limiter;
+		private final long acceptedCount;
+
+		private Rebuilt(final RingBufferRateLimiter previous, final RingBufferRateLimiter limiter,
+				final long acceptedCount) {
+			this.previous = previous;
+			this.limiter = limiter;
+			this.acceptedCount = acceptedCount;
+		}
+	}
+}
@@ -0,0 +1,190 @@
+package com.ank.policy;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Immutable snapshot of the throttle configuration.
+ *
+ * Properties understood by {@link #fromProperties(Properties)}:
+ * <pre>
+ * throttle.global.limit=100                 publishes per global window
+ * throttle.global.windowMillis=1000
+ * throttle.symbol.windowMillis=1000         default minimum time between publishes of a symbol
+ * throttle.symbol.MSFT.windowMillis=500     per-symbol override
+ * throttle.group.liquid.symbols=AAPL,MSFT
+ * throttle.group.liquid.windowMillis=250    symbol window for members of the group
+ * throttle.group.liquid.cap=60              optional cap on the group's publishes per global window
+ * </pre>
+ * A per-symbol override wins over the group setting, which wins over the default. A group cap only
+ * limits how much of the global budget the group may use, it reserves nothing for the group.
+ */
+public class ThrottlePolicy {
+	public static final int DEFAULT_GLOBAL_LIMIT = 100;
+	public static final long DEFAULT_WINDOW_MILLIS = 1000L;
+
+	private static final String PREFIX = "throttle.";
+	private static final String GROUP_PREFIX = PREFIX + "group.";
+	private static final String SYMBOL_PREFIX = PREFIX + "symbol.";
+	private static final String WINDOW_SUFFIX = ".windowMillis";
+
+	private final int globalLimit;
+	private final long globalWindowMillis;
+	private final long symbolWindowMillis;
+	private final Map<String, Long> symbolWindows;
+	private final Map<String, SymbolGroup> groups;
+	private final Map<String, SymbolGroup> symbolGroups;
+
+	public ThrottlePolicy(int globalLimit, long globalWindowMillis, long symbolWindowMillis,
+			Map<String, Long> symbolWindows, Map<String, SymbolGroup> groups) {
+		if (globalLimit <= 0 || globalWindowMillis <= 0 || symbolWindowMillis < 0)
+			throw new IllegalArgumentException("Global limit and windows must be positive");
+		this.globalLimit = globalLimit;
+		this.globalWindowMillis = globalWindowMillis;
+		this.symbolWindowMillis = symbolWindowMillis;
+		this.symbolWindows = Collections.unmodifiableMap(new HashMap<>(symbolWindows));
+		this.groups = Collections.unmodifiableMap(new HashMap<>(groups));
+		Map<String, SymbolGroup> bySymbol = new HashMap<>();
+		for (SymbolGroup group : groups.values()) {
+			for (String symbol : group.getSymbols()) {
+				SymbolGroup previous = bySymbol.put(symbol, group);
+				if (previous != null)
+					throw new IllegalArgumentException(
+							symbol + " is in both groups " + previous.getName() + " and " + group.getName());
+			}
+		}
+		this.symbolGroups = bySymbol;
+	}
+
+	public static ThrottlePolicy defaults() {
+		return new ThrottlePolicy(DEFAULT_GLOBAL_LIMIT, DEFAULT_WINDOW_MILLIS, DEFAULT_WINDOW_MILLIS,
+				Collections.emptyMap(), Collections.emptyMap());
+	}
+
+	public static ThrottlePolicy fromProperties(Properties properties) {
+		int globalLimit = intValue(properties, PREFIX + "global.limit", DEFAULT_GLOBAL_LIMIT);
+		long globalWindow = longValue(properties, PREFIX + "global" + WINDOW_SUFFIX, DEFAULT_WINDOW_MILLIS);
+		long symbolWindow = longValue(properties, SYMBOL_PREFIX + "windowMillis", DEFAULT_WINDOW_MILLIS);
+
+		Map<String, Long> symbolWindows = new HashMap<>();
+		Map<String, SymbolGroup> groups = new HashMap<>();
+		for (String key : properties.stringPropertyNames()) {
+			if (key.startsWith(SYMBOL_PREFIX) && key.endsWith(WINDOW_SUFFIX)
+					&& key.length() > SYMBOL_PREFIX.length() + WINDOW_SUFFIX.length()) {
+				String symbol = key.substring(SYMBOL_PREFIX.length(), key.length() - WINDOW_SUFFIX.length());
+				symbolWindows.put(symbol, longValue(properties, key, symbolWindow));
+			} else if (key.startsWith(GROUP_PREFIX) && key.endsWith(".symbols")) {
+				String name = key.substring(GROUP_PREFIX.length(), key.length() - ".symbols".length());
+				String groupPrefix = GROUP_PREFIX + name;
+				groups.put(name, new SymbolGroup(name, splitSymbols(properties.getProperty(key)),
+						intValue(properties, groupPrefix + ".cap", 0),
+						longValue(properties, groupPrefix + WINDOW_SUFFIX, symbolWindow)));
+			}
+		}
+		return new ThrottlePolicy(globalLimit, globalWindow, symbolWindow, symbolWindows, groups);
+	}
+
+	public int getGlobalLimit() {
+		return globalLimit;
+	}
+
+	public long getGlobalWindowMillis() {
+		return globalWindowMillis;
+	}
+
+	/**
+	 * @return minimum time between two publishes of the symbol
+	 */
+	public long getSymbolWindowMillis(String symbol) {
+		Long window = symbolWindows.get(symbol);
+		if (window != null)
+			return window;
+		SymbolGroup group = symbolGroups.get(symbol);
+		return group == null ? symbolWindowMillis : group.getSymbolWindowMillis();
+	}
+
+	public long getDefaultSymbolWindowMillis() {
+		return symbolWindowMillis;
+	}
+
+	/**
+	 * @return the group of the symbol, or null
+	 */
+	public SymbolGroup getGroup(String symbol) {
+		return symbolGroups.get(symbol);
+	}
+
+	public Map<String, SymbolGroup> getGroups() {
+		return groups;
+	}
+
+	private static String[] splitSymbols(String value) {
+		String[] symbols = value.split(",");
+		for (int i = 0; i < symbols.length; i++)
+			symbols[i] = symbols[i].trim();
+		return symbols;
+	}
+
+	private static int intValue(Properties properties, String key, int defaultValue) {
+		String value = properties.getProperty(key);
+		if (value == null)
+			return defaultValue;
+		try {
+			return Integer.parseInt(value.trim());
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Invalid value for " + key + ": " + value, e);
+		}
+	}
+
+	private static long longValue(Properties properties, String key, long defaultValue) {
+		String value = properties.getProperty(key);
+		if (value == null)
+			return defaultValue;
+		try {
+			return Long.parseLong(value.trim());
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Invalid value for " + key + ": " + value, e);
+		}
+	}
+
+	/**
+	 * Named set of symbols sharing a symbol window and optionally a cap on their publishes.
+	 */
+	public static class SymbolGroup {
+		private final String name;
+		private final String[] symbols;
+		private final int cap;
+		private final long symbolWindowMillis;
+
+		public SymbolGroup(String name, String[] symbols, int cap, long symbolWindowMillis) {
+			if (cap < 0 || symbolWindowMillis < 0)
+				throw new IllegalArgumentException("Group " + name + " cap and window must not be negative");
+			this.name = name;
+			this.symbols = symbols.clone();
+			this.cap = cap;
+			this.symbolWindowMillis = symbolWindowMillis;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public String[] getSymbols() {
+			return symbols.clone();
+		}
+
+		/**
+		 * @return most publishes of the whole group per global window, taken from the global
+		 *         budget, or 0 if the group is not capped
+		 */
+		public int getCap() {
+			return cap;
+		}
+
+		public long getSymbolWindowMillis() {
+			return symbolWindowMillis;
+		}
+	}
+}
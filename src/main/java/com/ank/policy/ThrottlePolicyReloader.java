@@ -0,0 +1,77 @@
+package com.ank.policy;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Loads throttle policies from properties files and reapplies them to a
+ * {@link PolicyRateLimiter} when the file changes. An invalid file is logged and ignored, the
+ * limiter keeps its current policy.
+ */
+public class ThrottlePolicyReloader {
+	private static final Logger LOG = LoggerFactory.getLogger(ThrottlePolicyReloader.class);
+
+	private final Path path;
+	private final PolicyRateLimiter limiter;
+	private long lastModified;
+
+	public ThrottlePolicyReloader(final Path path, final PolicyRateLimiter limiter) {
+		this.path = path;
+		this.limiter = limiter;
+	}
+
+	public static ThrottlePolicy load(final Path path) throws IOException {
+		try (InputStream in = Files.newInputStream(path)) {
+			return load(in);
+		}
+	}
+
+	/**
+	 * Load the policy from a classpath resource, e.g. application.properties, falling back to the
+	 * defaults if the resource does not exist.
+	 */
+	public static ThrottlePolicy loadResource(final String resource) throws IOException {
+		try (InputStream in = ThrottlePolicyReloader.class.getClassLoader().getResourceAsStream(resource)) {
+			return in == null ? ThrottlePolicy.defaults() : load(in);
+		}
+	}
+
+	public static ThrottlePolicy load(final InputStream in) throws IOException {
+		Properties properties = new Properties();
+		properties.load(in);
+		return ThrottlePolicy.fromProperties(properties);
+	}
+
+	/**
+	 * Reload the file if it changed since the last successful check.
+	 *
+	 * @return true if a new policy was applied
+	 */
+	public synchronized boolean reloadIfModified() {
+		try {
+			long modified = Files.getLastModifiedTime(path).toMillis();
+			if (modified == lastModified)
+				return false;
+			// remember the version even if it is invalid so it is reported once
+			lastModified = modified;
+			limiter.update(load(path));
+			return true;
+		} catch (IOException | IllegalArgumentException e) {
+			LOG.error("Failed to reload throttle policy from {}, keeping the current one", path, e);
+			return false;
+		}
+	}
+
+	public ScheduledFuture<?> schedule(final ScheduledExecutorService executor, final long periodMillis) {
+		return executor.scheduleWithFixedDelay(this::reloadIfModified, 0, periodMillis, TimeUnit.MILLISECONDS);
+	}
+}
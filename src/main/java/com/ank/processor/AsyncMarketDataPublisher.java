@@ -0,0 +1,317 @@
+package com.ank.processor;
+
+import java.lang.reflect.Method;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.ank.model.MarketData;
+import com.ank.util.IMarketDataLimiter;
+import com.ank.util.IPublishFeedback;
+
+/**
+ * Publish stage that takes accepted updates off the feed thread.
+ *
+ * Each symbol has a slot holding at most one update waiting to be sent; a newer update of the
+ * same symbol replaces it, so a slow sink never sends prices that are no longer current and the
+ * memory held is bounded by the number of symbols. At most one send per symbol runs at a time,
+ * which keeps every symbol in order, and at most maxInFlight sends run at all. Symbols with an
+ * update waiting are served round robin.
+ *
+ * Workers are virtual threads when the runtime has them, platform threads otherwise. Superseding
+ * means the sink may see fewer calls than the rate limiter accepted, never more. Sends delayed by
+ * a slow sink could still reach it in a burst once it recovers, so a publisher given a send
+ * limiter takes a permit of its own right before each call of the sink; a send waits for one
+ * and then sends the latest update of its symbol. Without a send limiter the rate limit holds
+ * for accepted updates only, not at the sink.
+ */
+public class AsyncMarketDataPublisher implements AutoCloseable {
+	private static final Logger LOG = LoggerFactory.getLogger(AsyncMarketDataPublisher.class);
+
+	// the limiter may run on a simulated clock, so a waiting send polls it rather than sleeping
+	// until the next permit time
+	private static final long PERMIT_POLL_NANOS = 200_000L;
+
+	private final Consumer<MarketData> sink;
+	private final int maxInFlight;
+	private final ExecutorService executor;
+	private final boolean ownsExecutor;
+	// paces the calls of the sink, null if they are not paced
+	private final IMarketDataLimiter sendLimiter;
+
+	private final ConcurrentHashMap<String, Slot> slots = new ConcurrentHashMap<>();
+	// symbols with an update waiting and no send running
+	private final Queue<Slot> ready = new ConcurrentLinkedQueue<>();
+	private final AtomicInteger inFlight = new AtomicInteger();
+
+	private final LongAdder sentCount = new LongAdder();
+	private final LongAdder supersededCount = new LongAdder();
+	private final LongAdder failedCount = new LongAdder();
+
+	private volatile boolean closed;
+	// told how each send went, e.g. an adaptive limiter
+	private volatile IPublishFeedback feedback;
+
+	public AsyncMarketDataPublisher(final Consumer<MarketData> sink, final int maxInFlight) {
+		this(sink, maxInFlight, newWorkerExecutor(maxInFlight), true, null);
+	}
+
+	/**
+	 * @param executor runs the sends, it is not shut down by {@link #close()}
+	 */
+	public AsyncMarketDataPublisher(final Consumer<MarketData> sink, final int maxInFlight,
+			final ExecutorService executor) {
+		this(sink, maxInFlight, executor, false, null);
+	}
+
+	/**
+	 * @param sendLimiter paces the calls of the sink, usually with the limits of the processor's
+	 *                    rate limiter but a limiter of its own
+	 */
+	public AsyncMarketDataPublisher(final Consumer<MarketData> sink, final int maxInFlight,
+			final IMarketDataLimiter sendLimiter) {
+		this(sink, maxInFlight, newWorkerExecutor(maxInFlight), true, sendLimiter);
+	}
+
+	public AsyncMarketDataPublisher(final Consumer<MarketData> sink, final int maxInFlight,
+			final ExecutorService executor, final IMarketDataLimiter sendLimiter) {
+		this(sink, maxInFlight, executor, false, sendLimiter);
+	}
+
+	private AsyncMarketDataPublisher(final Consumer<MarketData> sink, final int maxInFlight,
+			final ExecutorService executor, final boolean ownsExecutor, final IMarketDataLimiter sendLimiter) {
+		if (maxInFlight <= 0)
+			throw new IllegalArgumentException("maxInFlight must be positive");
+		this.sink = sink;
+		this.maxInFlight = maxInFlight;
+		this.executor = executor;
+		this.ownsExecutor = ownsExecutor;
+		this.sendLimiter = sendLimiter;
+	}
+
+	/**
+	 * Queue an update for sending. The data is copied, so pooled instances may be reused once this
+	 * returns.
+	 */
+	public void publish(final MarketData data) {
+		if (closed)
+			throw new IllegalStateException("Publisher is closed");
+		Slot slot = slots.computeIfAbsent(data.getSymbol(), symbol -> new Slot());
+		boolean schedule;
+		synchronized (slot) {
+			if (slot.pending == null) {
+				slot.pending = new MarketData(data);
+			} else {
+				slot.pending.copyFrom(data);
+				supersededCount.increment();
+			}
+			schedule = !slot.scheduled;
+			slot.scheduled = true;
+		}
+		if (schedule)
+			ready.offer(slot);
+		dispatch();
+	}
+
+	/**
+	 * Report the latency and failures of sends, or stop reporting if null.
+	 */
+	public void setFeedback(final IPublishFeedback feedback) {
+		this.feedback = feedback;
+	}
+
+	/**
+	 * Stop accepting updates and wait for those already queued to be sent.
+	 */
+	@Override
+	public void close() throws InterruptedException {
+		closed = true;
+		awaitIdle(Long.MAX_VALUE);
+		if (ownsExecutor) {
+			executor.shutdown();
+			executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	/**
+	 * Wait until every queued update has been sent.
+	 *
+	 * @return false if the timeout elapsed first
+	 */
+	public boolean awaitIdle(final long timeoutMillis) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + Math.min(timeoutMillis, Long.MAX_VALUE / 2);
+		synchronized (this) {
+			while (!isIdle()) {
+				long remaining = deadline - System.currentTimeMillis();
+				if (remaining <= 0)
+					return false;
+				wait(remaining);
+			}
+		}
+		return true;
+	}
+
+	public boolean isIdle() {
+		return inFlight.get() == 0 && ready.isEmpty();
+	}
+
+	public int getInFlightCount() {
+		return inFlight.get();
+	}
+
+	public int getMaxInFlight() {
+		return maxInFlight;
+	}
+
+	public long getSentCount() {
+		return sentCount.sum();
+	}
+
+	/**
+	 * @return number of queued updates replaced by a newer one of their symbol before being sent
+	 */
+	public long getSupersededCount() {
+		return supersededCount.sum();
+	}
+
+	public long getFailedCount() {
+		return failedCount.sum();
+	}
+
+	private void dispatch() {
+		for (;;) {
+			int running = inFlight.get();
+			if (running >= maxInFlight || ready.isEmpty())
+				return;
+			if (!inFlight.compareAndSet(running, running + 1))
+				continue;
+			Slot slot = ready.poll();
+			if (slot == null) {
+				// another dispatcher took it, re-check the queue before giving up
+				inFlight.decrementAndGet();
+				continue;
+			}
+			try {
+				executor.execute(() -> send(slot));
+			} catch (RejectedExecutionException e) {
+				reject(slot, e);
+			}
+		}
+	}
+
+	/**
+	 * The executor refused the send, e.g. it was shut down or is saturated. The update is dropped
+	 * and counted as failed; the next update of the symbol is tried again.
+	 */
+	private void reject(final Slot slot, final RejectedExecutionException e) {
+		synchronized (slot) {
+			slot.pending = null;
+			slot.scheduled = false;
+		}
+		failedCount.increment();
+		IPublishFeedback currentFeedback = feedback;
+		if (currentFeedback != null)
+			currentFeedback.onPublishFailed(0);
+		LOG.error("Executor rejected market data publish", e);
+		inFlight.decrementAndGet();
+		if (isIdle()) {
+			synchronized (this) {
+				notifyAll();
+			}
+		}
+	}
+
+	private void send(final Slot slot) {
+		// the update is read after the wait, so a newer one that arrived meanwhile is sent
+		boolean permitted = awaitSendPermit();
+		MarketData data;
+		synchronized (slot) {
+			data = slot.pending;
+			slot.pending = null;
+		}
+		IPublishFeedback currentFeedback = feedback;
+		long start = System.nanoTime();
+		if (!permitted) {
+			failedCount.increment();
+			LOG.warn("Interrupted waiting to send market data of {}", data.getSymbol());
+		} else {
+			try {
+				sink.accept(data);
+				sentCount.increment();
+				if (currentFeedback != null)
+					currentFeedback.onPublishCompleted(System.nanoTime() - start);
+			} catch (RuntimeException e) {
+				failedCount.increment();
+				if (currentFeedback != null)
+					currentFeedback.onPublishFailed(System.nanoTime() - start);
+				LOG.error("Failed to publish market data", e);
+			}
+		}
+		boolean more;
+		synchronized (slot) {
+			more = slot.pending != null;
+			slot.scheduled = more;
+		}
+		// to the back of the queue, so a busy symbol does not starve the others
+		if (more)
+			ready.offer(slot);
+		inFlight.decrementAndGet();
+		dispatch();
+		if (isIdle()) {
+			synchronized (this) {
+				notifyAll();
+			}
+		}
+	}
+
+	/**
+	 * @return false if interrupted, e.g. by shutting down the executor, before a permit was taken
+	 */
+	private boolean awaitSendPermit() {
+		if (sendLimiter == null)
+			return true;
+		while (!sendLimiter.isNewDataAllowed()) {
+			if (Thread.currentThread().isInterrupted())
+				return false;
+			LockSupport.parkNanos(PERMIT_POLL_NANOS);
+		}
+		return true;
+	}
+
+	/**
+	 * Virtual thread per send where available, a fixed pool of platform threads otherwise.
+	 */
+	static ExecutorService newWorkerExecutor(final int maxInFlight) {
+		try {
+			Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+			return (ExecutorService) factory.invoke(null);
+		} catch (ReflectiveOperationException | RuntimeException e) {
+			AtomicInteger threadCount = new AtomicInteger();
+			ThreadFactory threadFactory = runnable -> {
+				Thread thread = new Thread(runnable, "market-data-publisher-" + threadCount.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			};
+			return Executors.newFixedThreadPool(maxInFlight, threadFactory);
+		}
+	}
+
+	private static final class Slot {
+		// latest update not sent yet, guarded by the slot
+		private MarketData pending;
+		// in the ready queue or being sent, guarded by the slot
+		private boolean scheduled;
+	}
+}
@@ -0,0 +1,198 @@
+package com.ank.processor;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.ank.journal.MarketDataJournal;
+import com.ank.metrics.ThrottleMetrics;
+import com.ank.model.AggregatedMarketData;
+import com.ank.model.MarketData;
+import com.ank.util.IMarketDataLimiter;
+import com.ank.util.ITimer;
+import com.ank.util.RingBufferRateLimiter;
+
+/**
+ * Market data processor that publishes many symbols per publish call.
+ *
+ * Every tick marks its symbol dirty, keeping only its latest data. Dirty symbols are flushed as
+ * one {@link AggregatedMarketData} snapshot once maxBatchSize of them are dirty or the oldest has
+ * been waiting flushIntervalMillis. The rate limit applies to publish calls, so a budget of 100
+ * calls per second carries up to 100 * maxBatchSize symbol updates, while each symbol is still
+ * published at most once per symbol window. Snapshots are handed to the sink, which must not keep
+ * the snapshot after it returns.
+ */
+public class BatchMarketDataProcessor {
+	private static final Logger LOG = LoggerFactory.getLogger(BatchMarketDataProcessor.class);
+
+	private final ITimer myTimer;
+	private final IMarketDataLimiter windowRateLimiter;
+	private final SymbolStateTable symbolStates;
+	private final ConflationBuffer dirtyUpdates;
+	private final AggregatedMarketData snapshot;
+	private final long flushIntervalMillis;
+	private final Consumer<AggregatedMarketData> sink;
+	private final ThrottleMetrics metrics;
+
+	// attached while investigating, null otherwise
+	private volatile MarketDataJournal journal;
+
+	// time the oldest unflushed dirty symbol has been waiting since
+	private long dirtySince = Long.MIN_VALUE;
+	// flush attempts are limited to one per millisecond
+	private long lastAttemptTime = Long.MIN_VALUE;
+
+	public BatchMarketDataProcessor(final ITimer myTimer, final Consumer<AggregatedMarketData> sink,
+			final int maxBatchSize, final long flushIntervalMillis) {
+		this(myTimer, new RingBufferRateLimiter(myTimer), sink, maxBatchSize, flushIntervalMillis);
+	}
+
+	public BatchMarketDataProcessor(final ITimer myTimer, final IMarketDataLimiter windowRateLimiter,
+			final Consumer<AggregatedMarketData> sink, final int maxBatchSize, final long flushIntervalMillis) {
+		if (maxBatchSize <= 0 || flushIntervalMillis < 0)
+			throw new IllegalArgumentException("maxBatchSize must be positive and flushIntervalMillis not negative");
+		this.myTimer = myTimer;
+		this.windowRateLimiter = windowRateLimiter;
+		this.symbolStates = new SymbolStateTable();
+		this.dirtyUpdates = new ConflationBuffer();
+		this.snapshot = new AggregatedMarketData(maxBatchSize);
+		this.flushIntervalMillis = flushIntervalMillis;
+		this.sink = sink;
+		this.metrics = new ThrottleMetrics(this::getDirtyCount);
+	}
+
+	public int subscribe(final String symbol) {
+		return symbolStates.intern(symbol);
+	}
+
+	public synchronized void onMessage(final MarketData data) {
+		metrics.onTickReceived();
+		long currentTime = myTimer.getCurrentTime();
+		MarketDataJournal currentJournal = journal;
+		if (currentJournal != null)
+			currentJournal.appendTick(currentTime, data);
+		int symbolId = symbolStates.intern(data.getSymbol());
+		if (symbolStates.isNewer(symbolId, data.getUpdateTime()) && dirtyUpdates.offer(data)) {
+			symbolStates.setPendingReceivedTime(symbolId, currentTime);
+			metrics.onConflated();
+			journal(MarketDataJournal.CONFLATED, currentTime, data);
+			if (dirtySince == Long.MIN_VALUE)
+				dirtySince = currentTime;
+		} else {
+			metrics.onRejectedStale();
+			journal(MarketDataJournal.REJECT_STALE, currentTime, data);
+		}
+		if (isFlushDue())
+			flush();
+	}
+
+	/**
+	 * Publish the dirty symbols whose window is open as one snapshot, if the rate limiter allows.
+	 *
+	 * @return number of symbols published
+	 */
+	public synchronized int flush() {
+		long currentTime = myTimer.getCurrentTime();
+		lastAttemptTime = currentTime;
+		snapshot.clear();
+		// nothing can be published without a permit, so do not walk the dirty symbols
+		if (windowRateLimiter.getNextPermitTime(currentTime) > currentTime) {
+			dirtySince = currentTime;
+			return 0;
+		}
+		// one lap over the dirty symbols, collecting those that may be published
+		int remaining = dirtyUpdates.size();
+		while (remaining-- > 0 && !snapshot.isFull()) {
+			MarketData pending = dirtyUpdates.peek();
+			if (pending == null)
+				break;
+			int symbolId = symbolStates.intern(pending.getSymbol());
+			if (!symbolStates.isNewer(symbolId, pending.getUpdateTime())) {
+				dirtyUpdates.remove();
+				continue;
+			}
+			if (symbolStates.isWindowOpen(symbolId, currentTime,
+					windowRateLimiter.getSymbolWindowMillis(pending.getSymbol())))
+				snapshot.add(pending);
+			dirtyUpdates.skip();
+		}
+		if (snapshot.isEmpty() || !windowRateLimiter.isNewDataAllowed()) {
+			snapshot.clear();
+			if (!dirtyUpdates.isEmpty())
+				dirtySince = currentTime;
+			return 0;
+		}
+
+		for (int i = 0; i < snapshot.size(); i++) {
+			MarketData data = snapshot.get(i);
+			int symbolId = symbolStates.intern(data.getSymbol());
+			symbolStates.set(symbolId, data.getUpdateTime(), currentTime);
+			symbolStates.setPublishedPrices(symbolId, data.getBidMantissa(), data.getAskMantissa(),
+					data.getLastMantissa(), data.getPriceScale());
+			dirtyUpdates.discard(data.getSymbol(), data.getUpdateTime());
+			metrics.onPublished(currentTime - symbolStates.getPendingReceivedTime(symbolId));
+			journal(MarketDataJournal.PUBLISH, currentTime, data);
+		}
+		dirtySince = dirtyUpdates.isEmpty() ? Long.MIN_VALUE : currentTime;
+		int published = snapshot.size();
+		sink.accept(snapshot);
+		snapshot.clear();
+		return published;
+	}
+
+	/**
+	 * Periodically flush so dirty symbols are published within the flush interval even if no
+	 * further tick arrives.
+	 */
+	public ScheduledFuture<?> scheduleFlush(final ScheduledExecutorService executor, final long periodMillis) {
+		return executor.scheduleAtFixedRate(() -> {
+			try {
+				synchronized (this) {
+					if (isFlushDue())
+						flush();
+				}
+			} catch (RuntimeException e) {
+				LOG.error("Failed to flush market data", e);
+			}
+		}, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+	}
+
+	public int getDirtyCount() {
+		return dirtyUpdates.size();
+	}
+
+	public int getMaxBatchSize() {
+		return snapshot.capacity();
+	}
+
+	public ThrottleMetrics getMetrics() {
+		return metrics;
+	}
+
+	/**
+	 * Journal every tick and throttle decision from now on, or stop journaling if null. The
+	 * caller owns the journal and closes it after detaching it.
+	 */
+	public void setJournal(final MarketDataJournal journal) {
+		this.journal = journal;
+	}
+
+	private void journal(final byte type, final long time, final MarketData data) {
+		MarketDataJournal currentJournal = journal;
+		if (currentJournal != null)
+			currentJournal.appendDecision(type, time, data);
+	}
+
+	private boolean isFlushDue() {
+		if (dirtyUpdates.isEmpty())
+			return false;
+		long currentTime = myTimer.getCurrentTime();
+		if (currentTime == lastAttemptTime)
+			return false;
+		return dirtyUpdates.size() >= snapshot.capacity() || currentTime - dirtySince >= flushIntervalMillis;
+	}
+}
@@ -0,0 +1,177 @@
+package com.ank.processor;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import com.ank.model.MarketData;
+import com.ank.util.IPendingUpdates;
+
+/**
+ * Per-symbol conflation buffer for throttled market data.
+ *
+ * Only the newest pending {@link MarketData} is kept for each symbol. It is copied into a
+ * slot owned by the buffer, so callers may reuse pooled ticks once offered. Symbols with a
+ * pending update are chained in an intrusive FIFO so that offering, superseding and removing
+ * are all O(1). A slot is allocated the first time a symbol is throttled and then reused for
+ * the lifetime of the buffer, so steady-state ticks do not allocate. Symbols are retried in
+ * FIFO order; see {@link PriorityConflationBuffer} for ranked draining.
+ *
+ * Not thread safe, callers are expected to guard it with the processor lock.
+ */
+public class ConflationBuffer implements IPendingUpdates {
+
+	private final Map<String, Slot> slots;
+
+	private Slot head;
+	private Slot tail;
+	// written under the caller's lock, may be read without it as a hint
+	private volatile int pending;
+
+	public ConflationBuffer() {
+		this.slots = new HashMap<>();
+	}
+
+	/**
+	 * Keep a copy of the data as pending for its symbol unless a newer update is already pending.
+	 *
+	 * @return true if the data is now pending for the symbol
+	 */
+	@Override
+	public boolean offer(final MarketData data) {
+		Slot slot = slots.get(data.getSymbol());
+		if (slot == null) {
+			slot = new Slot();
+			slots.put(data.getSymbol(), slot);
+		}
+		if (slot.pending) {
+			if (slot.data.getUpdateTime() >= data.getUpdateTime())
+				return false;
+		} else {
+			slot.pending = true;
+			pending++;
+		}
+		slot.data.copyFrom(data);
+		if (!slot.queued)
+			enqueueLast(slot);
+		return true;
+	}
+
+	/**
+	 * Drop the pending update for the symbol if it is not newer than the given update time,
+	 * e.g. because a newer one was just published. The slot stays queued and is skipped
+	 * lazily.
+	 */
+	@Override
+	public void discard(final String symbol, final long updateTime) {
+		Slot slot = slots.get(symbol);
+		if (slot != null && slot.pending && slot.data.getUpdateTime() <= updateTime) {
+			slot.pending = false;
+			pending--;
+		}
+	}
+
+	/**
+	 * @return the oldest queued pending update, or null when nothing is pending. The instance
+	 *         belongs to the buffer and is only valid until the buffer is next modified.
+	 */
+	@Override
+	public MarketData peek() {
+		while (head != null) {
+			if (head.pending)
+				return head.data;
+			dequeueFirst();
+		}
+		return null;
+	}
+
+	/**
+	 * Remove the update returned by {@link #peek()}.
+	 */
+	@Override
+	public void remove() {
+		if (peek() == null)
+			return;
+		Slot slot = dequeueFirst();
+		slot.pending = false;
+		pending--;
+	}
+
+	/**
+	 * Move the update returned by {@link #peek()} to the tail of the queue, regardless of the
+	 * retry time.
+	 */
+	@Override
+	public void skip(final long retryTime) {
+		skip();
+	}
+
+	/**
+	 * Move the update returned by {@link #peek()} to the tail of the queue.
+	 */
+	public void skip() {
+		if (peek() == null)
+			return;
+		enqueueLast(dequeueFirst());
+	}
+
+	/**
+	 * Drop the slot of a symbol with nothing pending. A slot still queued after a discard is only
+	 * dropped once the queue has moved past it.
+	 */
+	@Override
+	public boolean evict(final String symbol) {
+		Slot slot = slots.get(symbol);
+		if (slot == null)
+			return true;
+		if (slot.pending || slot.queued)
+			return false;
+		slots.remove(symbol);
+		return true;
+	}
+
+	/**
+	 * @return the pending update of the symbol, owned by the buffer, or null
+	 */
+	@Override
+	public MarketData getPending(final String symbol) {
+		Slot slot = slots.get(symbol);
+		return slot == null || !slot.pending ? null : slot.data;
+	}
+
+	@Override
+	public int size() {
+		return pending;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return pending == 0;
+	}
+
+	private void enqueueLast(final Slot slot) {
+		slot.queued = true;
+		slot.next = null;
+		if (tail == null)
+			head = slot;
+		else
+			tail.next = slot;
+		tail = slot;
+	}
+
+	private Slot dequeueFirst() {
+		Slot slot = head;
+		head = slot.next;
+		if (head == null)
+			tail = null;
+		slot.next = null;
+		slot.queued = false;
+		return slot;
+	}
+
+	private static final class Slot {
+		private final MarketData data = new MarketData();
+		private boolean pending;
+		private Slot next;
+		private boolean queued;
+	}
+}
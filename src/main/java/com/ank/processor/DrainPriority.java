@@ -0,0 +1,44 @@
+package com.ank.processor;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Weights used to rank throttled symbols when draining.
+ *
+ * A symbol is ranked by how long ago it was last published. A price move since that publish
+ * counts as millisPerBasisPoint of extra staleness per basis point, and a symbol may carry a
+ * fixed bonus of extra staleness, so important or fast moving symbols are published first
+ * without starving the rest.
+ */
+public class DrainPriority {
+	private final double millisPerBasisPoint;
+	private final Map<String, Long> symbolBonusMillis;
+
+	public DrainPriority(final double millisPerBasisPoint, final Map<String, Long> symbolBonusMillis) {
+		if (millisPerBasisPoint < 0 || Double.isNaN(millisPerBasisPoint))
+			throw new IllegalArgumentException("millisPerBasisPoint must not be negative");
+		this.millisPerBasisPoint = millisPerBasisPoint;
+		this.symbolBonusMillis = Collections.unmodifiableMap(new HashMap<>(symbolBonusMillis));
+	}
+
+	/**
+	 * @return priority by staleness alone, i.e. least recently published first
+	 */
+	public static DrainPriority staleness() {
+		return new DrainPriority(0, Collections.emptyMap());
+	}
+
+	public double getMillisPerBasisPoint() {
+		return millisPerBasisPoint;
+	}
+
+	/**
+	 * @return extra staleness credited to the symbol, 0 by default
+	 */
+	public long getBonusMillis(final String symbol) {
+		Long bonus = symbolBonusMillis.get(symbol);
+		return bonus == null ? 0 : bonus;
+	}
+}
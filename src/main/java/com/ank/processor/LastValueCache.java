@@ -0,0 +1,142 @@
+package com.ank.processor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+
+import com.ank.model.MarketData;
+
+/**
+ * Latest published market data per symbol, for consumers that join late.
+ *
+ * Each symbol's prices sit behind a sequence lock: a writer makes the sequence odd with a CAS,
+ * which also keeps concurrent writers of the symbol apart, stores the fields and makes it even
+ * again, all with ordered stores. Readers never block or write; they retry if the sequence was
+ * odd or changed while they copied the fields, so a snapshot never mixes two publishes. Reading
+ * does not go through any rate limiter, so bootstrapping a new subscriber costs none of the
+ * publish budget.
+ *
+ * Entries outlive the idle expiry of the processor's symbol state: a quiet symbol still has a last
+ * value. They are only dropped by {@link #remove(String)}.
+ */
+public class LastValueCache {
+	// layout of the longs of a symbol
+	private static final int SEQUENCE = 0;
+	private static final int BID = 1;
+	private static final int ASK = 2;
+	private static final int LAST = 3;
+	private static final int PRICE_SCALE = 4;
+	private static final int UPDATE_TIME = 5;
+	private static final int FIELD_COUNT = 6;
+
+	private final ConcurrentHashMap<String, AtomicLongArray> entries = new ConcurrentHashMap<>();
+
+	/**
+	 * Record a publish. Data older than the cached value of its symbol is ignored.
+	 */
+	public void update(final MarketData data) {
+		AtomicLongArray entry = entries.get(data.getSymbol());
+		if (entry == null)
+			entry = entries.computeIfAbsent(data.getSymbol(), symbol -> newEntry());
+		long sequence;
+		do {
+			sequence = entry.get(SEQUENCE);
+		} while ((sequence & 1) != 0 || !entry.compareAndSet(SEQUENCE, sequence, sequence + 1));
+		if (entry.get(UPDATE_TIME) > data.getUpdateTime()) {
+			// nothing was written, readers of the old value stay valid
+			entry.lazySet(SEQUENCE, sequence);
+			return;
+		}
+		entry.lazySet(BID, data.getBidMantissa());
+		entry.lazySet(ASK, data.getAskMantissa());
+		entry.lazySet(LAST, data.getLastMantissa());
+		entry.lazySet(PRICE_SCALE, data.getPriceScale());
+		entry.lazySet(UPDATE_TIME, data.getUpdateTime());
+		entry.lazySet(SEQUENCE, sequence + 2);
+	}
+
+	/**
+	 * Copy the latest value of the symbol into target.
+	 *
+	 * @return false if the symbol has no published value
+	 */
+	public boolean read(final String symbol, final MarketData target) {
+		AtomicLongArray entry = entries.get(symbol);
+		return entry != null && read(symbol, entry, target);
+	}
+
+	/**
+	 * @return a copy of the latest value of the symbol, or null
+	 */
+	public MarketData get(final String symbol) {
+		MarketData data = new MarketData();
+		return read(symbol, data) ? data : null;
+	}
+
+	/**
+	 * Pass the latest value of every symbol to the consumer. The same instance is reused for each
+	 * symbol, the consumer copies what it keeps.
+	 *
+	 * @return number of symbols passed
+	 */
+	public int forEach(final Consumer<MarketData> consumer) {
+		MarketData data = new MarketData();
+		int count = 0;
+		for (Map.Entry<String, AtomicLongArray> entry : entries.entrySet()) {
+			if (read(entry.getKey(), entry.getValue(), data)) {
+				consumer.accept(data);
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * @return a copy of the latest value of every symbol, e.g. to bootstrap a new subscriber
+	 */
+	public List<MarketData> snapshot() {
+		List<MarketData> snapshot = new ArrayList<>(entries.size());
+		forEach(data -> snapshot.add(new MarketData(data)));
+		return snapshot;
+	}
+
+	/**
+	 * Forget the symbol, e.g. once it stopped trading.
+	 */
+	public void remove(final String symbol) {
+		entries.remove(symbol);
+	}
+
+	public int size() {
+		return entries.size();
+	}
+
+	private static boolean read(final String symbol, final AtomicLongArray entry, final MarketData target) {
+		for (;;) {
+			long sequence = entry.get(SEQUENCE);
+			if ((sequence & 1) != 0)
+				continue;
+			long bid = entry.get(BID);
+			long ask = entry.get(ASK);
+			long last = entry.get(LAST);
+			long priceScale = entry.get(PRICE_SCALE);
+			long updateTime = entry.get(UPDATE_TIME);
+			if (entry.get(SEQUENCE) != sequence)
+				continue;
+			// created but not written yet
+			if (sequence == 0)
+				return false;
+			target.set(symbol, bid, ask, last, (int) priceScale, updateTime);
+			return true;
+		}
+	}
+
+	private static AtomicLongArray newEntry() {
+		AtomicLongArray entry = new AtomicLongArray(FIELD_COUNT);
+		entry.set(UPDATE_TIME, Long.MIN_VALUE);
+		return entry;
+	}
+}
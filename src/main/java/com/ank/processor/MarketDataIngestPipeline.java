@@ -0,0 +1,207 @@
+package com.ank.processor;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.ank.model.MarketData;
+import com.ank.util.IWaitStrategy;
+import com.ank.util.PaddedAtomicLong;
+
+/**
+ * Single-producer ingest ring in front of a {@link MarketDataProcessor}.
+ *
+ * The feed thread only claims a preallocated slot and copies the tick into it. A dedicated
+ * consumer thread runs throttling and publishing, so a slow publish no longer stalls the feed
+ * handler. When the ring is full the producer backs off with the wait strategy; how often and
+ * how long it had to wait is exposed as back-pressure metrics. A full ring with no consumer
+ * thread running, before start, after close or after the consumer died, cannot drain, so the tick
+ * is dropped and counted instead.
+ */
+public class MarketDataIngestPipeline implements AutoCloseable {
+	private static final Logger LOG = LoggerFactory.getLogger(MarketDataIngestPipeline.class);
+
+	private final MarketDataProcessor processor;
+	private final IWaitStrategy waitStrategy;
+	private final MarketData[] entries;
+	private final int mask;
+
+	// last sequence published by the producer
+	private final PaddedAtomicLong cursor = new PaddedAtomicLong(-1);
+	// last sequence processed by the consumer
+	private final PaddedAtomicLong consumerSequence = new PaddedAtomicLong(-1);
+
+	// producer-owned
+	private long producerSequence = -1;
+	private long cachedConsumerSequence = -1;
+
+	// back-pressure metrics, written by the producer only
+	private volatile long producerWaitCount;
+	private volatile long producerWaitNanos;
+	private volatile long maxQueueDepth;
+	private volatile long droppedCount;
+
+	private volatile boolean running;
+	private volatile Thread consumerThread;
+
+	public MarketDataIngestPipeline(final MarketDataProcessor processor, final int bufferSize,
+			final IWaitStrategy waitStrategy) {
+		if (bufferSize <= 0 || Integer.bitCount(bufferSize) != 1)
+			throw new IllegalArgumentException("bufferSize must be a power of 2");
+		this.processor = processor;
+		this.waitStrategy = waitStrategy;
+		this.entries = new MarketData[bufferSize];
+		this.mask = bufferSize - 1;
+		for (int i = 0; i < bufferSize; i++)
+			entries[i] = new MarketData();
+	}
+
+	public synchronized void start() {
+		if (running)
+			return;
+		running = true;
+		Thread consumer = new Thread(this::consume, "market-data-consumer");
+		consumer.setDaemon(true);
+		consumer.start();
+		// visible to the producer only once alive, so it is never taken for a stopped consumer
+		consumerThread = consumer;
+	}
+
+	/**
+	 * Stop the consumer after it has processed everything already published.
+	 */
+	@Override
+	public synchronized void close() throws InterruptedException {
+		if (!running)
+			return;
+		running = false;
+		consumerThread.join();
+	}
+
+	/**
+	 * Copy the tick into the ring. Must be called from a single producer thread; blocks while the
+	 * ring is full and the consumer is running.
+	 */
+	public void onMessage(final MarketData data) {
+		long next = producerSequence + 1;
+		long wrapPoint = next - entries.length;
+		if (cachedConsumerSequence < wrapPoint) {
+			cachedConsumerSequence = consumerSequence.get();
+			if (cachedConsumerSequence < wrapPoint && !awaitCapacity(wrapPoint)) {
+				drop();
+				return;
+			}
+		}
+
+		entries[(int) next & mask].copyFrom(data);
+		producerSequence = next;
+		cursor.lazySet(next);
+
+		long depth = next - consumerSequence.get();
+		if (depth > maxQueueDepth)
+			maxQueueDepth = depth;
+	}
+
+	/**
+	 * @return number of ticks published but not yet processed
+	 */
+	public long getQueueDepth() {
+		return cursor.get() - consumerSequence.get();
+	}
+
+	public long getMaxQueueDepth() {
+		return maxQueueDepth;
+	}
+
+	/**
+	 * @return number of times the producer found the ring full
+	 */
+	public long getProducerWaitCount() {
+		return producerWaitCount;
+	}
+
+	/**
+	 * @return total time the producer spent waiting for the consumer
+	 */
+	public long getProducerWaitNanos() {
+		return producerWaitNanos;
+	}
+
+	/**
+	 * @return number of ticks dropped because the ring was full and no consumer was running
+	 */
+	public long getDroppedCount() {
+		return droppedCount;
+	}
+
+	public long getProcessedCount() {
+		return consumerSequence.get() + 1;
+	}
+
+	public int getBufferSize() {
+		return entries.length;
+	}
+
+	/**
+	 * @return false if the consumer is not running, so the ring will not drain
+	 */
+	private boolean awaitCapacity(final long wrapPoint) {
+		long start = System.nanoTime();
+		int counter = 0;
+		boolean drained = true;
+		while ((cachedConsumerSequence = consumerSequence.get()) < wrapPoint) {
+			Thread consumer = consumerThread;
+			if (consumer == null || !consumer.isAlive()) {
+				// the consumer may have made room just before it stopped
+				drained = (cachedConsumerSequence = consumerSequence.get()) >= wrapPoint;
+				break;
+			}
+			waitStrategy.idle(counter++);
+		}
+		producerWaitCount++;
+		producerWaitNanos += System.nanoTime() - start;
+		return drained;
+	}
+
+	private void drop() {
+		if (droppedCount == 0)
+			LOG.warn("Ingest ring is full and its consumer is not running, dropping market data");
+		droppedCount++;
+	}
+
+	private void consume() {
+		long next = consumerSequence.get() + 1;
+		int counter = 0;
+		while (true) {
+			long available = cursor.get();
+			if (available < next) {
+				if (!running) {
+					// re-read, the producer may have published just before close
+					if (cursor.get() < next)
+						return;
+					continue;
+				}
+				if (processor.getPendingCount() > 0)
+					drainDue();
+				waitStrategy.idle(counter++);
+				continue;
+			}
+			counter = 0;
+			for (; next <= available; next++) {
+				try {
+					processor.onMessage(entries[(int) next & mask]);
+				} catch (RuntimeException e) {
+					LOG.error("Failed to process market data", e);
+				}
+				consumerSequence.lazySet(next);
+			}
+		}
+	}
+
+	private void drainDue() {
+		try {
+			processor.drainDue();
+		} catch (RuntimeException e) {
+			LOG.error("Failed to drain pending market data", e);
+		}
+	}
+}
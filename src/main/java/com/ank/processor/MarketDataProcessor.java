@@ -1,15 +1,30 @@
 package com.ank.processor;
 
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.ank.journal.MarketDataJournal;
+import com.ank.journal.ThrottleCheckpoint;
+import com.ank.metrics.ThrottleMetrics;
 import com.ank.model.MarketData;
 import com.ank.model.SymbolLatestUpdateHistory;
-import com.ank.util.MyTimer;
-import com.ank.util.SlidingWindowRateLimiter;
+import com.ank.policy.PolicyRateLimiter;
+import com.ank.policy.ThrottlePolicy;
+import com.ank.policy.ThrottlePolicyReloader;
+import com.ank.util.IMarketDataLimiter;
+import com.ank.util.IPendingUpdates;
+import com.ank.util.IPublishFeedback;
+import com.ank.util.IRestorableLimiter;
+import com.ank.util.ITimer;
+import com.ank.util.TimingWheel;
 
 /**
  -> Implementation of Market Data Processor with the following requirements:
@@ -25,49 +40,545 @@ import com.ank.util.SlidingWindowRateLimiter;
 public class MarketDataProcessor {
 	private static final Logger LOG = LoggerFactory.getLogger(MarketDataProcessor.class);
 
-	private final Map<String, SymbolLatestUpdateHistory> symbolLastUpdateMap;
+	// classpath resource holding the throttle policy of the default constructor
+	private static final String POLICY_RESOURCE = "application.properties";
 
-	private final SlidingWindowRateLimiter windowRateLimiter;
+	// upper bound of pending symbols examined per drain so that a tick stays O(1)
+	private static final int MAX_DRAIN_PER_CALL = 16;
 
-	private final MyTimer myTimer;
+	// kinds of symbol timer, the timer id is the symbol id shifted left by one plus the kind
+	private static final int REOPEN_TIMER = 0;
+	private static final int IDLE_TIMER = 1;
 
-	public MarketDataProcessor(final MyTimer myTimer) {
-		this.windowRateLimiter = new SlidingWindowRateLimiter(myTimer);
+	private final SymbolStateTable symbolStates;
+
+	private final IPendingUpdates pendingUpdates;
+
+	// null when every newer tick is worth publishing
+	private final SignificantChangeFilter changeFilter;
+
+	private final IMarketDataLimiter windowRateLimiter;
+
+	// the limiter, if it adapts to publish latency and failures
+	private final IPublishFeedback publishFeedback;
+
+	private final ITimer myTimer;
+
+	private final ThrottleMetrics metrics;
+
+	// attached while investigating, null otherwise
+	private volatile MarketDataJournal journal;
+
+	// latest published data per symbol for late joiners
+	private final LastValueCache lastValues = new LastValueCache();
+
+	// sends publishes off the calling thread when set
+	private volatile AsyncMarketDataPublisher publisher;
+
+	// symbol state of a previous run, restored on the first tick of each symbol
+	private volatile ThrottleCheckpoint restoredCheckpoint;
+	// one checkpoint written at a time
+	private final Object checkpointLock = new Object();
+
+	// window reopen and idle symbol timers, guarded by pendingUpdates
+	private final TimingWheel symbolTimers;
+	private volatile long symbolTimersTime;
+	// set when a drain may publish something: a window reopened or a drain stopped early
+	private final AtomicBoolean drainRequested = new AtomicBoolean();
+	// time the rate limiter has a permit again after refusing a drain, Long.MAX_VALUE if it did not
+	private final AtomicLong limiterRetryTime = new AtomicLong(Long.MAX_VALUE);
+	// 0 keeps symbols forever
+	private final AtomicLong idleExpiryMillis = new AtomicLong();
+
+	/**
+	 * Apply the throttle policy of application.properties on the classpath, or the defaults if
+	 * there is none.
+	 */
+	public MarketDataProcessor(final ITimer myTimer) {
+		this(myTimer, new PolicyRateLimiter(myTimer, loadPolicy()));
+	}
+
+	public MarketDataProcessor(final ITimer myTimer, final IMarketDataLimiter windowRateLimiter) {
+		this(myTimer, windowRateLimiter, null, null);
+	}
+
+	/**
+	 * Drain throttled symbols in order of the given priority instead of first in, first out.
+	 */
+	public MarketDataProcessor(final ITimer myTimer, final IMarketDataLimiter windowRateLimiter,
+			final DrainPriority drainPriority) {
+		this(myTimer, windowRateLimiter, drainPriority, null);
+	}
+
+	/**
+	 * @param drainPriority order in which throttled symbols are drained, null for first in, first out
+	 * @param changeFilter  drops ticks that are not a material move before they reach the rate
+	 *                      limiter, null to consider every newer tick
+	 */
+	public MarketDataProcessor(final ITimer myTimer, final IMarketDataLimiter windowRateLimiter,
+			final DrainPriority drainPriority, final SignificantChangeFilter changeFilter) {
+		this.windowRateLimiter = windowRateLimiter;
+		this.publishFeedback = windowRateLimiter instanceof IPublishFeedback ? (IPublishFeedback) windowRateLimiter
+				: null;
 		this.myTimer = myTimer;
-		this.symbolLastUpdateMap = new ConcurrentHashMap<>();
+		this.changeFilter = changeFilter;
+		this.metrics = new ThrottleMetrics(this::getPendingCount);
+		this.symbolStates = new SymbolStateTable();
+		this.symbolTimers = new TimingWheel(1, myTimer.getCurrentTime(), this::onSymbolTimer);
+		this.symbolTimersTime = myTimer.getCurrentTime();
+		this.pendingUpdates = drainPriority == null ? new ConflationBuffer()
+				: new PriorityConflationBuffer(myTimer, symbolStates, drainPriority);
 	}
 
+	/**
+	 * Register a symbol up front so that its state is allocated before the first tick.
+	 *
+	 * @return the dense id of the symbol
+	 */
+	public int subscribe(final String symbol) {
+		return symbolStates.intern(symbol);
+	}
 
+	/**
+	 * Process a tick. The processor keeps no reference to the instance once this returns, so
+	 * pooled ticks may be reused by the caller.
+	 */
 	public void onMessage(MarketData data) {
+		metrics.onTickReceived();
+		long currentTime = myTimer.getCurrentTime();
+		MarketDataJournal currentJournal = journal;
+		if (currentJournal != null)
+			currentJournal.appendTick(currentTime, data);
+		advanceSymbolTimers(currentTime);
+		int symbolId = symbolStates.intern(data.getSymbol());
+		if (symbolStates.touch(symbolId, currentTime)) {
+			ThrottleCheckpoint checkpoint = restoredCheckpoint;
+			if (checkpoint != null)
+				checkpoint.restore(data.getSymbol(), symbolStates, symbolId);
+			long idleExpiry = idleExpiryMillis.get();
+			if (idleExpiry > 0)
+				scheduleSymbolTimer(symbolId, IDLE_TIMER, currentTime + idleExpiry);
+		}
+		if (!pendingUpdates.isEmpty())
+			drain();
+
+		if (changeFilter != null && !isSignificant(data)) {
+			metrics.onSuppressed();
+			journal(MarketDataJournal.SUPPRESSED, data);
+			return;
+		}
 
-		if (windowRateLimiter.isNewDataAllowed()) {
+		// the global permit is only taken for a tick the symbol checks would publish, so rejected
+		// ticks never count against the window
+		long symbolWindow = windowRateLimiter.getSymbolWindowMillis(data.getSymbol());
+		if (symbolStates.isNewer(symbolId, data.getUpdateTime())
+				&& symbolStates.isWindowOpen(symbolId, currentTime, symbolWindow)) {
+			if (!windowRateLimiter.isNewDataAllowed(data.getSymbol())) {
+				metrics.onRejectedGlobalLimit();
+				journal(MarketDataJournal.REJECT_GLOBAL_LIMIT, data);
+				conflate(data, currentTime);
+				return;
+			}
 			if (isSymbolAllowed(data)) {
-				LOG.debug("Allowed {}", System.currentTimeMillis());
-				publishAggregatedMarketData(data);
+				publish(data, currentTime);
+				return;
 			}
+			// raced with a drain or another thread publishing the symbol
 		}
-		// TODO handle rejected cases..
+		if (!symbolStates.isNewer(symbolId, data.getUpdateTime())) {
+			metrics.onRejectedStale();
+			journal(MarketDataJournal.REJECT_STALE, data);
+			return;
+		}
+		metrics.onRejectedSymbolWindow();
+		journal(MarketDataJournal.REJECT_SYMBOL_WINDOW, data);
+		conflate(data, currentTime);
 	}
 
 	/**
 	  this method allowed only latest market data and check if symbol has been processed within [T:T-1]
 	 */
 	public boolean isSymbolAllowed(final MarketData data) {
-		synchronized (symbolLastUpdateMap) {
-			SymbolLatestUpdateHistory history = symbolLastUpdateMap.get(data.getSymbol());
-			if (history == null || (myTimer.getCurrentTime() - history.getSystemProcessTime()  > 1000
-					&& data.getUpdateTime() > history.getMarketUpdateTime())) {
-				symbolLastUpdateMap.put(data.getSymbol(),
-						new SymbolLatestUpdateHistory(data.getSymbol(), data.getUpdateTime(), myTimer.getCurrentTime()));
-				return true;
+		int symbolId = symbolStates.intern(data.getSymbol());
+		if (!symbolStates.tryAcquire(symbolId, data.getUpdateTime(), myTimer.getCurrentTime(),
+				windowRateLimiter.getSymbolWindowMillis(data.getSymbol())))
+			return false;
+		recordPublishedPrices(symbolId, data);
+		return true;
+	}
+
+	/**
+	 * Publish throttled symbols whose latest data is now allowed by both the global and the
+	 * per-symbol window. Examines at most a small fixed number of pending symbols per call.
+	 *
+	 * @return number of pending updates published
+	 */
+	public int drainPending() {
+		long currentTime = myTimer.getCurrentTime();
+		int published = drain();
+		// journaled even if nothing was published, a drain reorders the pending updates it skips
+		MarketDataJournal currentJournal = journal;
+		if (currentJournal != null)
+			currentJournal.appendDrain(currentTime);
+		return published;
+	}
+
+	/**
+	 * Drain only if a drain may publish something: a symbol window reopened, or the rate limiter
+	 * has a permit again after refusing, since the last drain. Cheap enough to call from an idle
+	 * loop.
+	 *
+	 * @return number of pending updates published
+	 */
+	public int drainDue() {
+		if (pendingUpdates.isEmpty())
+			return 0;
+		long currentTime = myTimer.getCurrentTime();
+		advanceSymbolTimers(currentTime);
+		return drainRequested.get() || currentTime >= limiterRetryTime.get() ? drainPending() : 0;
+	}
+
+	private int drain() {
+		drainRequested.set(false);
+		limiterRetryTime.set(Long.MAX_VALUE);
+		int published = 0;
+		for (int i = 0; i < MAX_DRAIN_PER_CALL; i++) {
+			MarketData data;
+			long receivedTime;
+			synchronized (pendingUpdates) {
+				MarketData pending = pendingUpdates.peek();
+				if (pending == null)
+					break;
+				int symbolId = symbolStates.intern(pending.getSymbol());
+				if (!symbolStates.isNewer(symbolId, pending.getUpdateTime())) {
+					pendingUpdates.remove();
+					continue;
+				}
+				long currentTime = myTimer.getCurrentTime();
+				long symbolWindow = windowRateLimiter.getSymbolWindowMillis(pending.getSymbol());
+				if (!symbolStates.isWindowOpen(symbolId, currentTime, symbolWindow)) {
+					skipUntilReopen(symbolId, symbolWindow);
+					continue;
+				}
+				if (!windowRateLimiter.isNewDataAllowed(pending.getSymbol())) {
+					limiterRetryTime.set(windowRateLimiter.getNextPermitTime(currentTime));
+					break;
+				}
+				if (!symbolStates.tryAcquire(symbolId, pending.getUpdateTime(), currentTime, symbolWindow)) {
+					// raced with onMessage on the same symbol
+					skipUntilReopen(symbolId, symbolWindow);
+					continue;
+				}
+				recordPublishedPrices(symbolId, pending);
+				// the pending instance is owned by the buffer, hand out a copy
+				data = new MarketData(pending);
+				receivedTime = symbolStates.getPendingReceivedTime(symbolId);
+				pendingUpdates.remove();
 			}
+			publish(data, receivedTime);
+			published++;
+		}
+		if (published == MAX_DRAIN_PER_CALL)
+			drainRequested.set(true);
+		return published;
+	}
 
-			return false;
+	/**
+	 * Periodically drain pending updates so the latest data of a throttled symbol is published
+	 * once its windows reopen, even if no further tick arrives. Symbol windows reopening are
+	 * timer events, so a period in which nothing reopened costs no walk over pending symbols.
+	 */
+	public ScheduledFuture<?> scheduleDrain(final ScheduledExecutorService executor, final long periodMillis) {
+		return executor.scheduleAtFixedRate(() -> {
+			try {
+				while (drainDue() == MAX_DRAIN_PER_CALL) {
+					// keep going while there may be more ready symbols
+				}
+			} catch (RuntimeException e) {
+				LOG.error("Failed to drain pending market data", e);
+			}
+		}, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Save the rate limiter window and the last publish of every symbol to a memory-mapped file,
+	 * so a restart can continue throttling where this run stopped. Symbols restored from a
+	 * checkpoint but not seen since are carried over, unless idle expiry would have forgotten
+	 * them.
+	 *
+	 * @return number of symbols written
+	 */
+	public int checkpoint(final Path path) throws IOException {
+		long[] acceptTimes = windowRateLimiter instanceof IRestorableLimiter
+				? ((IRestorableLimiter) windowRateLimiter).getAcceptTimes()
+				: new long[0];
+		long currentTime = myTimer.getCurrentTime();
+		long idleExpiry = idleExpiryMillis.get();
+		synchronized (checkpointLock) {
+			return ThrottleCheckpoint.write(path, currentTime, acceptTimes, symbolStates, restoredCheckpoint,
+					idleExpiry > 0 ? currentTime - idleExpiry : Long.MIN_VALUE);
 		}
 	}
 
+	/**
+	 * Write a checkpoint every period. Failures are logged and retried at the next period.
+	 */
+	public ScheduledFuture<?> scheduleCheckpoint(final ScheduledExecutorService executor, final Path path,
+			final long periodMillis) {
+		return executor.scheduleAtFixedRate(() -> {
+			try {
+				checkpoint(path);
+			} catch (IOException | RuntimeException e) {
+				LOG.error("Failed to checkpoint throttle state to {}", path, e);
+			}
+		}, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Continue from a checkpoint of a previous run, before the first tick. The rate limiter window
+	 * is restored now if the limiter supports it; a symbol's last publish is read from the mapped
+	 * file on its first tick, so restoring takes the same time for any number of symbols. Times
+	 * only carry over with a timer on the wall clock, such as MyTimer.
+	 *
+	 * @return number of symbols in the checkpoint
+	 */
+	public int restore(final Path path) throws IOException {
+		ThrottleCheckpoint checkpoint = ThrottleCheckpoint.open(path);
+		if (windowRateLimiter instanceof IRestorableLimiter)
+			((IRestorableLimiter) windowRateLimiter).restoreAcceptTimes(checkpoint.getAcceptTimes());
+		restoredCheckpoint = checkpoint;
+		LOG.info("Restored throttle state of {} symbols from {}", checkpoint.getSymbolCount(), path);
+		return checkpoint.getSymbolCount();
+	}
+
+	public int getPendingCount() {
+		return pendingUpdates.size();
+	}
+
+	/**
+	 * Journal every tick and throttle decision from now on, or stop journaling if null. The
+	 * caller owns the journal and closes it after detaching it.
+	 */
+	public void setJournal(final MarketDataJournal journal) {
+		this.journal = journal;
+	}
+
+	/**
+	 * Hand accepted updates to the publisher instead of calling publishAggregatedMarketData on the
+	 * calling thread, or publish synchronously again if null. The publisher is usually created
+	 * with this processor's publishAggregatedMarketData as its sink and a send limiter of the same
+	 * limits, so the sink is paced too; the caller closes it after detaching it. A rate limiter
+	 * that adapts to publish latency and failures is told how the publisher's sends went.
+	 */
+	public void setPublisher(final AsyncMarketDataPublisher publisher) {
+		if (publisher != null && publishFeedback != null)
+			publisher.setFeedback(publishFeedback);
+		this.publisher = publisher;
+	}
+
+	/**
+	 * Forget symbols without a tick for the given time, so the symbol state does not grow with
+	 * symbols that stopped trading; 0 keeps symbols forever. A symbol is only forgotten when it has
+	 * nothing pending. Its last value stays in the {@link LastValueCache} for late joiners until
+	 * removed from there, e.g. once the symbol is delisted. Requires onMessage to be called from a
+	 * single thread, as with {@link MarketDataIngestPipeline}.
+	 */
+	public void setIdleExpiryMillis(final long idleExpiryMillis) {
+		if (idleExpiryMillis < 0)
+			throw new IllegalArgumentException("idleExpiryMillis must not be negative");
+		this.idleExpiryMillis.set(idleExpiryMillis);
+	}
+
+	/**
+	 * @return number of symbols currently tracked
+	 */
+	public int getSymbolCount() {
+		return symbolStates.size();
+	}
+
+	public ThrottleMetrics getMetrics() {
+		return metrics;
+	}
+
+	public IMarketDataLimiter getRateLimiter() {
+		return windowRateLimiter;
+	}
+
+	/**
+	 * @return latest published data per symbol; reading it does not take any publish budget
+	 */
+	public LastValueCache getLastValueCache() {
+		return lastValues;
+	}
+
+	/**
+	 * @return number of updates of the symbol that were throttled and kept for a later publish
+	 */
+	public long getConflatedCount(final String symbol) {
+		int symbolId = symbolStates.idOf(symbol);
+		return symbolId == SymbolStateTable.UNKNOWN_SYMBOL ? 0 : symbolStates.getConflatedCount(symbolId);
+	}
+
+	/**
+	 * @return last published market update time and publish time of the symbol, or null if it
+	 *         was never published
+	 */
+	public SymbolLatestUpdateHistory getSymbolHistory(final String symbol) {
+		int symbolId = symbolStates.idOf(symbol);
+		if (symbolId == SymbolStateTable.UNKNOWN_SYMBOL
+				|| symbolStates.getSystemProcessTime(symbolId) == SymbolStateTable.NONE)
+			return null;
+		return new SymbolLatestUpdateHistory(symbol, symbolStates.getMarketUpdateTime(symbolId),
+				symbolStates.getSystemProcessTime(symbolId));
+	}
+
 	// Publish aggregated and throttled market data
 	public void publishAggregatedMarketData(MarketData data) {
 		//TODO
 	}
+
+	/**
+	 * A tick that is close enough to the published prices is dropped, together with any older
+	 * pending update of its symbol, which would otherwise publish prices that are no longer
+	 * current.
+	 */
+	private boolean isSignificant(final MarketData data) {
+		int symbolId = symbolStates.intern(data.getSymbol());
+		if (changeFilter.isSignificant(symbolStates, symbolId, data, myTimer.getCurrentTime()))
+			return true;
+		if (!pendingUpdates.isEmpty()) {
+			synchronized (pendingUpdates) {
+				pendingUpdates.discard(data.getSymbol(), data.getUpdateTime());
+			}
+		}
+		return false;
+	}
+
+	private long windowReopenTime(final int symbolId, final long symbolWindow) {
+		return symbolStates.getSystemProcessTime(symbolId) + symbolWindow + 1;
+	}
+
+	// under the pendingUpdates lock
+	private void skipUntilReopen(final int symbolId, final long symbolWindow) {
+		long reopenTime = windowReopenTime(symbolId, symbolWindow);
+		pendingUpdates.skip(reopenTime);
+		symbolTimers.schedule(symbolId << 1 | REOPEN_TIMER, reopenTime);
+	}
+
+	private void scheduleSymbolTimer(final int symbolId, final int kind, final long time) {
+		synchronized (pendingUpdates) {
+			symbolTimers.schedule(symbolId << 1 | kind, time);
+		}
+	}
+
+	/**
+	 * Fire the symbol timers due by now, at most once per millisecond.
+	 */
+	private void advanceSymbolTimers(final long currentTime) {
+		if (currentTime <= symbolTimersTime)
+			return;
+		synchronized (pendingUpdates) {
+			if (currentTime > symbolTimersTime) {
+				symbolTimers.advance(currentTime);
+				symbolTimersTime = currentTime;
+			}
+		}
+	}
+
+	// called by the wheel under the pendingUpdates lock
+	private void onSymbolTimer(final int timerId, final long currentTime) {
+		int symbolId = timerId >>> 1;
+		if ((timerId & 1) == REOPEN_TIMER) {
+			drainRequested.set(true);
+			return;
+		}
+		long idleExpiry = idleExpiryMillis.get();
+		long lastSeen = symbolStates.getLastSeenTime(symbolId);
+		if (idleExpiry <= 0 || lastSeen == SymbolStateTable.NONE)
+			return;
+		if (currentTime - lastSeen < idleExpiry) {
+			symbolTimers.schedule(timerId, lastSeen + idleExpiry);
+			return;
+		}
+		String symbol = symbolStates.symbolOf(symbolId);
+		if (symbol == null)
+			return;
+		if (!pendingUpdates.evict(symbol)) {
+			symbolTimers.schedule(timerId, currentTime + idleExpiry);
+			return;
+		}
+		symbolTimers.cancel(symbolId << 1 | REOPEN_TIMER);
+		symbolStates.release(symbolId);
+	}
+
+	private void recordPublishedPrices(final int symbolId, final MarketData data) {
+		symbolStates.setPublishedPrices(symbolId, data.getBidMantissa(), data.getAskMantissa(),
+				data.getLastMantissa(), data.getPriceScale());
+	}
+
+	// latency is measured from receipt, so neither feed delay nor feed clock skew is counted
+	private void publish(final MarketData data, final long receivedTime) {
+		metrics.onPublished(myTimer.getCurrentTime() - receivedTime);
+		journal(MarketDataJournal.PUBLISH, data);
+		lastValues.update(data);
+		AsyncMarketDataPublisher currentPublisher = publisher;
+		if (currentPublisher != null)
+			currentPublisher.publish(data);
+		else if (publishFeedback != null)
+			publishWithFeedback(data);
+		else
+			publishAggregatedMarketData(data);
+	}
+
+	private void publishWithFeedback(final MarketData data) {
+		long start = System.nanoTime();
+		try {
+			publishAggregatedMarketData(data);
+		} catch (RuntimeException e) {
+			publishFeedback.onPublishFailed(System.nanoTime() - start);
+			throw e;
+		}
+		publishFeedback.onPublishCompleted(System.nanoTime() - start);
+	}
+
+	private void journal(final byte type, final MarketData data) {
+		MarketDataJournal currentJournal = journal;
+		if (currentJournal != null)
+			currentJournal.appendDecision(type, myTimer.getCurrentTime(), data);
+	}
+
+	private void conflate(final MarketData data, final long receivedTime) {
+		int symbolId = symbolStates.intern(data.getSymbol());
+		if (!symbolStates.isNewer(symbolId, data.getUpdateTime()))
+			return;
+		boolean offered;
+		synchronized (pendingUpdates) {
+			offered = pendingUpdates.offer(data);
+			if (offered) {
+				symbolStates.setPendingReceivedTime(symbolId, receivedTime);
+				long currentTime = myTimer.getCurrentTime();
+				long symbolWindow = windowRateLimiter.getSymbolWindowMillis(data.getSymbol());
+				if (symbolStates.getSystemProcessTime(symbolId) != SymbolStateTable.NONE
+						&& !symbolStates.isWindowOpen(symbolId, currentTime, symbolWindow))
+					symbolTimers.schedule(symbolId << 1 | REOPEN_TIMER, windowReopenTime(symbolId, symbolWindow));
+				else
+					// refused by the rate limiter, retry once it has a permit
+					limiterRetryTime.accumulateAndGet(windowRateLimiter.getNextPermitTime(currentTime), Math::min);
+			}
+		}
+		if (offered) {
+			metrics.onConflated();
+			journal(MarketDataJournal.CONFLATED, data);
+			symbolStates.incrementConflatedCount(symbolId);
+		}
+	}
+
+	private static ThrottlePolicy loadPolicy() {
+		try {
+			return ThrottlePolicyReloader.loadResource(POLICY_RESOURCE);
+		} catch (IOException e) {
+			LOG.error("Failed to load throttle policy from {}, using the defaults", POLICY_RESOURCE, e);
+			return ThrottlePolicy.defaults();
+		}
+	}
 }
@@ -0,0 +1,173 @@
+package com.ank.processor;
+
+import java.util.Arrays;
+
+import com.ank.model.MarketData;
+import com.ank.util.IPendingUpdates;
+import com.ank.util.ITimer;
+import com.ank.util.IndexedLongHeap;
+
+/**
+ * Conflation buffer that hands out the most deserving pending symbol first.
+ *
+ * Symbols whose window is open wait in a max-heap ranked by {@link DrainPriority}: time since
+ * the last publish, plus credit for the price move since that publish and for the symbol's
+ * configured bonus. The rank does not depend on the current time, so it is only recomputed when
+ * a symbol's pending data changes. Skipped symbols park in a second heap ordered by the time
+ * their window reopens and are ranked again once it has. Every operation is O(log n) and slots
+ * are reused, so steady-state ticks do not allocate.
+ *
+ * Not thread safe, callers are expected to guard it with the processor lock.
+ */
+public class PriorityConflationBuffer implements IPendingUpdates {
+	// caps the price move credit so that a bad print cannot overflow the rank
+	private static final double MAX_MOVE_BASIS_POINTS = 1_000_000d;
+
+	private final ITimer timer;
+	private final SymbolStateTable symbolStates;
+	private final DrainPriority priority;
+
+	// ranked symbols whose window is open
+	private final IndexedLongHeap ready = new IndexedLongHeap();
+	// symbols waiting for their window, keyed by negated retry time
+	private final IndexedLongHeap waiting = new IndexedLongHeap();
+
+	private MarketData[] slots = new MarketData[16];
+	private long[] bonusMillis = new long[16];
+	// written under the caller's lock, may be read without it as a hint
+	private volatile int pending;
+
+	public PriorityConflationBuffer(final ITimer timer, final SymbolStateTable symbolStates,
+			final DrainPriority priority) {
+		this.timer = timer;
+		this.symbolStates = symbolStates;
+		this.priority = priority;
+	}
+
+	@Override
+	public boolean offer(final MarketData data) {
+		int id = symbolStates.intern(data.getSymbol());
+		MarketData slot = slotOf(id);
+		boolean waitingForWindow = waiting.contains(id);
+		if (waitingForWindow || ready.contains(id)) {
+			if (slot.getUpdateTime() >= data.getUpdateTime())
+				return false;
+		} else {
+			pending++;
+		}
+		slot.copyFrom(data);
+		if (!waitingForWindow)
+			ready.put(id, rank(id, slot));
+		return true;
+	}
+
+	@Override
+	public void discard(final String symbol, final long updateTime) {
+		int id = symbolStates.idOf(symbol);
+		if (id == SymbolStateTable.UNKNOWN_SYMBOL || id >= slots.length || slots[id] == null
+				|| slots[id].getUpdateTime() > updateTime)
+			return;
+		if (ready.remove(id) || waiting.remove(id))
+			pending--;
+	}
+
+	@Override
+	public MarketData peek() {
+		if (!waiting.isEmpty()) {
+			long currentTime = timer.getCurrentTime();
+			while (!waiting.isEmpty() && -waiting.peekKey() <= currentTime) {
+				int id = waiting.poll();
+				ready.put(id, rank(id, slots[id]));
+			}
+		}
+		int id = ready.peek();
+		return id < 0 ? null : slots[id];
+	}
+
+	@Override
+	public void remove() {
+		if (peek() != null && ready.poll() >= 0)
+			pending--;
+	}
+
+	@Override
+	public void skip(final long retryTime) {
+		if (peek() != null)
+			waiting.put(ready.poll(), -retryTime);
+	}
+
+	/**
+	 * Drop the slot of a symbol with nothing pending, so a new symbol taking over its id starts
+	 * afresh.
+	 */
+	@Override
+	public boolean evict(final String symbol) {
+		int id = symbolStates.idOf(symbol);
+		if (id == SymbolStateTable.UNKNOWN_SYMBOL || id >= slots.length)
+			return true;
+		if (ready.contains(id) || waiting.contains(id))
+			return false;
+		slots[id] = null;
+		return true;
+	}
+
+	@Override
+	public MarketData getPending(final String symbol) {
+		int id = symbolStates.idOf(symbol);
+		return id != SymbolStateTable.UNKNOWN_SYMBOL && (ready.contains(id) || waiting.contains(id)) ? slots[id] : null;
+	}
+
+	@Override
+	public int size() {
+		return pending;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return pending == 0;
+	}
+
+	/**
+	 * @return number of pending symbols waiting for their window to reopen
+	 */
+	public int getWaitingCount() {
+		return waiting.size();
+	}
+
+	/**
+	 * Rank of the symbol in units of milliseconds of staleness; larger ranks are drained first.
+	 */
+	long rank(final int id, final MarketData data) {
+		long lastPublish = symbolStates.getSystemProcessTime(id);
+		long rank = bonusMillis[id];
+		if (lastPublish == SymbolStateTable.NONE)
+			return rank;
+		return rank - lastPublish + (long) (priority.getMillisPerBasisPoint() * moveBasisPoints(id, data));
+	}
+
+	private double moveBasisPoints(final int id, final MarketData data) {
+		long publishedLast = symbolStates.getPublishedLast(id);
+		if (publishedLast == SymbolStateTable.NONE || publishedLast == 0)
+			return 0;
+		double ratio = (double) data.getLastMantissa() / publishedLast;
+		int scaleDifference = symbolStates.getPublishedPriceScale(id) - data.getPriceScale();
+		if (scaleDifference != 0)
+			ratio *= Math.pow(10, scaleDifference);
+		return Math.min(Math.abs(ratio - 1) * 10_000, MAX_MOVE_BASIS_POINTS);
+	}
+
+	private MarketData slotOf(final int id) {
+		if (id >= slots.length) {
+			int capacity = Math.max(id + 1, slots.length << 1);
+			slots = Arrays.copyOf(slots, capacity);
+			bonusMillis = Arrays.copyOf(bonusMillis, capacity);
+		}
+		MarketData slot = slots[id];
+		if (slot == null) {
+			slot = new MarketData();
+			slots[id] = slot;
+			bonusMillis[id] = priority.getBonusMillis(symbolStates.symbolOf(id));
+		}
+		return slot;
+	}
+}
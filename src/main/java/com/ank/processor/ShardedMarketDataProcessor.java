@@ -0,0 +1,124 @@
+package com.ank.processor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import com.ank.model.MarketData;
+import com.ank.util.IMarketDataLimiter;
+import com.ank.util.ITimer;
+import com.ank.util.IWaitStrategy;
+import com.ank.util.RingBufferRateLimiter;
+
+/**
+ * Market data processor partitioned by symbol over several worker threads.
+ *
+ * Each symbol always hashes to the same shard, and each shard owns a {@link MarketDataProcessor}
+ * with its own symbol state behind its own ingest ring, so shards share nothing on the per-tick
+ * path except the global limiter: every shard takes its permits one publish at a time from the
+ * same exact limiter, which must be thread safe, so the combined publish rate never exceeds the
+ * global limit and no shard holds permits another one could use. The default
+ * {@link RingBufferRateLimiter} admits with a single CAS.
+ *
+ * onMessage must be called from a single feed thread; the sink is called concurrently from the
+ * shard threads.
+ */
+public class ShardedMarketDataProcessor implements AutoCloseable {
+	private final IMarketDataLimiter globalRateLimiter;
+	private final Shard[] shards;
+	private final MarketDataIngestPipeline[] pipelines;
+
+	public ShardedMarketDataProcessor(final ITimer myTimer, final Consumer<MarketData> sink, final int shardCount,
+			final int bufferSize, final IWaitStrategy waitStrategy) {
+		this(myTimer, new RingBufferRateLimiter(myTimer), sink, shardCount, bufferSize, waitStrategy);
+	}
+
+	public ShardedMarketDataProcessor(final ITimer myTimer, final IMarketDataLimiter globalRateLimiter,
+			final Consumer<MarketData> sink, final int shardCount, final int bufferSize,
+			final IWaitStrategy waitStrategy) {
+		if (shardCount <= 0)
+			throw new IllegalArgumentException("shardCount must be positive");
+		this.globalRateLimiter = globalRateLimiter;
+		this.shards = new Shard[shardCount];
+		this.pipelines = new MarketDataIngestPipeline[shardCount];
+		for (int i = 0; i < shardCount; i++) {
+			shards[i] = new Shard(myTimer, globalRateLimiter, sink);
+			pipelines[i] = new MarketDataIngestPipeline(shards[i], bufferSize, waitStrategy);
+		}
+	}
+
+	public void start() {
+		for (MarketDataIngestPipeline pipeline : pipelines)
+			pipeline.start();
+	}
+
+	@Override
+	public void close() throws InterruptedException {
+		for (MarketDataIngestPipeline pipeline : pipelines)
+			pipeline.close();
+	}
+
+	public void onMessage(final MarketData data) {
+		pipelines[shardFor(data.getSymbol())].onMessage(data);
+	}
+
+	/**
+	 * Register a symbol with its shard up front.
+	 */
+	public void subscribe(final String symbol) {
+		shards[shardFor(symbol)].subscribe(symbol);
+	}
+
+	public int shardFor(final String symbol) {
+		int hash = symbol.hashCode();
+		hash ^= hash >>> 16;
+		return (hash & Integer.MAX_VALUE) % shards.length;
+	}
+
+	public int getShardCount() {
+		return shards.length;
+	}
+
+	public MarketDataProcessor getShard(final int shard) {
+		return shards[shard];
+	}
+
+	public MarketDataIngestPipeline getPipeline(final int shard) {
+		return pipelines[shard];
+	}
+
+	public IMarketDataLimiter getGlobalRateLimiter() {
+		return globalRateLimiter;
+	}
+
+	/**
+	 * @return latest published data of the symbol, or null
+	 */
+	public MarketData getLastValue(final String symbol) {
+		return shards[shardFor(symbol)].getLastValueCache().get(symbol);
+	}
+
+	/**
+	 * @return latest published data of every symbol across the shards
+	 */
+	public List<MarketData> snapshot() {
+		List<MarketData> snapshot = new ArrayList<>();
+		for (Shard shard : shards)
+			snapshot.addAll(shard.getLastValueCache().snapshot());
+		return snapshot;
+	}
+
+	private static final class Shard extends MarketDataProcessor {
+		private final Consumer<MarketData> sink;
+
+		private Shard(final ITimer myTimer, final IMarketDataLimiter rateLimiter, final Consumer<MarketData> sink) {
+			super(myTimer, rateLimiter);
+			this.sink = sink;
+		}
+
+		@Override
+		public void publishAggregatedMarketData(MarketData data) {
+			sink.accept(data);
+		}
+	}
+}
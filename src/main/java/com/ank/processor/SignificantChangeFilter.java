@@ -0,0 +1,91 @@
+package com.ank.processor;
+
+import com.ank.model.MarketData;
+
+/**
+ * Pre-throttle filter that lets a tick through only if it is materially different from what was
+ * last published for its symbol.
+ *
+ * A tick is significant if bid, ask or last moved by at least one of the configured thresholds
+ * against the last published prices: an absolute price move, a relative move in basis points,
+ * or one tick size. A threshold of 0 is disabled; with all of them disabled any price change is
+ * significant. A tick is also significant if its symbol was never published or was last
+ * published maxStalenessMillis or longer ago. The check is plain arithmetic on the mantissas,
+ * without allocation.
+ */
+public class SignificantChangeFilter {
+	// tolerance of the double comparisons, in fractions of the threshold
+	private static final double EPSILON = 1e-9;
+	private static final double[] POWERS_OF_TEN = new double[19];
+
+	static {
+		POWERS_OF_TEN[0] = 1;
+		for (int i = 1; i < POWERS_OF_TEN.length; i++)
+			POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+	}
+
+	private final double absoluteThreshold;
+	private final double relativeThreshold;
+	private final double tickSize;
+	private final long maxStalenessMillis;
+
+	/**
+	 * @param absoluteThreshold          minimum price move, 0 to disable
+	 * @param relativeThresholdBasisPoints minimum move relative to the published price, 0 to disable
+	 * @param tickSize                   minimum move of one price tick, 0 to disable
+	 * @param maxStalenessMillis         publish regardless of the move once the last publish is this old
+	 */
+	public SignificantChangeFilter(final double absoluteThreshold, final double relativeThresholdBasisPoints,
+			final double tickSize, final long maxStalenessMillis) {
+		if (!(absoluteThreshold >= 0 && relativeThresholdBasisPoints >= 0 && tickSize >= 0)
+				|| maxStalenessMillis <= 0)
+			throw new IllegalArgumentException("Thresholds must not be negative and maxStalenessMillis must be positive");
+		this.absoluteThreshold = absoluteThreshold;
+		this.relativeThreshold = relativeThresholdBasisPoints / 10_000;
+		this.tickSize = tickSize;
+		this.maxStalenessMillis = maxStalenessMillis;
+	}
+
+	/**
+	 * @return true if the tick should go on to the rate limiter
+	 */
+	public boolean isSignificant(final SymbolStateTable symbolStates, final int symbolId, final MarketData data,
+			final long currentTime) {
+		long lastPublish = symbolStates.getSystemProcessTime(symbolId);
+		if (lastPublish == SymbolStateTable.NONE || currentTime - lastPublish >= maxStalenessMillis)
+			return true;
+		int publishedScale = symbolStates.getPublishedPriceScale(symbolId);
+		return isMove(data.getBidMantissa(), data.getPriceScale(), symbolStates.getPublishedBid(symbolId), publishedScale)
+				|| isMove(data.getAskMantissa(), data.getPriceScale(), symbolStates.getPublishedAsk(symbolId), publishedScale)
+				|| isMove(data.getLastMantissa(), data.getPriceScale(), symbolStates.getPublishedLast(symbolId), publishedScale);
+	}
+
+	public long getMaxStalenessMillis() {
+		return maxStalenessMillis;
+	}
+
+	private boolean isMove(final long mantissa, final int scale, final long publishedMantissa, final int publishedScale) {
+		if (publishedMantissa == SymbolStateTable.NONE)
+			return true;
+		if (scale == publishedScale && mantissa == publishedMantissa)
+			return false;
+		double price = toDouble(mantissa, scale);
+		double published = toDouble(publishedMantissa, publishedScale);
+		double move = Math.abs(price - published);
+		if (absoluteThreshold == 0 && relativeThreshold == 0 && tickSize == 0)
+			return move > 0;
+		return crosses(move, absoluteThreshold)
+				|| crosses(move, relativeThreshold * Math.abs(published))
+				|| crosses(move, tickSize);
+	}
+
+	private static boolean crosses(final double move, final double threshold) {
+		return threshold > 0 && move >= threshold * (1 - EPSILON);
+	}
+
+	private static double toDouble(final long mantissa, final int scale) {
+		if (scale >= 0 && scale < POWERS_OF_TEN.length)
+			return mantissa / POWERS_OF_TEN[scale];
+		return mantissa / Math.pow(10, scale);
+	}
+}
@@ -0,0 +1,302 @@
+package com.ank.processor;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Per-symbol throttle state indexed by dense int symbol ids.
+ *
+ * Symbols are interned to ids once, at subscription time or on first sight. The last market
+ * update time, the last system publish time and the last published prices of a symbol are kept
+ * side by side in primitive pages, one cache line per symbol, so checking and updating a symbol
+ * needs neither a lock nor an allocation. The receipt time of a symbol's pending update is only
+ * used when it is conflated or drained, so it is kept in a page of its own. Pages are allocated
+ * on demand and never move, which keeps concurrent CAS updates safe while growing. Ids of
+ * released idle symbols are reused, so the table does not grow with symbols that stopped
+ * trading.
+ */
+public class SymbolStateTable {
+	public static final int UNKNOWN_SYMBOL = -1;
+	public static final long NONE = Long.MIN_VALUE;
+
+	private static final int PAGE_SHIFT = 12;
+	private static final int PAGE_SIZE = 1 << PAGE_SHIFT;
+	private static final int PAGE_MASK = PAGE_SIZE - 1;
+	private static final int DEFAULT_MAX_SYMBOLS = 1 << 20;
+
+	// layout of the 8 longs of a symbol
+	private static final int STRIDE_SHIFT = 3;
+	private static final int MARKET_TIME = 0;
+	private static final int PROCESS_TIME = 1;
+	private static final int BID = 2;
+	private static final int ASK = 3;
+	private static final int LAST = 4;
+	private static final int PRICE_SCALE = 5;
+	private static final int CONFLATED_COUNT = 6;
+	private static final int LAST_SEEN_TIME = 7;
+
+	private final Map<String, Integer> symbolIds;
+	private final AtomicLongArray[] pages;
+	private final AtomicLongArray[] receivedPages;
+	private final String[][] symbolPages;
+	private final int maxSymbols;
+
+	// ids of released symbols, reused before new ones; guarded by symbolIds
+	private int[] freeIds = new int[16];
+	private int freeCount;
+	private int nextId;
+
+	private volatile int size;
+
+	public SymbolStateTable() {
+		this(DEFAULT_MAX_SYMBOLS);
+	}
+
+	public SymbolStateTable(final int maxSymbols) {
+		this.maxSymbols = maxSymbols;
+		this.symbolIds = new ConcurrentHashMap<>();
+		int pageCount = (maxSymbols + PAGE_SIZE - 1) >>> PAGE_SHIFT;
+		this.pages = new AtomicLongArray[pageCount];
+		this.receivedPages = new AtomicLongArray[pageCount];
+		this.symbolPages = new String[pageCount][];
+	}
+
+	/**
+	 * @return the id of the symbol, assigning the next free one if the symbol is new
+	 */
+	public int intern(final String symbol) {
+		Integer id = symbolIds.get(symbol);
+		if (id != null)
+			return id;
+		synchronized (symbolIds) {
+			id = symbolIds.get(symbol);
+			if (id != null)
+				return id;
+			int newId;
+			if (freeCount > 0) {
+				newId = freeIds[--freeCount];
+			} else {
+				if (nextId >= maxSymbols)
+					throw new IllegalStateException("Symbol table is full: " + maxSymbols);
+				newId = nextId++;
+			}
+			int page = newId >>> PAGE_SHIFT;
+			if (pages[page] == null) {
+				AtomicLongArray states = new AtomicLongArray(PAGE_SIZE << STRIDE_SHIFT);
+				for (int i = 0; i < states.length(); i++)
+					states.set(i, (i & ((1 << STRIDE_SHIFT) - 1)) == CONFLATED_COUNT ? 0 : NONE);
+				symbolPages[page] = new String[PAGE_SIZE];
+				receivedPages[page] = new AtomicLongArray(PAGE_SIZE);
+				pages[page] = states;
+			}
+			symbolPages[page][newId & PAGE_MASK] = symbol;
+			// publish the page before the id becomes visible to readers
+			symbolIds.put(symbol, newId);
+			size++;
+			return newId;
+		}
+	}
+
+	/**
+	 * @return the id of the symbol or {@link #UNKNOWN_SYMBOL} if it was never interned
+	 */
+	public int idOf(final String symbol) {
+		Integer id = symbolIds.get(symbol);
+		return id == null ? UNKNOWN_SYMBOL : id;
+	}
+
+	/**
+	 * Forget an idle symbol and make its id available to the next new symbol. The caller must
+	 * make sure no other thread is still using the id.
+	 *
+	 * @return false if the id was not in use
+	 */
+	public boolean release(final int id) {
+		synchronized (symbolIds) {
+			String symbol = id < nextId ? symbolOf(id) : null;
+			if (symbol == null)
+				return false;
+			symbolIds.remove(symbol);
+			symbolPages[id >>> PAGE_SHIFT][id & PAGE_MASK] = null;
+			AtomicLongArray page = pages[id >>> PAGE_SHIFT];
+			int base = (id & PAGE_MASK) << STRIDE_SHIFT;
+			for (int field = 0; field < 1 << STRIDE_SHIFT; field++)
+				page.set(base + field, field == CONFLATED_COUNT ? 0 : NONE);
+			receivedPages[id >>> PAGE_SHIFT].set(id & PAGE_MASK, 0);
+			if (freeCount == freeIds.length)
+				freeIds = Arrays.copyOf(freeIds, freeCount << 1);
+			freeIds[freeCount++] = id;
+			size--;
+			return true;
+		}
+	}
+
+	/**
+	 * Record that a tick of the symbol was seen.
+	 *
+	 * @return true if it is the first tick since the symbol was interned
+	 */
+	public boolean touch(final int id, final long currentTime) {
+		AtomicLongArray page = pages[id >>> PAGE_SHIFT];
+		int index = ((id & PAGE_MASK) << STRIDE_SHIFT) + LAST_SEEN_TIME;
+		long previous = page.get(index);
+		page.lazySet(index, currentTime);
+		return previous == NONE;
+	}
+
+	/**
+	 * @return system time the last tick of the symbol was seen, or {@link #NONE}
+	 */
+	public long getLastSeenTime(final int id) {
+		return get(id, LAST_SEEN_TIME);
+	}
+
+	/**
+	 * @return the symbol of the id, or null if the id is not in use
+	 */
+	public String symbolOf(final int id) {
+		return symbolPages[id >>> PAGE_SHIFT][id & PAGE_MASK];
+	}
+
+	public long getMarketUpdateTime(final int id) {
+		return get(id, MARKET_TIME);
+	}
+
+	public long getSystemProcessTime(final int id) {
+		return get(id, PROCESS_TIME);
+	}
+
+	/**
+	 * @return last published bid mantissa, or {@link #NONE}
+	 */
+	public long getPublishedBid(final int id) {
+		return get(id, BID);
+	}
+
+	public long getPublishedAsk(final int id) {
+		return get(id, ASK);
+	}
+
+	public long getPublishedLast(final int id) {
+		return get(id, LAST);
+	}
+
+	public int getPublishedPriceScale(final int id) {
+		return (int) get(id, PRICE_SCALE);
+	}
+
+	/**
+	 * Count an update of the symbol that was throttled and kept for a later publish.
+	 */
+	public void incrementConflatedCount(final int id) {
+		pages[id >>> PAGE_SHIFT].getAndIncrement(((id & PAGE_MASK) << STRIDE_SHIFT) + CONFLATED_COUNT);
+	}
+
+	public long getConflatedCount(final int id) {
+		return get(id, CONFLATED_COUNT);
+	}
+
+	/**
+	 * Record the system time the pending update of the symbol was received, to measure its publish
+	 * latency from then.
+	 */
+	public void setPendingReceivedTime(final int id, final long receivedTime) {
+		receivedPages[id >>> PAGE_SHIFT].lazySet(id & PAGE_MASK, receivedTime);
+	}
+
+	public long getPendingReceivedTime(final int id) {
+		return receivedPages[id >>> PAGE_SHIFT].get(id & PAGE_MASK);
+	}
+
+	/**
+	 * Record the prices of a publish the caller won with {@link #tryAcquire}.
+	 */
+	public void setPublishedPrices(final int id, final long bid, final long ask, final long last, final int priceScale) {
+		AtomicLongArray page = pages[id >>> PAGE_SHIFT];
+		int base = (id & PAGE_MASK) << STRIDE_SHIFT;
+		page.lazySet(base + BID, bid);
+		page.lazySet(base + ASK, ask);
+		page.lazySet(base + LAST, last);
+		page.lazySet(base + PRICE_SCALE, priceScale);
+	}
+
+	/**
+	 * @return true if the market update time is newer than the last one published for the symbol
+	 */
+	public boolean isNewer(final int id, final long marketUpdateTime) {
+		long last = getMarketUpdateTime(id);
+		return last == NONE || marketUpdateTime > last;
+	}
+
+	/**
+	 * @return true if the symbol was not published within the window ending at currentTime
+	 */
+	public boolean isWindowOpen(final int id, final long currentTime, final long windowMillis) {
+		long last = getSystemProcessTime(id);
+		return last == NONE || currentTime - last > windowMillis;
+	}
+
+	/**
+	 * Atomically record a publish of the symbol if the market data is newer than the last published
+	 * one and the symbol window is open.
+	 *
+	 * @return true if the caller won the right to publish
+	 */
+	public boolean tryAcquire(final int id, final long marketUpdateTime, final long currentTime,
+			final long windowMillis) {
+		AtomicLongArray page = pages[id >>> PAGE_SHIFT];
+		int marketIndex = marketIndex(id);
+		int processIndex = processIndex(id);
+		for (;;) {
+			long lastProcess = page.get(processIndex);
+			long lastMarket = page.get(marketIndex);
+			if (lastMarket != NONE && marketUpdateTime <= lastMarket)
+				return false;
+			if (lastProcess != NONE && currentTime - lastProcess <= windowMillis)
+				return false;
+			if (page.compareAndSet(processIndex, lastProcess, currentTime)) {
+				page.set(marketIndex, marketUpdateTime);
+				return true;
+			}
+		}
+	}
+
+	/**
+	 * Overwrite the state of a symbol, e.g. when restoring it.
+	 */
+	public void set(final int id, final long marketUpdateTime, final long systemProcessTime) {
+		AtomicLongArray page = pages[id >>> PAGE_SHIFT];
+		page.set(marketIndex(id), marketUpdateTime);
+		page.set(processIndex(id), systemProcessTime);
+	}
+
+	/**
+	 * @return one past the highest id assigned so far, to walk every symbol with {@link #symbolOf}
+	 */
+	public int getIdLimit() {
+		synchronized (symbolIds) {
+			return nextId;
+		}
+	}
+
+	/**
+	 * @return number of symbols currently interned
+	 */
+	public int size() {
+		return size;
+	}
+
+	private long get(final int id, final int field) {
+		return pages[id >>> PAGE_SHIFT].get(((id & PAGE_MASK) << STRIDE_SHIFT) + field);
+	}
+
+	private static int marketIndex(final int id) {
+		return ((id & PAGE_MASK) << STRIDE_SHIFT) + MARKET_TIME;
+	}
+
+	private static int processIndex(final int id) {
+		return ((id & PAGE_MASK) << STRIDE_SHIFT) + PROCESS_TIME;
+	}
+}
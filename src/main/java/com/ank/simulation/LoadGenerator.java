@@ -0,0 +1,239 @@
+package com.ank.simulation;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Random;
+import java.util.function.Function;
+
+import com.ank.metrics.LatencyHistogram;
+import com.ank.model.MarketData;
+import com.ank.processor.MarketDataProcessor;
+import com.ank.util.GcraRateLimiter;
+import com.ank.util.IMarketDataLimiter;
+import com.ank.util.ITimer;
+import com.ank.util.RingBufferRateLimiter;
+import com.ank.util.SimulatedTimer;
+import com.ank.util.SlidingWindowRateLimiter;
+import com.ank.util.TokenBucketRateLimiter;
+
+/**
+ * Deterministic load harness for the throttle.
+ *
+ * Ticks are generated millisecond by millisecond of simulated time from a {@link LoadProfile},
+ * with Zipf skewed symbol popularity and periodic bursts, and fed to a {@link MarketDataProcessor}
+ * built on a {@link SimulatedTimer}. After each millisecond the processor drains what is due,
+ * as the ingest pipeline does when idle; after the last tick time runs on until nothing is
+ * pending. The same profile and seed always give the same ticks and decisions, so only the
+ * throughput depends on the machine.
+ *
+ * Every publish is checked against an exact sliding window oracle, and each symbol's staleness
+ * (time its latest tick waited to be published) is tracked.
+ */
+public class LoadGenerator {
+	private static final long BASE_TIME = 1_600_000_000_000L;
+	private static final long NONE = Long.MIN_VALUE;
+	private static final int DEFAULT_LIMIT = 100;
+	private static final long DEFAULT_WINDOW_MILLIS = 1000L;
+
+	private final LoadProfile profile;
+
+	public LoadGenerator(final LoadProfile profile) {
+		this.profile = profile;
+	}
+
+	/**
+	 * @param limiterFactory creates the limiter under test on the simulated timer
+	 * @param limit          publishes allowed per window, checked by the oracle
+	 * @param windowMillis   window of the limit
+	 */
+	public ThrottleQualityReport run(final Function<ITimer, IMarketDataLimiter> limiterFactory, final int limit,
+			final long windowMillis) {
+		SimulatedTimer timer = new SimulatedTimer(BASE_TIME);
+		IMarketDataLimiter limiter = limiterFactory.apply(timer);
+		Oracle oracle = new Oracle(timer, limiter, profile.getSymbolCount(), limit, windowMillis);
+		MarketDataProcessor processor = new MarketDataProcessor(timer, limiter) {
+			@Override
+			public void publishAggregatedMarketData(MarketData data) {
+				oracle.onPublish(data);
+			}
+		};
+		String[] symbols = oracle.symbols;
+		for (String symbol : symbols)
+			processor.subscribe(symbol);
+
+		ZipfDistribution popularity = new ZipfDistribution(profile.getSymbolCount(), profile.getZipfExponent(),
+				new Random(profile.getSeed()));
+		MarketData tick = new MarketData();
+		long sequence = 0;
+		double carry = 0;
+		long start = System.nanoTime();
+		for (long elapsed = 0; elapsed < profile.getDurationMillis(); elapsed++) {
+			long currentTime = BASE_TIME + elapsed;
+			timer.setCurrentTime(currentTime);
+			carry += profile.getTickRate(elapsed) / 1000;
+			long count = (long) carry;
+			carry -= count;
+			for (long i = 0; i < count; i++) {
+				int rank = popularity.next();
+				// the market update time is the tick sequence, so every tick is newer than the last
+				sequence++;
+				oracle.onTick(rank, sequence, currentTime);
+				processor.onMessage(tick.set(symbols[rank], 100, 101, 100, 0, sequence));
+			}
+			drainDue(processor);
+		}
+		long elapsedNanos = System.nanoTime() - start;
+
+		// run on until every pending symbol had its chance, bounded by the time the budget needs
+		long drainMillis = 2 * windowMillis + (long) profile.getSymbolCount() * windowMillis / limit;
+		long end = BASE_TIME + profile.getDurationMillis();
+		for (long time = end; time < end + drainMillis && processor.getPendingCount() > 0; time++) {
+			timer.setCurrentTime(time);
+			drainDue(processor);
+		}
+		return oracle.report(sequence, elapsedNanos, timer.getCurrentTime() - BASE_TIME);
+	}
+
+	private static void drainDue(final MarketDataProcessor processor) {
+		while (processor.drainDue() > 0) {
+			// more may be due
+		}
+	}
+
+	/**
+	 * Run a profile against a limiter and print the report.
+	 *
+	 * Usage: LoadGenerator [load.symbols=1000 ...] [limiter=ringBuffer|slidingWindow|gcra|tokenBucket]
+	 * [limit=100] [windowMillis=1000] [burst=1]
+	 */
+	public static void main(final String[] args) {
+		Properties properties = new Properties();
+		for (String arg : args) {
+			int separator = arg.indexOf('=');
+			if (separator <= 0) {
+				System.err.println("Arguments must be key=value: " + arg);
+				System.exit(1);
+			}
+			properties.setProperty(arg.substring(0, separator), arg.substring(separator + 1));
+		}
+		LoadProfile profile = LoadProfile.fromProperties(properties);
+		String name = properties.getProperty("limiter", "ringBuffer");
+		int limit = Integer.parseInt(properties.getProperty("limit", String.valueOf(DEFAULT_LIMIT)));
+		long windowMillis = Long.parseLong(
+				properties.getProperty("windowMillis", String.valueOf(DEFAULT_WINDOW_MILLIS)));
+		// gcra burst and token bucket capacity, above 1 they may exceed the limit in a window
+		int burst = Integer.parseInt(properties.getProperty("burst", "1"));
+		Function<ITimer, IMarketDataLimiter> limiterFactory;
+		switch (name) {
+		case "ringBuffer":
+			limiterFactory = timer -> new RingBufferRateLimiter(timer, limit, windowMillis);
+			break;
+		case "slidingWindow":
+			// fixed at 100 per second, the oracle would check it against limits it does not apply
+			if (limit != DEFAULT_LIMIT || windowMillis != DEFAULT_WINDOW_MILLIS)
+				throw new IllegalArgumentException("slidingWindow only supports limit=" + DEFAULT_LIMIT
+						+ " windowMillis=" + DEFAULT_WINDOW_MILLIS);
+			limiterFactory = SlidingWindowRateLimiter::new;
+			break;
+		case "gcra":
+			limiterFactory = timer -> new GcraRateLimiter(timer, limit, windowMillis, burst);
+			break;
+		case "tokenBucket":
+			limiterFactory = timer -> new TokenBucketRateLimiter(timer, limit, windowMillis, burst);
+			break;
+		default:
+			throw new IllegalArgumentException("Unknown limiter " + name);
+		}
+		System.out.println(name + ": " + new LoadGenerator(profile).run(limiterFactory, limit, windowMillis));
+	}
+
+	/**
+	 * Exact record of what was ticked and published.
+	 */
+	private static final class Oracle {
+		private final ITimer timer;
+		private final IMarketDataLimiter limiter;
+		private final String[] symbols;
+		private final Map<String, Integer> ranks;
+		private final long windowMillis;
+
+		// times of the last limit publishes
+		private final long[] publishTimes;
+		private long publishes;
+
+		private final long[] latestSequence;
+		private final long[] publishedSequence;
+		private final long[] dirtySince;
+		private final long[] lastPublishTime;
+		private final LatencyHistogram staleness = new LatencyHistogram();
+
+		private long rateViolations;
+		private long symbolWindowViolations;
+
+		private Oracle(final ITimer timer, final IMarketDataLimiter limiter, final int symbolCount, final int limit,
+				final long windowMillis) {
+			this.timer = timer;
+			this.limiter = limiter;
+			this.windowMillis = windowMillis;
+			this.publishTimes = new long[limit];
+			this.symbols = new String[symbolCount];
+			this.ranks = new HashMap<>(symbolCount * 2);
+			for (int i = 0; i < symbolCount; i++) {
+				symbols[i] = "SYM" + i;
+				ranks.put(symbols[i], i);
+			}
+			this.latestSequence = new long[symbolCount];
+			this.publishedSequence = new long[symbolCount];
+			this.dirtySince = new long[symbolCount];
+			this.lastPublishTime = new long[symbolCount];
+			Arrays.fill(dirtySince, NONE);
+			Arrays.fill(lastPublishTime, NONE);
+		}
+
+		private void onTick(final int rank, final long sequence, final long currentTime) {
+			latestSequence[rank] = sequence;
+			if (dirtySince[rank] == NONE)
+				dirtySince[rank] = currentTime;
+		}
+
+		private void onPublish(final MarketData data) {
+			long currentTime = timer.getCurrentTime();
+			int slot = (int) (publishes % publishTimes.length);
+			if (publishes >= publishTimes.length && currentTime - publishTimes[slot] < windowMillis)
+				rateViolations++;
+			publishTimes[slot] = currentTime;
+			publishes++;
+
+			int rank = ranks.get(data.getSymbol());
+			long last = lastPublishTime[rank];
+			if (last != NONE && currentTime - last <= limiter.getSymbolWindowMillis(data.getSymbol()))
+				symbolWindowViolations++;
+			lastPublishTime[rank] = currentTime;
+			publishedSequence[rank] = Math.max(publishedSequence[rank], data.getUpdateTime());
+			// an older value leaves the symbol stale since before, which overstates its staleness
+			if (publishedSequence[rank] == latestSequence[rank]) {
+				staleness.record(currentTime - dirtySince[rank]);
+				dirtySince[rank] = NONE;
+			}
+		}
+
+		private ThrottleQualityReport report(final long ticks, final long elapsedNanos, final long simulatedMillis) {
+			long currentTime = timer.getCurrentTime();
+			int ticked = 0;
+			int upToDate = 0;
+			for (int rank = 0; rank < symbols.length; rank++) {
+				if (latestSequence[rank] == 0)
+					continue;
+				ticked++;
+				if (publishedSequence[rank] == latestSequence[rank])
+					upToDate++;
+				else
+					staleness.record(currentTime - dirtySince[rank]);
+			}
+			return new ThrottleQualityReport(ticks, publishes, simulatedMillis, elapsedNanos, staleness.getMax(),
+					staleness.getValueAtPercentile(99), ticked, upToDate, rateViolations, symbolWindowViolations);
+		}
+	}
+}
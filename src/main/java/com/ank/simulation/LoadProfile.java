@@ -0,0 +1,99 @@
+package com.ank.simulation;
+
+import java.util.Properties;
+
+/**
+ * Shape of the traffic produced by {@link LoadGenerator}.
+ *
+ * Properties understood by {@link #fromProperties(Properties)}:
+ * <pre>
+ * load.symbols=1000               number of symbols
+ * load.zipfExponent=1.0           skew of symbol popularity, 0 for uniform
+ * load.ticksPerSecond=100000      base tick rate in simulated time
+ * load.durationMillis=10000       simulated time ticks are produced for
+ * load.burstPeriodMillis=1000     a burst starts every period, 0 for none
+ * load.burstMillis=100            length of each burst
+ * load.burstFactor=10             tick rate multiplier during a burst
+ * load.seed=42
+ * </pre>
+ */
+public class LoadProfile {
+	private static final String PREFIX = "load.";
+
+	private final int symbolCount;
+	private final double zipfExponent;
+	private final long ticksPerSecond;
+	private final long durationMillis;
+	private final long burstPeriodMillis;
+	private final long burstMillis;
+	private final double burstFactor;
+	private final long seed;
+
+	public LoadProfile(int symbolCount, double zipfExponent, long ticksPerSecond, long durationMillis,
+			long burstPeriodMillis, long burstMillis, double burstFactor, long seed) {
+		if (symbolCount <= 0 || zipfExponent < 0 || ticksPerSecond < 0 || durationMillis <= 0)
+			throw new IllegalArgumentException("Symbol count and duration must be positive, rates not negative");
+		if (burstPeriodMillis < 0 || burstMillis < 0 || burstFactor < 0)
+			throw new IllegalArgumentException("Burst settings must not be negative");
+		this.symbolCount = symbolCount;
+		this.zipfExponent = zipfExponent;
+		this.ticksPerSecond = ticksPerSecond;
+		this.durationMillis = durationMillis;
+		this.burstPeriodMillis = burstPeriodMillis;
+		this.burstMillis = burstMillis;
+		this.burstFactor = burstFactor;
+		this.seed = seed;
+	}
+
+	public static LoadProfile fromProperties(Properties properties) {
+		return new LoadProfile(
+				Integer.parseInt(properties.getProperty(PREFIX + "symbols", "1000").trim()),
+				Double.parseDouble(properties.getProperty(PREFIX + "zipfExponent", "1.0").trim()),
+				Long.parseLong(properties.getProperty(PREFIX + "ticksPerSecond", "100000").trim()),
+				Long.parseLong(properties.getProperty(PREFIX + "durationMillis", "10000").trim()),
+				Long.parseLong(properties.getProperty(PREFIX + "burstPeriodMillis", "1000").trim()),
+				Long.parseLong(properties.getProperty(PREFIX + "burstMillis", "100").trim()),
+				Double.parseDouble(properties.getProperty(PREFIX + "burstFactor", "10").trim()),
+				Long.parseLong(properties.getProperty(PREFIX + "seed", "42").trim()));
+	}
+
+	/**
+	 * @return tick rate per second at the given offset from the start of the run
+	 */
+	public double getTickRate(long elapsedMillis) {
+		boolean burst = burstPeriodMillis > 0 && elapsedMillis % burstPeriodMillis < burstMillis;
+		return burst ? ticksPerSecond * burstFactor : ticksPerSecond;
+	}
+
+	public int getSymbolCount() {
+		return symbolCount;
+	}
+
+	public double getZipfExponent() {
+		return zipfExponent;
+	}
+
+	public long getTicksPerSecond() {
+		return ticksPerSecond;
+	}
+
+	public long getDurationMillis() {
+		return durationMillis;
+	}
+
+	public long getBurstPeriodMillis() {
+		return burstPeriodMillis;
+	}
+
+	public long getBurstMillis() {
+		return burstMillis;
+	}
+
+	public double getBurstFactor() {
+		return burstFactor;
+	}
+
+	public long getSeed() {
+		return seed;
+	}
+}
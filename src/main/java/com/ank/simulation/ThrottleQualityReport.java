@@ -0,0 +1,110 @@
+package com.ank.simulation;
+
+/**
+ * Outcome of a {@link LoadGenerator} run.
+ */
+public class ThrottleQualityReport {
+	private final long ticks;
+	private final long publishes;
+	private final long simulatedMillis;
+	private final long elapsedNanos;
+	private final long maxStalenessMillis;
+	private final long p99StalenessMillis;
+	private final int symbolsTicked;
+	private final int symbolsUpToDate;
+	private final long rateViolations;
+	private final long symbolWindowViolations;
+
+	public ThrottleQualityReport(long ticks, long publishes, long simulatedMillis, long elapsedNanos,
+			long maxStalenessMillis, long p99StalenessMillis, int symbolsTicked, int symbolsUpToDate,
+			long rateViolations, long symbolWindowViolations) {
+		this.ticks = ticks;
+		this.publishes = publishes;
+		this.simulatedMillis = simulatedMillis;
+		this.elapsedNanos = elapsedNanos;
+		this.maxStalenessMillis = maxStalenessMillis;
+		this.p99StalenessMillis = p99StalenessMillis;
+		this.symbolsTicked = symbolsTicked;
+		this.symbolsUpToDate = symbolsUpToDate;
+		this.rateViolations = rateViolations;
+		this.symbolWindowViolations = symbolWindowViolations;
+	}
+
+	public long getTicks() {
+		return ticks;
+	}
+
+	public long getPublishes() {
+		return publishes;
+	}
+
+	/**
+	 * @return simulated time of the run, including draining after the last tick
+	 */
+	public long getSimulatedMillis() {
+		return simulatedMillis;
+	}
+
+	/**
+	 * @return wall-clock time the processor took for the ticks
+	 */
+	public long getElapsedNanos() {
+		return elapsedNanos;
+	}
+
+	/**
+	 * @return ticks processed per wall-clock second
+	 */
+	public double getThroughput() {
+		return elapsedNanos == 0 ? 0 : ticks * 1e9 / elapsedNanos;
+	}
+
+	/**
+	 * @return longest time a symbol's published value was behind its latest tick
+	 */
+	public long getMaxStalenessMillis() {
+		return maxStalenessMillis;
+	}
+
+	public long getP99StalenessMillis() {
+		return p99StalenessMillis;
+	}
+
+	public int getSymbolsTicked() {
+		return symbolsTicked;
+	}
+
+	/**
+	 * @return symbols whose latest tick was published by the end of the run
+	 */
+	public int getSymbolsUpToDate() {
+		return symbolsUpToDate;
+	}
+
+	public double getUpToDatePercent() {
+		return symbolsTicked == 0 ? 100 : symbolsUpToDate * 100.0 / symbolsTicked;
+	}
+
+	/**
+	 * @return publishes that made some window hold more than the limit
+	 */
+	public long getRateViolations() {
+		return rateViolations;
+	}
+
+	/**
+	 * @return publishes of a symbol within its symbol window of the previous one
+	 */
+	public long getSymbolWindowViolations() {
+		return symbolWindowViolations;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("ticks=%d publishes=%d simulatedMillis=%d throughput=%.0f ticks/s%n"
+				+ "staleness max=%d ms p99=%d ms, up to date %d/%d symbols (%.2f%%)%n"
+				+ "violations rate=%d symbolWindow=%d",
+				ticks, publishes, simulatedMillis, getThroughput(), maxStalenessMillis, p99StalenessMillis,
+				symbolsUpToDate, symbolsTicked, getUpToDatePercent(), rateViolations, symbolWindowViolations);
+	}
+}
@@ -0,0 +1,41 @@
+package com.ank.simulation;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Zipf distributed ranks 0..n-1: rank k is drawn with a probability proportional to 1/(k+1)^s.
+ * An exponent of 0 draws every rank equally often. Sampling is a binary search over the
+ * precomputed cumulative distribution.
+ */
+public class ZipfDistribution {
+	private final double[] cumulative;
+	private final Random random;
+
+	public ZipfDistribution(final int n, final double exponent, final Random random) {
+		if (n <= 0 || exponent < 0)
+			throw new IllegalArgumentException("n must be positive and exponent not negative");
+		this.cumulative = new double[n];
+		this.random = random;
+		double sum = 0;
+		for (int k = 0; k < n; k++) {
+			sum += 1 / Math.pow(k + 1, exponent);
+			cumulative[k] = sum;
+		}
+		for (int k = 0; k < n; k++)
+			cumulative[k] /= sum;
+	}
+
+	public int next() {
+		int index = Arrays.binarySearch(cumulative, random.nextDouble());
+		int rank = index >= 0 ? index : -index - 1;
+		return Math.min(rank, cumulative.length - 1);
+	}
+
+	/**
+	 * @return probability of drawing the given rank
+	 */
+	public double probability(final int rank) {
+		return rank == 0 ? cumulative[0] : cumulative[rank] - cumulative[rank - 1];
+	}
+}
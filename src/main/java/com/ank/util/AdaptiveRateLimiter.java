@@ -0,0 +1,149 @@
+package com.ank.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Limiter whose rate follows how fast downstream absorbs publishes.
+ *
+ * Publish latency and failures are reported through {@link IPublishFeedback}. Every adjustment
+ * interval the rate is cut by a quarter if a publish failed or the mean publish latency was above
+ * the target (multiplicative decrease), and raised by a fixed step if publishes were refused for
+ * lack of permits while downstream kept up (additive increase). It never leaves [floor, ceiling].
+ *
+ * Admission is a GCRA over the current rate: the state is one atomic long, and at most a
+ * millisecond's worth of permits is taken at once, so publishes are spread evenly.
+ */
+public class AdaptiveRateLimiter implements IMarketDataLimiter, IPublishFeedback {
+	private static final long MICROS_PER_MILLI = 1000L;
+	private static final long MICROS_PER_SECOND = 1_000_000L;
+	private static final long ADJUST_INTERVAL_MILLIS = 100L;
+	private static final double DECREASE_FACTOR = 0.75;
+	// steps from the floor to the ceiling when downstream keeps up
+	private static final int INCREASE_STEPS = 50;
+
+	private final ITimer timer;
+	private final double floorRate;
+	private final double ceilingRate;
+	private final double increaseStep;
+	private final long latencyTargetNanos;
+
+	// permits per second
+	private volatile double currentRate;
+	// theoretical arrival time of the next request in microseconds
+	private final AtomicLong arrivalTime = new AtomicLong(Long.MIN_VALUE);
+	private final AtomicLong nextAdjustTime = new AtomicLong(Long.MIN_VALUE);
+
+	// since the last adjustment
+	private final LongAdder completed = new LongAdder();
+	private final LongAdder failed = new LongAdder();
+	private final LongAdder latencySum = new LongAdder();
+	private final LongAdder refused = new LongAdder();
+
+	// for monitoring
+	private volatile long lastMeanLatencyNanos;
+	private final LongAdder totalFailed = new LongAdder();
+
+	/**
+	 * @param floorPerSecond      rate never gone below, also the starting rate
+	 * @param ceilingPerSecond    rate never exceeded
+	 * @param latencyTargetMicros mean publish latency above which the rate is cut
+	 */
+	public AdaptiveRateLimiter(final ITimer timer, final int floorPerSecond, final int ceilingPerSecond,
+			final long latencyTargetMicros) {
+		if (floorPerSecond <= 0 || ceilingPerSecond < floorPerSecond || latencyTargetMicros <= 0)
+			throw new IllegalArgumentException("floor must be positive, not above the ceiling, and target positive");
+		this.timer = timer;
+		this.floorRate = floorPerSecond;
+		this.ceilingRate = ceilingPerSecond;
+		this.increaseStep = Math.max(1, (ceilingRate - floorRate) / INCREASE_STEPS);
+		this.latencyTargetNanos = latencyTargetMicros * 1000;
+		this.currentRate = floorRate;
+	}
+
+	public boolean isNewDataAllowed() {
+		long currentTime = timer.getCurrentTime();
+		adjustIfDue(currentTime);
+		long now = currentTime * MICROS_PER_MILLI;
+		long interval = (long) Math.ceil(MICROS_PER_SECOND / currentRate);
+		long tolerance = Math.max(0, MICROS_PER_MILLI - interval);
+		for (;;) {
+			long tat = arrivalTime.get();
+			long start = Math.max(tat, now);
+			if (start - now > tolerance) {
+				refused.increment();
+				return false;
+			}
+			if (arrivalTime.compareAndSet(tat, start + interval))
+				return true;
+		}
+	}
+
+	@Override
+	public long getNextPermitTime(final long currentTime) {
+		long tat = arrivalTime.get();
+		if (tat == Long.MIN_VALUE)
+			return currentTime;
+		long interval = (long) Math.ceil(MICROS_PER_SECOND / currentRate);
+		long earliest = tat - Math.max(0, MICROS_PER_MILLI - interval);
+		return Math.max(currentTime, -Math.floorDiv(-earliest, MICROS_PER_MILLI));
+	}
+
+	@Override
+	public void onPublishCompleted(final long latencyNanos) {
+		completed.increment();
+		latencySum.add(latencyNanos);
+	}
+
+	@Override
+	public void onPublishFailed(final long latencyNanos) {
+		failed.increment();
+		totalFailed.increment();
+	}
+
+	/**
+	 * @return permits per second currently allowed
+	 */
+	public double getCurrentRate() {
+		return currentRate;
+	}
+
+	public double getFloorRate() {
+		return floorRate;
+	}
+
+	public double getCeilingRate() {
+		return ceilingRate;
+	}
+
+	/**
+	 * @return mean publish latency over the last adjustment interval that had publishes
+	 */
+	public long getLastMeanLatencyNanos() {
+		return lastMeanLatencyNanos;
+	}
+
+	public long getFailedCount() {
+		return totalFailed.sum();
+	}
+
+	private void adjustIfDue(final long currentTime) {
+		long due = nextAdjustTime.get();
+		if (currentTime < due || !nextAdjustTime.compareAndSet(due, currentTime + ADJUST_INTERVAL_MILLIS))
+			return;
+		if (due == Long.MIN_VALUE)
+			return;
+		long completedCount = completed.sumThenReset();
+		long failedCount = failed.sumThenReset();
+		long latency = latencySum.sumThenReset();
+		long refusedCount = refused.sumThenReset();
+		long meanLatency = completedCount == 0 ? 0 : latency / completedCount;
+		if (completedCount > 0)
+			lastMeanLatencyNanos = meanLatency;
+
+		if (failedCount > 0 || meanLatency > latencyTargetNanos)
+			currentRate = Math.max(floorRate, currentRate * DECREASE_FACTOR);
+		else if (refusedCount > 0)
+			currentRate = Math.min(ceilingRate, currentRate + increaseStep);
+	}
+}
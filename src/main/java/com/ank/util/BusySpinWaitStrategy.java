@@ -0,0 +1,11 @@
+package com.ank.util;
+
+/**
+ * Spin without yielding the CPU. Lowest latency, burns a core per waiting thread.
+ */
+public class BusySpinWaitStrategy implements IWaitStrategy {
+
+    public void idle(int counter) {
+        // spin
+    }
+}
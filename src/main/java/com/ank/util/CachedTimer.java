@@ -0,0 +1,56 @@
+package com.ank.util;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Coarse timer that reads a cached time instead of the clock source.
+ *
+ * A background ticker thread samples the source timer at the configured resolution and
+ * publishes the value into a padded volatile field, so getCurrentTime is a single memory read.
+ * The published time never moves backwards, even if the source does. Use a
+ * {@link MonotonicTimer} source to be immune to wall clock steps as well.
+ */
+public class CachedTimer implements ITimer, AutoCloseable {
+    private final ITimer source;
+    private final long resolutionNanos;
+    private final PaddedAtomicLong currentTime;
+    private final Thread ticker;
+
+    private volatile boolean running = true;
+
+    public CachedTimer(long resolutionMillis) {
+        this(new MyTimer(), resolutionMillis);
+    }
+
+    public CachedTimer(ITimer source, long resolutionMillis) {
+        if (resolutionMillis <= 0)
+            throw new IllegalArgumentException("resolutionMillis must be positive");
+        this.source = source;
+        this.resolutionNanos = TimeUnit.MILLISECONDS.toNanos(resolutionMillis);
+        this.currentTime = new PaddedAtomicLong(source.getCurrentTime());
+        this.ticker = new Thread(this::tick, "cached-timer");
+        this.ticker.setDaemon(true);
+        this.ticker.start();
+    }
+
+    public long getCurrentTime() {
+        return currentTime.get();
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        running = false;
+        LockSupport.unpark(ticker);
+        ticker.join();
+    }
+
+    private void tick() {
+        while (running) {
+            long time = source.getCurrentTime();
+            if (time > currentTime.get())
+                currentTime.lazySet(time);
+            LockSupport.parkNanos(resolutionNanos);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.ank.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generic cell rate algorithm limiter.
+ *
+ * Requests are spaced one emission interval (windowMillis / limit) apart, with up to {@code burst}
+ * of them allowed back to back. The only state is the theoretical arrival time of the next
+ * request, in microseconds, so admission is a single CAS. A burst of 1 spreads the publishes
+ * evenly over the window instead of letting them all land at its start.
+ *
+ * Only a burst of 1 keeps the sliding window contract of {@link RingBufferRateLimiter}: with a
+ * larger burst up to limit + burst - 1 requests can land within one window, so it is not a drop-in
+ * replacement then.
+ */
+public class GcraRateLimiter implements IMarketDataLimiter {
+	private static final long MICROS_PER_MILLI = 1000L;
+
+	private final ITimer timer;
+	private final int limit;
+	private final long windowMillis;
+	private final int burst;
+	// emission interval in microseconds, rounded up so the rate never exceeds the limit
+	private final long interval;
+	// how far ahead of now the theoretical arrival time may run
+	private final long tolerance;
+
+	// theoretical arrival time of the next request in microseconds
+	private final AtomicLong arrivalTime = new AtomicLong(Long.MIN_VALUE);
+
+	/**
+	 * At most limit requests within any windowMillis, one emission interval apart.
+	 */
+	public GcraRateLimiter(final ITimer timer, final int limit, final long windowMillis) {
+		this(timer, limit, windowMillis, 1);
+	}
+
+	/**
+	 * @param burst requests allowed back to back; above 1 a sliding window may hold more than limit
+	 */
+	public GcraRateLimiter(final ITimer timer, final int limit, final long windowMillis, final int burst) {
+		if (limit <= 0 || windowMillis <= 0 || burst <= 0)
+			throw new IllegalArgumentException("limit, window and burst must be positive");
+		this.timer = timer;
+		this.limit = limit;
+		this.windowMillis = windowMillis;
+		this.burst = burst;
+		this.interval = (windowMillis * MICROS_PER_MILLI + limit - 1) / limit;
+		this.tolerance = (burst - 1) * interval;
+	}
+
+	public boolean isNewDataAllowed() {
+		long now = timer.getCurrentTime() * MICROS_PER_MILLI;
+		for (;;) {
+			long tat = arrivalTime.get();
+			long start = Math.max(tat, now);
+			if (start - now > tolerance)
+				return false;
+			if (arrivalTime.compareAndSet(tat, start + interval))
+				return true;
+		}
+	}
+
+	@Override
+	public long getNextPermitTime(final long currentTime) {
+		long tat = arrivalTime.get();
+		if (tat == Long.MIN_VALUE)
+			return currentTime;
+		long earliest = tat - tolerance;
+		return Math.max(currentTime, -Math.floorDiv(-earliest, MICROS_PER_MILLI));
+	}
+
+	public int getLimit() {
+		return limit;
+	}
+
+	public long getWindowMillis() {
+		return windowMillis;
+	}
+
+	public int getBurst() {
+		return burst;
+	}
+}
@@ -4,5 +4,30 @@ package com.ank.util;
  * Interface for Rate Limiter
  */
 public interface IMarketDataLimiter {
+    long DEFAULT_SYMBOL_WINDOW = 1000L;
+
     boolean isNewDataAllowed();
+
+    /**
+     * Check for a publish of the given symbol. Limiters with per-symbol or per-group budgets
+     * override it, others apply the global limit only.
+     */
+    default boolean isNewDataAllowed(String symbol) {
+        return isNewDataAllowed();
+    }
+
+    /**
+     * @return minimum time between two publishes of the symbol
+     */
+    default long getSymbolWindowMillis(String symbol) {
+        return DEFAULT_SYMBOL_WINDOW;
+    }
+
+    /**
+     * @return earliest time at which isNewDataAllowed may succeed, so a caller that was refused can
+     *         retry then instead of spinning. Limiters that cannot tell return the current time.
+     */
+    default long getNextPermitTime(long currentTime) {
+        return currentTime;
+    }
 }
@@ -0,0 +1,52 @@
+package com.ank.util;
+
+import com.ank.model.MarketData;
+
+/**
+ * Throttled market data waiting to be published, at most one update per symbol
+ */
+public interface IPendingUpdates {
+    /**
+     * Keep a copy of the data as pending for its symbol unless a newer update is already pending.
+     *
+     * @return true if the data is now pending for the symbol
+     */
+    boolean offer(MarketData data);
+
+    /**
+     * Drop the pending update of the symbol if it is not newer than the given update time.
+     */
+    void discard(String symbol, long updateTime);
+
+    /**
+     * @return the pending update to try next, or null. The instance belongs to the buffer and is
+     *         only valid until the buffer is next modified.
+     */
+    MarketData peek();
+
+    /**
+     * Remove the update returned by {@link #peek()}.
+     */
+    void remove();
+
+    /**
+     * Put the update returned by {@link #peek()} back, it cannot be published before retryTime.
+     */
+    void skip(long retryTime);
+
+    /**
+     * Forget an idle symbol.
+     *
+     * @return false if the symbol still has state that cannot be dropped now
+     */
+    boolean evict(String symbol);
+
+    /**
+     * @return the pending update of the symbol, owned by the buffer, or null
+     */
+    MarketData getPending(String symbol);
+
+    int size();
+
+    boolean isEmpty();
+}
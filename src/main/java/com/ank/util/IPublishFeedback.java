@@ -0,0 +1,16 @@
+package com.ank.util;
+
+/**
+ * Outcome of publishes, for limiters that adapt their rate to how downstream copes
+ */
+public interface IPublishFeedback {
+    /**
+     * @param latencyNanos time the publish call took
+     */
+    void onPublishCompleted(long latencyNanos);
+
+    /**
+     * @param latencyNanos time until the publish call failed
+     */
+    void onPublishFailed(long latencyNanos);
+}
@@ -0,0 +1,18 @@
+package com.ank.util;
+
+/**
+ * Rate limiter whose window can be saved and restored, so that a restart does not open a fresh
+ * window. Accept times are those of the limiter's timer.
+ */
+public interface IRestorableLimiter {
+    /**
+     * @return accept times still counted against the budget, oldest first
+     */
+    long[] getAcceptTimes();
+
+    /**
+     * Replace the window with the accept times of a previous instance, oldest first. Only
+     * before the limiter is used.
+     */
+    void restoreAcceptTimes(long[] acceptTimes);
+}
@@ -0,0 +1,12 @@
+package com.ank.util;
+
+/**
+ * Callback of a {@link TimingWheel} for expired timers
+ */
+public interface ITimerWheelListener {
+    /**
+     * @param timerId     id the timer was scheduled with, it is no longer scheduled
+     * @param currentTime time the wheel was advanced to
+     */
+    void onExpired(int timerId, long currentTime);
+}
@@ -0,0 +1,11 @@
+package com.ank.util;
+
+/**
+ * Back-off used by pipeline stages while waiting for a sequence to become available
+ */
+public interface IWaitStrategy {
+    /**
+     * @param counter number of times idle was already called in the current wait
+     */
+    void idle(int counter);
+}
@@ -0,0 +1,162 @@
+package com.ank.util;
+
+import java.util.Arrays;
+
+/**
+ * Binary max-heap of dense int ids ordered by a long key.
+ *
+ * The position of every id in the heap is indexed, so inserting, re-keying and removing an
+ * arbitrary id are all O(log n) and the top is O(1). Arrays grow with the largest id seen and
+ * are then reused, so steady-state updates do not allocate. Use negated keys for min-heap order.
+ *
+ * Not thread safe.
+ */
+public class IndexedLongHeap {
+	private static final int ABSENT = -1;
+
+	private int[] heap;
+	// position of each id in heap, or ABSENT
+	private int[] positions;
+	private long[] keys;
+	private int size;
+
+	public IndexedLongHeap() {
+		this(16);
+	}
+
+	public IndexedLongHeap(final int initialCapacity) {
+		this.heap = new int[Math.max(1, initialCapacity)];
+		this.positions = new int[Math.max(1, initialCapacity)];
+		this.keys = new long[Math.max(1, initialCapacity)];
+		Arrays.fill(positions, ABSENT);
+	}
+
+	/**
+	 * Insert the id, or move it to its place for the new key if already present.
+	 */
+	public void put(final int id, final long key) {
+		ensureId(id);
+		int position = positions[id];
+		if (position == ABSENT) {
+			if (size == heap.length)
+				heap = Arrays.copyOf(heap, size << 1);
+			keys[id] = key;
+			heap[size] = id;
+			positions[id] = size;
+			siftUp(size++);
+			return;
+		}
+		long previous = keys[id];
+		keys[id] = key;
+		if (key > previous)
+			siftUp(position);
+		else if (key < previous)
+			siftDown(position);
+	}
+
+	/**
+	 * @return true if the id was in the heap
+	 */
+	public boolean remove(final int id) {
+		if (!contains(id))
+			return false;
+		int position = positions[id];
+		positions[id] = ABSENT;
+		int last = heap[--size];
+		if (position == size)
+			return true;
+		heap[position] = last;
+		positions[last] = position;
+		siftDown(position);
+		siftUp(positions[last]);
+		return true;
+	}
+
+	public boolean contains(final int id) {
+		return id >= 0 && id < positions.length && positions[id] != ABSENT;
+	}
+
+	/**
+	 * @return the id with the largest key, or -1 when empty
+	 */
+	public int peek() {
+		return size == 0 ? ABSENT : heap[0];
+	}
+
+	/**
+	 * @return key of the top id, only meaningful when not empty
+	 */
+	public long peekKey() {
+		return keys[heap[0]];
+	}
+
+	/**
+	 * Remove and return the id with the largest key, or -1 when empty.
+	 */
+	public int poll() {
+		int top = peek();
+		if (top != ABSENT)
+			remove(top);
+		return top;
+	}
+
+	public long getKey(final int id) {
+		return keys[id];
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	private void ensureId(final int id) {
+		if (id < 0)
+			throw new IllegalArgumentException("id must not be negative: " + id);
+		if (id < positions.length)
+			return;
+		int capacity = Math.max(id + 1, positions.length << 1);
+		int previous = positions.length;
+		positions = Arrays.copyOf(positions, capacity);
+		keys = Arrays.copyOf(keys, capacity);
+		Arrays.fill(positions, previous, capacity, ABSENT);
+	}
+
+	private void siftUp(int position) {
+		int id = heap[position];
+		long key = keys[id];
+		while (position > 0) {
+			int parent = (position - 1) >>> 1;
+			int parentId = heap[parent];
+			if (keys[parentId] >= key)
+				break;
+			heap[position] = parentId;
+			positions[parentId] = position;
+			position = parent;
+		}
+		heap[position] = id;
+		positions[id] = position;
+	}
+
+	private void siftDown(int position) {
+		int id = heap[position];
+		long key = keys[id];
+		int half = size >>> 1;
+		while (position < half) {
+			int child = (position << 1) + 1;
+			int right = child + 1;
+			if (right < size && keys[heap[right]] > keys[heap[child]])
+				child = right;
+			int childId = heap[child];
+			if (key >= keys[childId])
+				break;
+			heap[position] = childId;
+			positions[childId] = position;
+			position = child;
+		}
+		heap[position] = id;
+		positions[id] = position;
+	}
+}
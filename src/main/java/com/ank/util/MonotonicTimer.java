@@ -0,0 +1,21 @@
+package com.ank.util;
+
+/**
+ * Millisecond timer derived from System.nanoTime.
+ *
+ * It starts at the wall clock time of its creation and then only moves forward, so window
+ * maths is not affected by wall clock steps such as NTP corrections.
+ */
+public class MonotonicTimer implements ITimer {
+    private final long originMillis;
+    private final long originNanos;
+
+    public MonotonicTimer() {
+        this.originMillis = System.currentTimeMillis();
+        this.originNanos = System.nanoTime();
+    }
+
+    public long getCurrentTime() {
+        return originMillis + (System.nanoTime() - originNanos) / 1_000_000L;
+    }
+}
@@ -0,0 +1,184 @@
+package com.ank.util;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Exact sliding window rate limiter enforcing several windows at once, e.g. 10 per 100 ms, 100
+ * per second and 5000 per minute.
+ *
+ * All windows share one ring holding the accept times of the last {@code max(limit)} accepted
+ * requests. A window of limit L is full while the accept L places back is still inside it, so
+ * every window is checked against the same ring and a request is admitted by a single CAS on the
+ * ring sequence: it takes the budget of every window or of none.
+ */
+public class MultiWindowRateLimiter implements IMarketDataLimiter, IRestorableLimiter {
+	// an accept claimed its sequence but has not written its time yet
+	private static final long IN_PROGRESS = Long.MIN_VALUE + 1;
+
+	private final ITimer timer;
+	private final Window[] windows;
+	private final int capacity;
+
+	// accept time of each slot
+	private final AtomicLongArray acceptTimes;
+	// sequence of the accept that last wrote each slot
+	private final AtomicLongArray slotSequences;
+	// number of accepted requests so far
+	private final AtomicLong sequence = new AtomicLong();
+
+	public MultiWindowRateLimiter(final ITimer timer, final Window... windows) {
+		if (windows.length == 0)
+			throw new IllegalArgumentException("At least one window is required");
+		this.timer = timer;
+		this.windows = windows.clone();
+		int maxLimit = 0;
+		for (Window window : windows)
+			maxLimit = Math.max(maxLimit, window.limit);
+		this.capacity = maxLimit;
+		this.acceptTimes = new AtomicLongArray(capacity);
+		this.slotSequences = new AtomicLongArray(capacity);
+		for (int i = 0; i < capacity; i++) {
+			acceptTimes.set(i, Long.MIN_VALUE);
+			slotSequences.set(i, i - capacity);
+		}
+	}
+
+	public boolean isNewDataAllowed() {
+		long currentTime = timer.getCurrentTime();
+		retry: for (;;) {
+			long seq = sequence.get();
+			int slot = (int) (seq % capacity);
+			// the accept one lap behind is still writing its time, re-read
+			if (slotSequences.get(slot) != seq - capacity)
+				continue;
+			for (Window window : windows) {
+				long acceptTime = acceptTimeAt(seq - window.limit);
+				if (acceptTime == IN_PROGRESS)
+					continue retry;
+				if (acceptTime != Long.MIN_VALUE && currentTime - acceptTime < window.windowMillis) {
+					if (sequence.get() == seq)
+						return false;
+					continue retry;
+				}
+			}
+			if (sequence.compareAndSet(seq, seq + 1)) {
+				acceptTimes.set(slot, currentTime);
+				slotSequences.set(slot, seq);
+				return true;
+			}
+		}
+	}
+
+	/**
+	 * A permit is available once every window has let its oldest counted accept go.
+	 */
+	@Override
+	public long getNextPermitTime(final long currentTime) {
+		long seq = sequence.get();
+		long next = currentTime;
+		for (Window window : windows) {
+			long acceptTime = acceptTimeAt(seq - window.limit);
+			if (acceptTime != Long.MIN_VALUE && acceptTime != IN_PROGRESS)
+				next = Math.max(next, acceptTime + window.windowMillis);
+		}
+		return next;
+	}
+
+	/**
+	 * @return number of requests accepted within the given window ending now
+	 */
+	public int getCurrentCount(final int window) {
+		long currentTime = timer.getCurrentTime();
+		long windowMillis = windows[window].windowMillis;
+		int count = 0;
+		for (int i = 0; i < capacity; i++) {
+			long acceptTime = acceptTimes.get(i);
+			if (acceptTime != Long.MIN_VALUE && currentTime - acceptTime < windowMillis)
+				count++;
+		}
+		return count;
+	}
+
+	/**
+	 * @return accept times currently held in the ring, oldest first
+	 */
+	@Override
+	public long[] getAcceptTimes() {
+		long[] times = new long[capacity];
+		int count = 0;
+		for (int i = 0; i < capacity; i++) {
+			long acceptTime = acceptTimes.get(i);
+			if (acceptTime != Long.MIN_VALUE)
+				times[count++] = acceptTime;
+		}
+		times = Arrays.copyOf(times, count);
+		Arrays.sort(times);
+		return times;
+	}
+
+	/**
+	 * Keeps the most recent accepts, as many as the largest window limit.
+	 */
+	@Override
+	public void restoreAcceptTimes(final long[] times) {
+		int start = Math.max(0, times.length - capacity);
+		int seeded = 0;
+		for (int i = start; i < times.length; i++, seeded++) {
+			acceptTimes.set(seeded, times[i]);
+			slotSequences.set(seeded, seeded);
+		}
+		for (int i = seeded; i < capacity; i++) {
+			acceptTimes.set(i, Long.MIN_VALUE);
+			slotSequences.set(i, i - capacity);
+		}
+		sequence.set(seeded);
+	}
+
+	public Window[] getWindows() {
+		return windows.clone();
+	}
+
+	/**
+	 * @return accept time of the given accept, Long.MIN_VALUE if there is none
+	 */
+	private long acceptTimeAt(final long acceptSequence) {
+		if (acceptSequence < 0)
+			return Long.MIN_VALUE;
+		int slot = (int) (acceptSequence % capacity);
+		// the time is written before the sequence; a later lap overwriting it also moves the ring
+		// sequence on, which makes the caller retry
+		if (slotSequences.get(slot) != acceptSequence)
+			return IN_PROGRESS;
+		return acceptTimes.get(slot);
+	}
+
+	/**
+	 * At most limit requests within any windowMillis.
+	 */
+	public static class Window {
+		private final int limit;
+		private final long windowMillis;
+
+		public Window(int limit, long windowMillis) {
+			if (limit <= 0 || windowMillis <= 0)
+				throw new IllegalArgumentException("limit and window must be positive");
+			this.limit = limit;
+			this.windowMillis = windowMillis;
+		}
+
+		public int getLimit() {
+			return limit;
+		}
+
+		public long getWindowMillis() {
+			return windowMillis;
+		}
+
+		@Override
+		public String toString() {
+			return limit + "/" + windowMillis + "ms";
+		}
+	}
+}
@@ -0,0 +1,26 @@
+package com.ank.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * AtomicLong padded to its own cache line, for counters written by one thread and polled by
+ * another.
+ */
+public class PaddedAtomicLong extends AtomicLong {
+    private static final long serialVersionUID = 1L;
+
+    // padding to keep neighbouring fields off this cache line
+    public volatile long p1, p2, p3, p4, p5, p6 = 7L;
+
+    public PaddedAtomicLong() {
+    }
+
+    public PaddedAtomicLong(long initialValue) {
+        super(initialValue);
+    }
+
+    // stops the JIT from eliminating the padding fields
+    public long sumPaddingToPreventOptimisation() {
+        return p1 + p2 + p3 + p4 + p5 + p6;
+    }
+}
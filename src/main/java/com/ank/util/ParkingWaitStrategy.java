@@ -0,0 +1,21 @@
+package com.ank.util;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Spin briefly, then park for a fixed period between checks. Lowest CPU usage, highest latency.
+ */
+public class ParkingWaitStrategy implements IWaitStrategy {
+    private static final int SPIN_TRIES = 100;
+
+    private final long parkNanos;
+
+    public ParkingWaitStrategy(long parkNanos) {
+        this.parkNanos = parkNanos;
+    }
+
+    public void idle(int counter) {
+        if (counter >= SPIN_TRIES)
+            LockSupport.parkNanos(parkNanos);
+    }
+}
@@ -0,0 +1,154 @@
+package com.ank.util;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Exact sliding window rate limiter.
+ *
+ * The timestamps of the last {@code limit} accepted requests are kept in a fixed size ring.
+ * A new request is accepted only if the oldest of them has left the window, so no window of
+ * {@code windowMillis} ever contains more than {@code limit} accepted requests. Admission is a
+ * single CAS on the ring sequence, without locks or allocation.
+ */
+public class RingBufferRateLimiter implements IMarketDataLimiter, IRestorableLimiter {
+	private static final long SECOND = 1000L;
+	private static final int CALL_LIMIT_PER_SECOND = 100;
+
+	private final ITimer timer;
+	private final int limit;
+	private final long windowMillis;
+
+	// accept time of each slot
+	private final AtomicLongArray acceptTimes;
+	// sequence of the accept that last wrote each slot
+	private final AtomicLongArray slotSequences;
+	// number of accepted requests so far
+	private final AtomicLong sequence;
+
+	public RingBufferRateLimiter(final ITimer timer) {
+		this(timer, CALL_LIMIT_PER_SECOND, SECOND);
+	}
+
+	public RingBufferRateLimiter(final ITimer timer, final int limit, final long windowMillis) {
+		if (limit <= 0 || windowMillis <= 0)
+			throw new IllegalArgumentException("limit and window must be positive");
+		this.timer = timer;
+		this.limit = limit;
+		this.windowMillis = windowMillis;
+		this.acceptTimes = new AtomicLongArray(limit);
+		this.slotSequences = new AtomicLongArray(limit);
+		this.sequence = new AtomicLong();
+		for (int i = 0; i < limit; i++) {
+			acceptTimes.set(i, Long.MIN_VALUE);
+			slotSequences.set(i, i - limit);
+		}
+	}
+
+	/**
+	 * Create a limiter with new settings that carries over the most recent accepts of a previous
+	 * one, so changing the limit does not open a fresh window.
+	 */
+	public RingBufferRateLimiter(final ITimer timer, final int limit, final long windowMillis,
+			final RingBufferRateLimiter previous) {
+		this(timer, limit, windowMillis);
+		restoreAcceptTimes(previous.getAcceptTimes());
+	}
+
+	public boolean isNewDataAllowed() {
+		long currentTime = timer.getCurrentTime();
+		for (;;) {
+			long seq = sequence.get();
+			int slot = (int) (seq % limit);
+			// the accept one lap behind is still writing its time, re-read
+			if (slotSequences.get(slot) != seq - limit)
+				continue;
+
+			long oldest = acceptTimes.get(slot);
+			if (oldest != Long.MIN_VALUE && currentTime - oldest < windowMillis) {
+				if (sequence.get() == seq)
+					return false;
+				continue;
+			}
+			if (sequence.compareAndSet(seq, seq + 1)) {
+				acceptTimes.set(slot, currentTime);
+				slotSequences.set(slot, seq);
+				return true;
+			}
+		}
+	}
+
+	/**
+	 * A permit is available once the oldest accept in the ring leaves the window.
+	 */
+	@Override
+	public long getNextPermitTime(final long currentTime) {
+		long oldest = acceptTimes.get((int) (sequence.get() % limit));
+		return oldest == Long.MIN_VALUE ? currentTime : Math.max(currentTime, oldest + windowMillis);
+	}
+
+	/**
+	 * @return number of requests accepted within the window ending now
+	 */
+	public int getCurrentCount() {
+		long currentTime = timer.getCurrentTime();
+		int count = 0;
+		for (int i = 0; i < limit; i++) {
+			long acceptTime = acceptTimes.get(i);
+			if (acceptTime != Long.MIN_VALUE && currentTime - acceptTime < windowMillis)
+				count++;
+		}
+		return count;
+	}
+
+	/**
+	 * @return accept times currently held in the ring, oldest first
+	 */
+	@Override
+	public long[] getAcceptTimes() {
+		long[] times = new long[limit];
+		int count = 0;
+		for (int i = 0; i < limit; i++) {
+			long acceptTime = acceptTimes.get(i);
+			if (acceptTime != Long.MIN_VALUE)
+				times[count++] = acceptTime;
+		}
+		times = Arrays.copyOf(times, count);
+		Arrays.sort(times);
+		return times;
+	}
+
+	/**
+	 * Keeps the most recent limit accepts.
+	 */
+	@Override
+	public void restoreAcceptTimes(final long[] times) {
+		int start = Math.max(0, times.length - limit);
+		int seeded = 0;
+		for (int i = start; i < times.length; i++, seeded++) {
+			acceptTimes.set(seeded, times[i]);
+			slotSequences.set(seeded, seeded);
+		}
+		for (int i = seeded; i < limit; i++) {
+			acceptTimes.set(i, Long.MIN_VALUE);
+			slotSequences.set(i, i - limit);
+		}
+		sequence.set(seeded);
+	}
+
+	/**
+	 * @return number of requests accepted since the limiter was created or restored
+	 */
+	public long getAcceptedCount() {
+		return sequence.get();
+	}
+
+	public int getLimit() {
+		return limit;
+	}
+
+	public long getWindowMillis() {
+		return windowMillis;
+	}
+}
@@ -0,0 +1,30 @@
+package com.ank.util;
+
+/**
+ * Timer whose time only moves when told to, for replays and simulations. Time never moves
+ * backwards.
+ */
+public class SimulatedTimer implements ITimer {
+	private volatile long currentTime;
+
+	public SimulatedTimer(final long startTime) {
+		this.currentTime = startTime;
+	}
+
+	@Override
+	public long getCurrentTime() {
+		return currentTime;
+	}
+
+	/**
+	 * Move the time forward to the given time; earlier times are ignored.
+	 */
+	public void setCurrentTime(final long time) {
+		if (time > currentTime)
+			currentTime = time;
+	}
+
+	public void advance(final long millis) {
+		setCurrentTime(currentTime + millis);
+	}
+}
@@ -0,0 +1,213 @@
+package com.ank.util;
+
+import java.util.Arrays;
+
+/**
+ * Hierarchical timing wheel of timers identified by dense int ids.
+ *
+ * Six levels of 64 slots cover deadlines up to 2^36 ticks ahead; a timer sits in the lowest
+ * level whose current rotation contains its deadline and moves down a level each time a higher
+ * slot comes due. Timers of a slot form an intrusive doubly linked list over int arrays, so
+ * scheduling, rescheduling and cancelling are O(1) and do not allocate once the arrays have
+ * grown to the largest id. Advancing skips over empty rotations, so a long quiet period costs
+ * little.
+ *
+ * Each id has at most one timer. Timers fire from {@link #advance(long)}, on the thread calling
+ * it, at most one tick late. Not thread safe.
+ */
+public class TimingWheel {
+	private static final int SLOT_BITS = 6;
+	private static final int SLOTS = 1 << SLOT_BITS;
+	private static final int SLOT_MASK = SLOTS - 1;
+	private static final int LEVELS = 6;
+	private static final long MAX_DELTA = (1L << (SLOT_BITS * LEVELS)) - 1;
+	private static final int NONE = -1;
+
+	private final long tickMillis;
+	private final ITimerWheelListener listener;
+
+	private final int[] heads = new int[LEVELS * SLOTS];
+	private final int[] levelCounts = new int[LEVELS];
+	private int[] next = new int[0];
+	private int[] prev = new int[0];
+	// slot of each id, or NONE when not scheduled
+	private int[] slots = new int[0];
+	private long[] deadlines = new long[0];
+
+	// last tick processed
+	private long currentTick;
+	private int size;
+
+	public TimingWheel(final long tickMillis, final long startTime, final ITimerWheelListener listener) {
+		if (tickMillis <= 0)
+			throw new IllegalArgumentException("tickMillis must be positive");
+		this.tickMillis = tickMillis;
+		this.listener = listener;
+		this.currentTick = Math.floorDiv(startTime, tickMillis);
+		Arrays.fill(heads, NONE);
+	}
+
+	/**
+	 * Schedule the timer of the id to fire at the given time, replacing any timer it already has.
+	 * A time that has already passed fires on the next advance.
+	 */
+	public void schedule(final int id, final long time) {
+		ensureId(id);
+		if (slots[id] != NONE)
+			unlink(id);
+		else
+			size++;
+		deadlines[id] = Math.max(Math.floorDiv(time, tickMillis), currentTick + 1);
+		place(id);
+	}
+
+	/**
+	 * @return true if the id had a timer
+	 */
+	public boolean cancel(final int id) {
+		if (!isScheduled(id))
+			return false;
+		unlink(id);
+		size--;
+		return true;
+	}
+
+	public boolean isScheduled(final int id) {
+		return id >= 0 && id < slots.length && slots[id] != NONE;
+	}
+
+	/**
+	 * @return time the timer of the id fires at, only meaningful while it is scheduled
+	 */
+	public long getDeadline(final int id) {
+		return deadlines[id] * tickMillis;
+	}
+
+	/**
+	 * Fire, in deadline order by tick, every timer due at or before the given time.
+	 *
+	 * @return number of timers fired
+	 */
+	public int advance(final long time) {
+		long targetTick = Math.floorDiv(time, tickMillis);
+		int fired = 0;
+		while (currentTick < targetTick) {
+			long boundary = emptyRotationEnd();
+			if (boundary > currentTick) {
+				if (boundary >= targetTick) {
+					currentTick = targetTick;
+					break;
+				}
+				currentTick = boundary;
+			}
+			currentTick++;
+			cascade(1);
+			fired += fire(time);
+		}
+		return fired;
+	}
+
+	/**
+	 * @return time the wheel was last advanced to, rounded down to a tick
+	 */
+	public long getCurrentTime() {
+		return currentTick * tickMillis;
+	}
+
+	/**
+	 * @return number of scheduled timers
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @return last tick that may be skipped because the rotations it ends hold no timer, or the
+	 *         current tick if the lowest level is not empty
+	 */
+	private long emptyRotationEnd() {
+		int level = 0;
+		while (level < LEVELS && levelCounts[level] == 0)
+			level++;
+		if (level == 0)
+			return currentTick;
+		if (level == LEVELS)
+			return Long.MAX_VALUE;
+		return currentTick | ((1L << (SLOT_BITS * level)) - 1);
+	}
+
+	// move the timers of every higher slot that comes due at the current tick down
+	private void cascade(final int level) {
+		if (level >= LEVELS || (currentTick & ((1L << (SLOT_BITS * level)) - 1)) != 0)
+			return;
+		cascade(level + 1);
+		int slot = level * SLOTS + (int) ((currentTick >>> (SLOT_BITS * level)) & SLOT_MASK);
+		int id = heads[slot];
+		heads[slot] = NONE;
+		while (id != NONE) {
+			int following = next[id];
+			levelCounts[level]--;
+			place(id);
+			id = following;
+		}
+	}
+
+	private int fire(final long time) {
+		int slot = (int) (currentTick & SLOT_MASK);
+		int fired = 0;
+		int id;
+		while ((id = heads[slot]) != NONE) {
+			unlink(id);
+			size--;
+			fired++;
+			listener.onExpired(id, time);
+		}
+		return fired;
+	}
+
+	private void place(final int id) {
+		long target = currentTick + Math.min(deadlines[id] - currentTick, MAX_DELTA);
+		int level = 0;
+		while (level < LEVELS - 1 && (target >>> (SLOT_BITS * (level + 1))) != (currentTick >>> (SLOT_BITS * (level + 1))))
+			level++;
+		int index = (int) ((target >>> (SLOT_BITS * level)) & SLOT_MASK);
+		// a deadline a full top rotation ahead waits in the slot before the current one
+		if (level == LEVELS - 1 && index == ((currentTick >>> (SLOT_BITS * level)) & SLOT_MASK))
+			index = (index - 1) & SLOT_MASK;
+		int slot = level * SLOTS + index;
+		int head = heads[slot];
+		next[id] = head;
+		prev[id] = NONE;
+		if (head != NONE)
+			prev[head] = id;
+		heads[slot] = id;
+		slots[id] = slot;
+		levelCounts[level]++;
+	}
+
+	private void unlink(final int id) {
+		int slot = slots[id];
+		if (prev[id] == NONE)
+			heads[slot] = next[id];
+		else
+			next[prev[id]] = next[id];
+		if (next[id] != NONE)
+			prev[next[id]] = prev[id];
+		slots[id] = NONE;
+		levelCounts[slot / SLOTS]--;
+	}
+
+	private void ensureId(final int id) {
+		if (id < 0)
+			throw new IllegalArgumentException("id must not be negative: " + id);
+		if (id < slots.length)
+			return;
+		int capacity = Math.max(id + 1, Math.max(16, slots.length << 1));
+		int previous = slots.length;
+		next = Arrays.copyOf(next, capacity);
+		prev = Arrays.copyOf(prev, capacity);
+		deadlines = Arrays.copyOf(deadlines, capacity);
+		slots = Arrays.copyOf(slots, capacity);
+		Arrays.fill(slots, previous, capacity, NONE);
+	}
+}
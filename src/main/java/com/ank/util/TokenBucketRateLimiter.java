@@ -0,0 +1,91 @@
+package com.ank.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket limiter.
+ *
+ * The bucket holds up to {@code capacity} tokens and refills at limit tokens per window; each
+ * request takes one. Instead of a token count and a refill time, the only state is the time at
+ * which the bucket would have been empty, in microseconds, from which the current count follows.
+ * Admission is therefore a single CAS and refill needs no background task.
+ *
+ * Only a capacity of 1 keeps the sliding window contract of {@link RingBufferRateLimiter}: a full
+ * bucket lets up to limit + capacity - 1 requests land within one window, so it is not a drop-in
+ * replacement then.
+ */
+public class TokenBucketRateLimiter implements IMarketDataLimiter {
+	private static final long MICROS_PER_MILLI = 1000L;
+
+	private final ITimer timer;
+	private final int limit;
+	private final long windowMillis;
+	private final int capacity;
+	// time to refill one token in microseconds, rounded up so the rate never exceeds the limit
+	private final long interval;
+
+	// time at which the bucket was empty, in microseconds; a full bucket starts far in the past
+	private final AtomicLong emptyTime = new AtomicLong(Long.MIN_VALUE);
+
+	/**
+	 * At most limit requests within any windowMillis, from a bucket of one token.
+	 */
+	public TokenBucketRateLimiter(final ITimer timer, final int limit, final long windowMillis) {
+		this(timer, limit, windowMillis, 1);
+	}
+
+	/**
+	 * @param capacity tokens the bucket holds; above 1 a sliding window may hold more than limit
+	 */
+	public TokenBucketRateLimiter(final ITimer timer, final int limit, final long windowMillis, final int capacity) {
+		if (limit <= 0 || windowMillis <= 0 || capacity <= 0)
+			throw new IllegalArgumentException("limit, window and capacity must be positive");
+		this.timer = timer;
+		this.limit = limit;
+		this.windowMillis = windowMillis;
+		this.capacity = capacity;
+		this.interval = (windowMillis * MICROS_PER_MILLI + limit - 1) / limit;
+	}
+
+	public boolean isNewDataAllowed() {
+		long now = timer.getCurrentTime() * MICROS_PER_MILLI;
+		for (;;) {
+			long empty = emptyTime.get();
+			// tokens beyond the capacity are lost
+			long start = Math.max(empty, now - capacity * interval);
+			if (now - start < interval)
+				return false;
+			if (emptyTime.compareAndSet(empty, start + interval))
+				return true;
+		}
+	}
+
+	@Override
+	public long getNextPermitTime(final long currentTime) {
+		long now = currentTime * MICROS_PER_MILLI;
+		long start = Math.max(emptyTime.get(), now - capacity * interval);
+		long refilled = start + interval;
+		return Math.max(currentTime, -Math.floorDiv(-refilled, MICROS_PER_MILLI));
+	}
+
+	/**
+	 * @return number of tokens in the bucket now
+	 */
+	public int getAvailableTokens() {
+		long now = timer.getCurrentTime() * MICROS_PER_MILLI;
+		long start = Math.max(emptyTime.get(), now - capacity * interval);
+		return (int) ((now - start) / interval);
+	}
+
+	public int getLimit() {
+		return limit;
+	}
+
+	public long getWindowMillis() {
+		return windowMillis;
+	}
+
+	public int getCapacity() {
+		return capacity;
+	}
+}
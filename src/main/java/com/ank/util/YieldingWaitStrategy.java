@@ -0,0 +1,13 @@
+package com.ank.util;
+
+/**
+ * Spin for a while, then yield the CPU to other threads between checks.
+ */
+public class YieldingWaitStrategy implements IWaitStrategy {
+    private static final int SPIN_TRIES = 100;
+
+    public void idle(int counter) {
+        if (counter >= SPIN_TRIES)
+            Thread.yield();
+    }
+}
@@ -0,0 +1,105 @@
+package com.ank;
+
+import static org.mockito.Mockito.when;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import com.ank.model.MarketData;
+import com.ank.processor.MarketDataProcessor;
+import com.ank.util.AdaptiveRateLimiter;
+import com.ank.util.MyTimer;
+
+@RunWith(MockitoJUnitRunner.class)
+public class AdaptiveRateLimiterTest {
+    @Mock
+    private MyTimer timer;
+
+    @Test
+    public void testFixedRateSpreadsPermits() {
+        AdaptiveRateLimiter rateLimiter = new AdaptiveRateLimiter(timer, 100, 100, 1000);
+        int accepted = 0;
+        for (long time = 1000; time < 2000; time++) {
+            when(timer.getCurrentTime()).thenReturn(time);
+            for (int i = 0; i < 5; i++) {
+                if (rateLimiter.isNewDataAllowed())
+                    accepted++;
+            }
+        }
+        Assert.assertEquals(100, accepted);
+        Assert.assertEquals(100, rateLimiter.getCurrentRate(), 0);
+    }
+
+    @Test
+    public void testRateGrowsWhileDownstreamKeepsUp() {
+        AdaptiveRateLimiter rateLimiter = new AdaptiveRateLimiter(timer, 100, 1000, 1000);
+        run(rateLimiter, 1000, 2000, 100_000L);
+        // nine adjustments of (1000 - 100) / 50
+        Assert.assertEquals(100 + 9 * 18, rateLimiter.getCurrentRate(), 0);
+        Assert.assertEquals(100_000L, rateLimiter.getLastMeanLatencyNanos());
+        run(rateLimiter, 2000, 10_000, 100_000L);
+        Assert.assertEquals(1000, rateLimiter.getCurrentRate(), 0);
+    }
+
+    @Test
+    public void testRateDropsWhenDownstreamSlows() {
+        AdaptiveRateLimiter rateLimiter = new AdaptiveRateLimiter(timer, 100, 1000, 1000);
+        run(rateLimiter, 1000, 10_000, 100_000L);
+        Assert.assertEquals(1000, rateLimiter.getCurrentRate(), 0);
+        run(rateLimiter, 10_000, 10_101, 5_000_000L);
+        Assert.assertEquals(750, rateLimiter.getCurrentRate(), 0);
+        run(rateLimiter, 10_101, 20_000, 5_000_000L);
+        Assert.assertEquals(100, rateLimiter.getCurrentRate(), 0);
+    }
+
+    @Test
+    public void testRateDropsOnFailures() {
+        AdaptiveRateLimiter rateLimiter = new AdaptiveRateLimiter(timer, 100, 1000, 1000);
+        run(rateLimiter, 1000, 10_000, 100_000L);
+        when(timer.getCurrentTime()).thenReturn(10_000L);
+        rateLimiter.onPublishFailed(100_000L);
+        when(timer.getCurrentTime()).thenReturn(10_100L);
+        rateLimiter.isNewDataAllowed();
+        Assert.assertEquals(750, rateLimiter.getCurrentRate(), 0);
+        Assert.assertEquals(1, rateLimiter.getFailedCount());
+    }
+
+    @Test
+    public void testProcessorReportsFailedPublish() {
+        when(timer.getCurrentTime()).thenReturn(1000L);
+        AdaptiveRateLimiter rateLimiter = new AdaptiveRateLimiter(timer, 100, 1000, 1000);
+        MarketDataProcessor processor = new MarketDataProcessor(timer, rateLimiter) {
+            @Override
+            public void publishAggregatedMarketData(MarketData data) {
+                throw new IllegalStateException("downstream unavailable");
+            }
+        };
+        try {
+            processor.onMessage(new MarketData("MSFT", 1, 2, 1, 0, 1000));
+            Assert.fail();
+        } catch (IllegalStateException e) {
+            Assert.assertEquals(1, rateLimiter.getFailedCount());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testFloorAboveCeiling() {
+        new AdaptiveRateLimiter(timer, 200, 100, 1000);
+    }
+
+    /**
+     * Five requests per millisecond, each accepted one published with the given latency.
+     */
+    private void run(AdaptiveRateLimiter rateLimiter, long from, long to, long latencyNanos) {
+        for (long time = from; time < to; time++) {
+            when(timer.getCurrentTime()).thenReturn(time);
+            for (int i = 0; i < 5; i++) {
+                if (rateLimiter.isNewDataAllowed())
+                    rateLimiter.onPublishCompleted(latencyNanos);
+            }
+        }
+    }
+}
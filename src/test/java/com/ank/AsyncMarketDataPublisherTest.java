@@ -0,0 +1,215 @@
+package com.ank;
+
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import com.ank.model.MarketData;
+import com.ank.processor.AsyncMarketDataPublisher;
+import com.ank.processor.MarketDataProcessor;
+import com.ank.util.AdaptiveRateLimiter;
+import com.ank.util.MyTimer;
+import com.ank.util.RingBufferRateLimiter;
+import com.ank.util.SimulatedTimer;
+
+@RunWith(MockitoJUnitRunner.class)
+public class AsyncMarketDataPublisherTest {
+    @Mock
+    private MyTimer timer;
+
+    @Test
+    public void testQueuedUpdateIsSuperseded() throws InterruptedException {
+        CountDownLatch sending = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<Long> sent = Collections.synchronizedList(new ArrayList<>());
+        AsyncMarketDataPublisher publisher = new AsyncMarketDataPublisher(data -> {
+            sending.countDown();
+            await(release);
+            sent.add(data.getUpdateTime());
+        }, 1);
+
+        publisher.publish(tick("MSFT", 1));
+        sending.await();
+        publisher.publish(tick("MSFT", 2));
+        publisher.publish(tick("MSFT", 3));
+        release.countDown();
+        publisher.close();
+
+        Assert.assertEquals(2, sent.size());
+        Assert.assertEquals(1L, (long) sent.get(0));
+        Assert.assertEquals(3L, (long) sent.get(1));
+        Assert.assertEquals(1, publisher.getSupersededCount());
+        Assert.assertEquals(2, publisher.getSentCount());
+    }
+
+    @Test
+    public void testInFlightIsBounded() throws InterruptedException {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        AsyncMarketDataPublisher publisher = new AsyncMarketDataPublisher(data -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            sleep(2);
+            running.decrementAndGet();
+        }, 2);
+        for (int i = 0; i < 20; i++) {
+            publisher.publish(tick("SYM" + i, 1000));
+        }
+        publisher.close();
+        Assert.assertEquals(20, publisher.getSentCount());
+        Assert.assertTrue(maxRunning.get() <= 2);
+        Assert.assertEquals(0, publisher.getInFlightCount());
+    }
+
+    @Test
+    public void testSymbolsStayInOrder() throws InterruptedException {
+        Map<String, List<Long>> sent = new HashMap<>();
+        AsyncMarketDataPublisher publisher = new AsyncMarketDataPublisher(data -> {
+            synchronized (sent) {
+                sent.computeIfAbsent(data.getSymbol(), symbol -> new ArrayList<>()).add(data.getUpdateTime());
+            }
+        }, 4);
+        MarketData tick = new MarketData();
+        for (int i = 0; i < 10_000; i++) {
+            // the same instance is reused for every update
+            publisher.publish(tick.set("SYM" + i % 5, 1, 2, 1, 0, i));
+        }
+        publisher.close();
+
+        Assert.assertEquals(5, sent.size());
+        for (List<Long> times : sent.values()) {
+            for (int i = 1; i < times.size(); i++) {
+                Assert.assertTrue(times.get(i) > times.get(i - 1));
+            }
+            // the latest update of every symbol is sent
+            Assert.assertTrue(times.get(times.size() - 1) >= 10_000 - 5);
+        }
+        Assert.assertEquals(10_000, publisher.getSentCount() + publisher.getSupersededCount());
+    }
+
+    @Test
+    public void testFailedSendDoesNotStopPublisher() throws InterruptedException {
+        AsyncMarketDataPublisher publisher = new AsyncMarketDataPublisher(data -> {
+            if (data.getUpdateTime() == 1)
+                throw new IllegalStateException("connection lost");
+        }, 1);
+        publisher.publish(tick("MSFT", 1));
+        Assert.assertTrue(publisher.awaitIdle(5000));
+        publisher.publish(tick("MSFT", 2));
+        publisher.close();
+        Assert.assertEquals(1, publisher.getFailedCount());
+        Assert.assertEquals(1, publisher.getSentCount());
+    }
+
+    @Test
+    public void testRejectedSendDoesNotLeakSlot() throws InterruptedException {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        executor.shutdown();
+        AsyncMarketDataPublisher publisher = new AsyncMarketDataPublisher(data -> {
+        }, 1, executor);
+        publisher.publish(tick("MSFT", 1));
+        publisher.publish(tick("MSFT", 2));
+        Assert.assertTrue(publisher.awaitIdle(5000));
+        Assert.assertEquals(0, publisher.getInFlightCount());
+        Assert.assertEquals(2, publisher.getFailedCount());
+        publisher.close();
+    }
+
+    @Test
+    public void testProcessorPublishesOffCallingThread() throws InterruptedException {
+        when(timer.getCurrentTime()).thenReturn(1000L);
+        List<String> threads = Collections.synchronizedList(new ArrayList<>());
+        MarketDataProcessor processor = new MarketDataProcessor(timer);
+        AsyncMarketDataPublisher publisher = new AsyncMarketDataPublisher(
+                data -> threads.add(Thread.currentThread().getName()), 2);
+        processor.setPublisher(publisher);
+        processor.onMessage(tick("MSFT", 1000));
+        processor.onMessage(tick("TSLA", 1000));
+        publisher.close();
+        Assert.assertEquals(2, threads.size());
+        Assert.assertFalse(threads.contains(Thread.currentThread().getName()));
+    }
+
+    @Test
+    public void testSendsArePacedBySendLimiter() throws InterruptedException {
+        SimulatedTimer clock = new SimulatedTimer(1000);
+        List<String> sent = Collections.synchronizedList(new ArrayList<>());
+        AsyncMarketDataPublisher publisher = new AsyncMarketDataPublisher(data -> sent.add(data.getSymbol()), 5,
+                new RingBufferRateLimiter(clock, 2, 1000));
+        for (int i = 0; i < 5; i++) {
+            publisher.publish(tick("SYM" + i, 1000));
+        }
+        Assert.assertFalse(publisher.awaitIdle(100));
+        Assert.assertEquals(2, sent.size());
+
+        clock.advance(1000);
+        Assert.assertFalse(publisher.awaitIdle(100));
+        Assert.assertEquals(4, sent.size());
+
+        clock.advance(1000);
+        Assert.assertTrue(publisher.awaitIdle(5000));
+        Assert.assertEquals(5, sent.size());
+        publisher.close();
+    }
+
+    @Test
+    public void testProcessorReportsSendsToAdaptiveLimiter() throws InterruptedException {
+        when(timer.getCurrentTime()).thenReturn(1000L);
+        AdaptiveRateLimiter limiter = new AdaptiveRateLimiter(timer, 100, 1000, 1000);
+        MarketDataProcessor processor = new MarketDataProcessor(timer, limiter);
+        AsyncMarketDataPublisher publisher = new AsyncMarketDataPublisher(data -> {
+            throw new IllegalStateException("connection lost");
+        }, 1);
+        processor.setPublisher(publisher);
+        processor.onMessage(tick("MSFT", 1000));
+        publisher.close();
+        Assert.assertEquals(1, limiter.getFailedCount());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testPublishAfterClose() throws InterruptedException {
+        AsyncMarketDataPublisher publisher = new AsyncMarketDataPublisher(data -> {
+        }, 1);
+        publisher.close();
+        publisher.publish(tick("MSFT", 1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidMaxInFlight() {
+        new AsyncMarketDataPublisher(data -> {
+        }, 0);
+    }
+
+    private static MarketData tick(String symbol, long updateTime) {
+        return new MarketData(symbol, 1, 2, 1, 0, updateTime);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
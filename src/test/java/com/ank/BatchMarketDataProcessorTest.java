@@ -0,0 +1,180 @@
+package com.ank;
+
+import static com.ank.MarketDataFixtures.getDummyMarketData;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import com.ank.journal.MarketDataJournal;
+import com.ank.journal.MarketDataJournalReader;
+import com.ank.metrics.ThrottleMetrics;
+import com.ank.model.AggregatedMarketData;
+import com.ank.processor.BatchMarketDataProcessor;
+import com.ank.util.IMarketDataLimiter;
+import com.ank.util.MyTimer;
+
+@RunWith(MockitoJUnitRunner.class)
+public class BatchMarketDataProcessorTest {
+    @Mock
+    private MyTimer timer;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final List<List<String>> batches = new ArrayList<>();
+
+    @Test
+    public void testFullBatchIsPublishedInOneCall() {
+        when(timer.getCurrentTime()).thenReturn(1000L);
+        BatchMarketDataProcessor processor = newProcessor(100, 50);
+        for (int i = 0; i < 500; i++) {
+            when(timer.getCurrentTime()).thenReturn(1000L + i / 100);
+            processor.onMessage(getDummyMarketData("SYM" + i, 1000));
+        }
+        Assert.assertEquals(5, batches.size());
+        Set<String> symbols = new HashSet<>();
+        for (List<String> batch : batches) {
+            Assert.assertEquals(100, batch.size());
+            symbols.addAll(batch);
+        }
+        Assert.assertEquals(500, symbols.size());
+        Assert.assertEquals(0, processor.getDirtyCount());
+    }
+
+    @Test
+    public void testFlushIntervalPublishesPartialBatch() {
+        when(timer.getCurrentTime()).thenReturn(1000L);
+        BatchMarketDataProcessor processor = newProcessor(100, 50);
+        processor.onMessage(getDummyMarketData("MSFT", 1000));
+        processor.onMessage(getDummyMarketData("TSLA", 1000));
+        processor.onMessage(getDummyMarketData("MSFT", 1010));
+        Assert.assertEquals(0, batches.size());
+
+        when(timer.getCurrentTime()).thenReturn(1050L);
+        processor.onMessage(getDummyMarketData("AAPL", 1050));
+        Assert.assertEquals(1, batches.size());
+        Assert.assertEquals(3, batches.get(0).size());
+        Assert.assertTrue(batches.get(0).contains("MSFT@1010"));
+    }
+
+    @Test
+    public void testSymbolWindowHoldsBackRepeatedSymbol() {
+        when(timer.getCurrentTime()).thenReturn(1000L);
+        BatchMarketDataProcessor processor = newProcessor(10, 0);
+        processor.onMessage(getDummyMarketData("MSFT", 1000));
+        Assert.assertEquals(1, batches.size());
+
+        when(timer.getCurrentTime()).thenReturn(1500L);
+        processor.onMessage(getDummyMarketData("MSFT", 1500));
+        processor.onMessage(getDummyMarketData("TSLA", 1500));
+        when(timer.getCurrentTime()).thenReturn(1501L);
+        processor.flush();
+        Assert.assertEquals(2, batches.size());
+        Assert.assertEquals(1, batches.get(1).size());
+        Assert.assertEquals("TSLA@1500", batches.get(1).get(0));
+
+        when(timer.getCurrentTime()).thenReturn(2001L);
+        Assert.assertEquals(1, processor.flush());
+        Assert.assertEquals("MSFT@1500", batches.get(2).get(0));
+        Assert.assertEquals(0, processor.getDirtyCount());
+    }
+
+    @Test
+    public void testRateLimitAppliesToPublishCalls() {
+        when(timer.getCurrentTime()).thenReturn(1000L);
+        BatchMarketDataProcessor processor = newProcessor(10, 1000);
+        for (int i = 0; i < 150; i++) {
+            when(timer.getCurrentTime()).thenReturn(1000L + i);
+            for (int j = 0; j < 10; j++) {
+                processor.onMessage(getDummyMarketData("SYM" + (i * 10 + j), 1000));
+            }
+        }
+        Assert.assertEquals(100, batches.size());
+        Assert.assertEquals(1000, publishedSymbols());
+        Assert.assertEquals(500, processor.getDirtyCount());
+    }
+
+    @Test
+    public void testRefusedFlushDoesNotWalkDirtySymbols() {
+        when(timer.getCurrentTime()).thenReturn(1000L);
+        IMarketDataLimiter limiter = mock(IMarketDataLimiter.class);
+        when(limiter.getSymbolWindowMillis(anyString())).thenReturn(1000L);
+        when(limiter.getNextPermitTime(anyLong())).thenReturn(2000L);
+        BatchMarketDataProcessor processor = new BatchMarketDataProcessor(timer, limiter, this::record, 10, 0);
+        processor.onMessage(getDummyMarketData("MSFT", 1000));
+        Assert.assertEquals(0, processor.flush());
+        Assert.assertEquals(1, processor.getDirtyCount());
+        verify(limiter, never()).isNewDataAllowed();
+        verify(limiter, never()).getSymbolWindowMillis(anyString());
+    }
+
+    @Test
+    public void testMetricsAndJournalCoverBatchPublishes() throws IOException {
+        when(timer.getCurrentTime()).thenReturn(1000L);
+        BatchMarketDataProcessor processor = newProcessor(10, 50);
+        Path path = folder.newFile("batch.journal").toPath();
+        try (MarketDataJournal journal = new MarketDataJournal(path, 1 << 16)) {
+            processor.setJournal(journal);
+            processor.onMessage(getDummyMarketData("MSFT", 990));
+            processor.onMessage(getDummyMarketData("MSFT", 980));
+            when(timer.getCurrentTime()).thenReturn(1050L);
+            processor.onMessage(getDummyMarketData("TSLA", 1050));
+            processor.setJournal(null);
+        }
+        ThrottleMetrics metrics = processor.getMetrics();
+        Assert.assertEquals(3, metrics.getTicksReceived());
+        Assert.assertEquals(2, metrics.getConflated());
+        Assert.assertEquals(1, metrics.getRejectedStale());
+        Assert.assertEquals(2, metrics.getTicksPublished());
+        Assert.assertEquals(50, metrics.getPublishLatencyMaxMillis());
+
+        List<Byte> types = new ArrayList<>();
+        try (MarketDataJournalReader reader = new MarketDataJournalReader(path)) {
+            while (reader.next()) {
+                types.add(reader.getType());
+            }
+        }
+        Assert.assertEquals(Arrays.asList(MarketDataJournal.TICK, MarketDataJournal.CONFLATED,
+                MarketDataJournal.TICK, MarketDataJournal.REJECT_STALE, MarketDataJournal.TICK,
+                MarketDataJournal.CONFLATED, MarketDataJournal.PUBLISH, MarketDataJournal.PUBLISH), types);
+    }
+
+    private BatchMarketDataProcessor newProcessor(int maxBatchSize, long flushIntervalMillis) {
+        return new BatchMarketDataProcessor(timer, this::record, maxBatchSize, flushIntervalMillis);
+    }
+
+    private void record(AggregatedMarketData data) {
+        List<String> batch = new ArrayList<>();
+        for (int i = 0; i < data.size(); i++) {
+            batch.add(data.get(i).getSymbol() + "@" + data.get(i).getUpdateTime());
+        }
+        batches.add(batch);
+    }
+
+    private int publishedSymbols() {
+        int count = 0;
+        for (List<String> batch : batches) {
+            count += batch.size();
+        }
+        return count;
+    }
+}
@@ -0,0 +1,128 @@
+package com.ank;
+
+import static org.mockito.Mockito.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import com.ank.feed.BinaryFeedCodec;
+import com.ank.feed.BinaryFeedDecoder;
+import com.ank.model.MarketData;
+import com.ank.processor.MarketDataProcessor;
+import com.ank.util.MyTimer;
+
+@RunWith(MockitoJUnitRunner.class)
+public class BinaryFeedDecoderTest {
+
+    @Mock
+    private MyTimer timer;
+
+    private final List<MarketData> decoded = new ArrayList<>();
+
+    private final BinaryFeedDecoder decoder = new BinaryFeedDecoder(data -> decoded.add(new MarketData(data)));
+
+    @Test
+    public void testDecodesSymbolsAndTicks() {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(1024).order(BinaryFeedCodec.BYTE_ORDER);
+        BinaryFeedCodec.putSymbol(buffer, 7, "MSFT");
+        BinaryFeedCodec.putTick(buffer, 7, 10001, 10002, 10001, 2, 1000);
+        BinaryFeedCodec.putTick(buffer, 8, 1, 1, 1, 0, 1000);
+        buffer.flip();
+
+        Assert.assertEquals(1, decoder.decode(buffer));
+        Assert.assertFalse(buffer.hasRemaining());
+        Assert.assertEquals(1, decoder.getUnknownSymbolCount());
+        MarketData data = decoded.get(0);
+        Assert.assertEquals("MSFT", data.getSymbol());
+        Assert.assertEquals(10002, data.getAskMantissa());
+        Assert.assertEquals(2, data.getPriceScale());
+        Assert.assertEquals(1000, data.getUpdateTime());
+    }
+
+    @Test
+    public void testPartialMessageLeftInBuffer() {
+        ByteBuffer buffer = ByteBuffer.allocate(1024).order(BinaryFeedCodec.BYTE_ORDER);
+        decoder.defineSymbol(1, "TSLA");
+        BinaryFeedCodec.putTick(buffer, 1, 5, 6, 5, 0, 1000);
+        BinaryFeedCodec.putTick(buffer, 1, 5, 6, 5, 0, 1001);
+        buffer.flip();
+        buffer.limit(BinaryFeedCodec.TICK_LENGTH + 10);
+
+        Assert.assertEquals(1, decoder.decode(buffer));
+        Assert.assertEquals(BinaryFeedCodec.TICK_LENGTH, buffer.position());
+        buffer.limit(2 * BinaryFeedCodec.TICK_LENGTH);
+        Assert.assertEquals(1, decoder.decode(buffer));
+        Assert.assertEquals(1001, decoded.get(1).getUpdateTime());
+    }
+
+    @Test
+    public void testReadsChannelAcrossBufferBoundaries() throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(200 * BinaryFeedCodec.TICK_LENGTH).order(BinaryFeedCodec.BYTE_ORDER);
+        BinaryFeedCodec.putSymbol(buffer, 0, "AAPL");
+        for (int i = 0; i < 150; i++) {
+            BinaryFeedCodec.putTick(buffer, 0, i, i + 1, i, 2, 1000 + i);
+        }
+        byte[] bytes = Arrays.copyOf(buffer.array(), buffer.position());
+
+        Assert.assertEquals(150, decoder.readFrom(Channels.newChannel(new ByteArrayInputStream(bytes))));
+        Assert.assertEquals(1149, decoded.get(149).getUpdateTime());
+    }
+
+    @Test
+    public void testFeedsProcessorDirectly() {
+        MarketDataProcessor processor = spy(new MarketDataProcessor(timer));
+        BinaryFeedDecoder processorDecoder = new BinaryFeedDecoder(processor::onMessage);
+        when(timer.getCurrentTime()).thenReturn(1000L);
+        ByteBuffer buffer = ByteBuffer.allocateDirect(4096).order(BinaryFeedCodec.BYTE_ORDER);
+        BinaryFeedCodec.putSymbol(buffer, 0, "MSFT");
+        for (int i = 0; i < 10; i++) {
+            BinaryFeedCodec.putTick(buffer, 0, 100 + i, 101 + i, 100 + i, 2, 1000 + i);
+        }
+        buffer.flip();
+
+        Assert.assertEquals(10, processorDecoder.decode(buffer));
+        verify(processor, times(1)).publishAggregatedMarketData(any());
+        Assert.assertEquals(1, processor.getPendingCount());
+    }
+
+    @Test
+    public void testSkipsOutOfRangeSymbolDefinitions() {
+        ByteBuffer buffer = ByteBuffer.allocate(1024).order(BinaryFeedCodec.BYTE_ORDER);
+        putSymbol(buffer, -1, "BAD");
+        putSymbol(buffer, Integer.MAX_VALUE - 1, "HUGE");
+        BinaryFeedCodec.putSymbol(buffer, 3, "MSFT");
+        BinaryFeedCodec.putTick(buffer, 3, 10001, 10002, 10001, 2, 1000);
+        buffer.flip();
+
+        Assert.assertEquals(1, decoder.decode(buffer));
+        Assert.assertFalse(buffer.hasRemaining());
+        Assert.assertEquals(2, decoder.getMalformedCount());
+        Assert.assertEquals("MSFT", decoded.get(0).getSymbol());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsCorruptLength() {
+        ByteBuffer buffer = ByteBuffer.allocate(16).order(BinaryFeedCodec.BYTE_ORDER);
+        buffer.putShort((short) 2).put(BinaryFeedCodec.TICK).put((byte) 0).putInt(0).putLong(0);
+        buffer.flip();
+        decoder.decode(buffer);
+    }
+
+    // the codec refuses to write an out of range id
+    private static void putSymbol(final ByteBuffer buffer, final int symbolId, final String symbol) {
+        buffer.putShort((short) (BinaryFeedCodec.HEADER_LENGTH + symbol.length())).put(BinaryFeedCodec.SYMBOL)
+                .put((byte) 0).putInt(symbolId).put(symbol.getBytes(StandardCharsets.US_ASCII));
+    }
+}
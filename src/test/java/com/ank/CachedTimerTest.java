@@ -0,0 +1,63 @@
+package com.ank;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.ank.util.CachedTimer;
+import com.ank.util.ITimer;
+import com.ank.util.MonotonicTimer;
+
+public class CachedTimerTest {
+
+    @Test
+    public void testFollowsSource() throws InterruptedException {
+        ManualTimer source = new ManualTimer(1000L);
+        try (CachedTimer timer = new CachedTimer(source, 1)) {
+            Assert.assertEquals(1000L, timer.getCurrentTime());
+            source.time = 1500L;
+            awaitTime(timer, 1500L);
+            Assert.assertEquals(1500L, timer.getCurrentTime());
+        }
+    }
+
+    @Test
+    public void testNeverMovesBackwards() throws InterruptedException {
+        ManualTimer source = new ManualTimer(1000L);
+        try (CachedTimer timer = new CachedTimer(source, 1)) {
+            source.time = 2000L;
+            awaitTime(timer, 2000L);
+            // wall clock step back
+            source.time = 1200L;
+            Thread.sleep(20);
+            Assert.assertEquals(2000L, timer.getCurrentTime());
+        }
+    }
+
+    @Test
+    public void testMonotonicTimer() throws InterruptedException {
+        MonotonicTimer timer = new MonotonicTimer();
+        long start = timer.getCurrentTime();
+        Assert.assertTrue(Math.abs(start - System.currentTimeMillis()) < 1000);
+        Thread.sleep(20);
+        Assert.assertTrue(timer.getCurrentTime() >= start + 19);
+    }
+
+    private static void awaitTime(CachedTimer timer, long time) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (timer.getCurrentTime() != time && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+        }
+    }
+
+    private static class ManualTimer implements ITimer {
+        private volatile long time;
+
+        private ManualTimer(long time) {
+            this.time = time;
+        }
+
+        public long getCurrentTime() {
+            return time;
+        }
+    }
+}
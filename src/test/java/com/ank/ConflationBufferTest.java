@@ -0,0 +1,60 @@
+package com.ank;
+
+import static com.ank.MarketDataFixtures.getDummyMarketData;
+
+import java.math.BigDecimal;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.ank.model.MarketData;
+import com.ank.processor.ConflationBuffer;
+
+public class ConflationBufferTest {
+
+    @Test
+    public void testKeepsOnlyLatestPerSymbol() {
+        ConflationBuffer buffer = new ConflationBuffer();
+        Assert.assertTrue(buffer.offer(getDummyMarketData("MSFT", 1000)));
+        Assert.assertTrue(buffer.offer(getDummyMarketData("MSFT", 1200)));
+        Assert.assertFalse(buffer.offer(getDummyMarketData("MSFT", 1100)));
+        Assert.assertEquals(1, buffer.size());
+        Assert.assertEquals(1200, buffer.peek().getUpdateTime());
+        buffer.remove();
+        Assert.assertNull(buffer.peek());
+    }
+
+    @Test
+    public void testFifoOrderAcrossSymbols() {
+        ConflationBuffer buffer = new ConflationBuffer();
+        buffer.offer(getDummyMarketData("MSFT", 1000));
+        buffer.offer(getDummyMarketData("TSLA", 1000));
+        buffer.offer(getDummyMarketData("MSFT", 1100));
+        Assert.assertEquals("MSFT", buffer.peek().getSymbol());
+        buffer.skip();
+        Assert.assertEquals("TSLA", buffer.peek().getSymbol());
+        buffer.remove();
+        Assert.assertEquals("MSFT", buffer.peek().getSymbol());
+        Assert.assertEquals(1100, buffer.peek().getUpdateTime());
+    }
+
+    @Test
+    public void testDiscardOnlyDropsOlderPending() {
+        ConflationBuffer buffer = new ConflationBuffer();
+        buffer.offer(getDummyMarketData("MSFT", 1000));
+        buffer.discard("MSFT", 900);
+        Assert.assertEquals(1, buffer.size());
+        buffer.discard("MSFT", 1000);
+        Assert.assertTrue(buffer.isEmpty());
+        Assert.assertNull(buffer.peek());
+    }
+
+    @Test
+    public void testOfferCopiesPooledTick() {
+        ConflationBuffer buffer = new ConflationBuffer();
+        MarketData tick = new MarketData("MSFT", 101, 102, 101, 2, 1000);
+        buffer.offer(tick);
+        tick.set("MSFT", 999, 999, 999, 2, 900);
+        Assert.assertEquals(1000, buffer.getPending("MSFT").getUpdateTime());
+        Assert.assertEquals(new BigDecimal("1.02"), buffer.getPending("MSFT").getAsk());
+    }}
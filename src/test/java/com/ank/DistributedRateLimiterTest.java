@@ -0,0 +1,184 @@
+package com.ank;
+
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import com.ank.cluster.BudgetCoordinator;
+import com.ank.cluster.DistributedRateLimiter;
+import com.ank.cluster.IBudgetTransport;
+import com.ank.cluster.InProcessBudgetTransport;
+import com.ank.cluster.LeaseGrant;
+import com.ank.cluster.TcpBudgetServer;
+import com.ank.cluster.TcpBudgetTransport;
+import com.ank.util.MyTimer;
+
+@RunWith(MockitoJUnitRunner.class)
+public class DistributedRateLimiterTest {
+    @Mock
+    private MyTimer timer;
+
+    @Test
+    public void testLimitHoldsAcrossNodes() {
+        when(timer.getCurrentTime()).thenReturn(1000L);
+        InProcessBudgetTransport transport = new InProcessBudgetTransport(new BudgetCoordinator(timer, 100, 1000, 50));
+        DistributedRateLimiter[] nodes = new DistributedRateLimiter[3];
+        for (int i = 0; i < nodes.length; i++) {
+            nodes[i] = new DistributedRateLimiter(timer, transport, "node" + i, 16, Runnable::run);
+        }
+        int accepted = 0;
+        for (int i = 0; i < 300; i++) {
+            if (nodes[i % 3].isNewDataAllowed())
+                accepted++;
+        }
+        Assert.assertEquals(100, accepted);
+    }
+
+    @Test
+    public void testLimitHoldsWhenLeaseHolderDies() {
+        when(timer.getCurrentTime()).thenReturn(1000L);
+        BudgetCoordinator coordinator = new BudgetCoordinator(timer, 100, 1000, 50);
+        InProcessBudgetTransport transport = new InProcessBudgetTransport(coordinator);
+        // leases 16 permits and is never heard of again
+        Assert.assertEquals(16, transport.acquire("dead", 16, 16).getPermits());
+
+        DistributedRateLimiter node = new DistributedRateLimiter(timer, transport, "node", 16, Runnable::run);
+        Assert.assertEquals(84, acceptAll(node));
+        // the dead node's permits stay counted until they leave the window, lease included
+        when(timer.getCurrentTime()).thenReturn(2049L);
+        Assert.assertEquals(0, acceptAll(node));
+        when(timer.getCurrentTime()).thenReturn(2050L);
+        Assert.assertEquals(100, acceptAll(node));
+    }
+
+    @Test
+    public void testUnusedPermitsExpire() {
+        when(timer.getCurrentTime()).thenReturn(1000L);
+        BudgetCoordinator coordinator = new BudgetCoordinator(timer, 100, 1000, 50);
+        DistributedRateLimiter node = new DistributedRateLimiter(timer, new InProcessBudgetTransport(coordinator),
+                "node", 16, Runnable::run);
+        for (int i = 0; i < 20; i++) {
+            node.isNewDataAllowed();
+        }
+        // leases of 1, 2, 2, 4 and 8 used up, 3 used out of a lease of 16
+        Assert.assertEquals(16, node.getLeaseSize());
+        Assert.assertEquals(13, node.getPermits());
+        when(timer.getCurrentTime()).thenReturn(1050L);
+        Assert.assertTrue(node.isNewDataAllowed());
+        Assert.assertEquals(13, node.getExpiredCount());
+        Assert.assertEquals(8, node.getLeaseSize());
+    }
+
+    @Test
+    public void testRefusedTicksDoNotReachCoordinator() {
+        when(timer.getCurrentTime()).thenReturn(1000L);
+        DistributedRateLimiter node = new DistributedRateLimiter(timer,
+                new InProcessBudgetTransport(new BudgetCoordinator(timer, 100, 1000, 50)), "node", 16, Runnable::run);
+        Assert.assertEquals(100, acceptAll(node));
+        long requests = node.getRequestCount();
+        for (int i = 0; i < 10_000; i++) {
+            Assert.assertFalse(node.isNewDataAllowed());
+        }
+        Assert.assertEquals(requests, node.getRequestCount());
+        Assert.assertEquals(2050, node.getNextPermitTime(1000));
+    }
+
+    @Test
+    public void testBudgetFollowsDemand() {
+        when(timer.getCurrentTime()).thenReturn(1000L);
+        BudgetCoordinator coordinator = new BudgetCoordinator(timer, 100, 1000, 50);
+        Assert.assertEquals(10, coordinator.acquire("quiet", 10, 10).getPermits());
+        // 90 left, shared 10 : 80 by the demand reported
+        Assert.assertEquals(80, coordinator.acquire("busy", 200, 80).getPermits());
+        Assert.assertEquals(2, coordinator.getNodeCount());
+        LeaseGrant grant = coordinator.acquire("quiet", 10, 10);
+        Assert.assertEquals(1, grant.getPermits());
+    }
+
+    @Test
+    public void testTransportFailureRefusesAndBacksOff() {
+        when(timer.getCurrentTime()).thenReturn(1000L);
+        IBudgetTransport broken = (nodeId, permits, demand) -> {
+            throw new IOException("coordinator down");
+        };
+        DistributedRateLimiter node = new DistributedRateLimiter(timer, broken, "node", 16, Runnable::run);
+        for (int i = 0; i < 100; i++) {
+            Assert.assertFalse(node.isNewDataAllowed());
+        }
+        Assert.assertEquals(1, node.getFailureCount());
+        Assert.assertEquals(1100, node.getNextPermitTime(1000));
+    }
+
+    @Test
+    public void testLeaseIsRequestedOffTheCallingThread() {
+        when(timer.getCurrentTime()).thenReturn(1000L);
+        List<Runnable> requests = new ArrayList<>();
+        DistributedRateLimiter node = new DistributedRateLimiter(timer,
+                new InProcessBudgetTransport(new BudgetCoordinator(timer, 100, 1000, 50)), "node", 16, requests::add);
+        // nothing leased yet, the caller is refused rather than waiting for the coordinator
+        Assert.assertFalse(node.isNewDataAllowed());
+        Assert.assertFalse(node.isNewDataAllowed());
+        Assert.assertEquals(1, requests.size());
+        Assert.assertEquals(0, node.getRequestCount());
+        requests.remove(0).run();
+        Assert.assertEquals(1000, node.getNextPermitTime(1000));
+
+        int accepted = 0;
+        int prefetched = 0;
+        for (int i = 0; i < 1000; i++) {
+            if (node.isNewDataAllowed())
+                accepted++;
+            if (!requests.isEmpty()) {
+                // the next block is asked for while the current one still has permits
+                if (node.getPermits() > 0)
+                    prefetched++;
+                requests.remove(0).run();
+            }
+        }
+        Assert.assertEquals(100, accepted);
+        Assert.assertTrue(prefetched > 0);
+        Assert.assertEquals(2050, node.getNextPermitTime(1000));
+    }
+
+    @Test
+    public void testTcpLoopback() throws IOException {
+        when(timer.getCurrentTime()).thenReturn(1000L);
+        BudgetCoordinator coordinator = new BudgetCoordinator(timer, 100, 1000, 50);
+        try (TcpBudgetServer server = new TcpBudgetServer(coordinator,
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+                TcpBudgetTransport first = new TcpBudgetTransport(
+                        new InetSocketAddress(InetAddress.getLoopbackAddress(), server.getPort()), 5000);
+                TcpBudgetTransport second = new TcpBudgetTransport(
+                        new InetSocketAddress(InetAddress.getLoopbackAddress(), server.getPort()), 5000)) {
+            server.start();
+            DistributedRateLimiter node1 = new DistributedRateLimiter(timer, first, "node1", 16, Runnable::run);
+            DistributedRateLimiter node2 = new DistributedRateLimiter(timer, second, "node2", 16, Runnable::run);
+            int accepted = 0;
+            for (int i = 0; i < 300; i++) {
+                if ((i % 2 == 0 ? node1 : node2).isNewDataAllowed())
+                    accepted++;
+            }
+            Assert.assertEquals(100, accepted);
+            Assert.assertEquals(0, node1.getFailureCount() + node2.getFailureCount());
+        }
+    }
+
+    private static int acceptAll(DistributedRateLimiter node) {
+        int accepted = 0;
+        for (int i = 0; i < 1000; i++) {
+            if (node.isNewDataAllowed())
+                accepted++;
+        }
+        return accepted;
+    }
+}
@@ -0,0 +1,75 @@
+package com.ank;
+
+import static org.mockito.Mockito.when;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import com.ank.util.GcraRateLimiter;
+import com.ank.util.MyTimer;
+
+@RunWith(MockitoJUnitRunner.class)
+public class GcraRateLimiterTest {
+    @Mock
+    private MyTimer timer;
+
+    @Test
+    public void testRequestsAreSpacedWithoutBurst() {
+        GcraRateLimiter rateLimiter = new GcraRateLimiter(timer, 100, 1000, 1);
+        when(timer.getCurrentTime()).thenReturn(1000L);
+        Assert.assertTrue(rateLimiter.isNewDataAllowed());
+        Assert.assertFalse(rateLimiter.isNewDataAllowed());
+        Assert.assertEquals(1010, rateLimiter.getNextPermitTime(1000));
+        when(timer.getCurrentTime()).thenReturn(1009L);
+        Assert.assertFalse(rateLimiter.isNewDataAllowed());
+        when(timer.getCurrentTime()).thenReturn(1010L);
+        Assert.assertTrue(rateLimiter.isNewDataAllowed());
+    }
+
+    @Test
+    public void testBurstThenSteadyRate() {
+        GcraRateLimiter rateLimiter = new GcraRateLimiter(timer, 100, 1000, 10);
+        when(timer.getCurrentTime()).thenReturn(1000L);
+        for (int i = 0; i < 10; i++) {
+            Assert.assertTrue(rateLimiter.isNewDataAllowed());
+        }
+        Assert.assertFalse(rateLimiter.isNewDataAllowed());
+        Assert.assertEquals(1010, rateLimiter.getNextPermitTime(1000));
+
+        // one permit per emission interval once the burst is used up
+        when(timer.getCurrentTime()).thenReturn(1010L);
+        Assert.assertTrue(rateLimiter.isNewDataAllowed());
+        Assert.assertFalse(rateLimiter.isNewDataAllowed());
+
+        // idle long enough to earn the whole burst back, but no more
+        when(timer.getCurrentTime()).thenReturn(5000L);
+        for (int i = 0; i < 10; i++) {
+            Assert.assertTrue(rateLimiter.isNewDataAllowed());
+        }
+        Assert.assertFalse(rateLimiter.isNewDataAllowed());
+    }
+
+    @Test
+    public void testNextPermitTimeWhenIdle() {
+        GcraRateLimiter rateLimiter = new GcraRateLimiter(timer, 100, 1000, 1);
+        Assert.assertEquals(1000, rateLimiter.getNextPermitTime(1000));
+        when(timer.getCurrentTime()).thenReturn(1000L);
+        Assert.assertTrue(rateLimiter.isNewDataAllowed());
+        Assert.assertEquals(2000, rateLimiter.getNextPermitTime(2000));
+    }
+
+    @Test
+    public void testFractionalIntervalNeverExceedsLimit() {
+        GcraRateLimiter rateLimiter = new GcraRateLimiter(timer, 3, 1000, 1);
+        int accepted = 0;
+        for (long time = 0; time < 1000; time++) {
+            when(timer.getCurrentTime()).thenReturn(time);
+            if (rateLimiter.isNewDataAllowed())
+                accepted++;
+        }
+        Assert.assertEquals(3, accepted);
+    }
+}
@@ -0,0 +1,66 @@
+package com.ank;
+
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.ank.util.IndexedLongHeap;
+
+public class IndexedLongHeapTest {
+
+    @Test
+    public void testPollsLargestKeyFirst() {
+        IndexedLongHeap heap = new IndexedLongHeap(2);
+        heap.put(3, 30);
+        heap.put(1, 10);
+        heap.put(7, 70);
+        heap.put(5, 50);
+        Assert.assertEquals(4, heap.size());
+        Assert.assertEquals(7, heap.poll());
+        Assert.assertEquals(5, heap.poll());
+        Assert.assertEquals(3, heap.poll());
+        Assert.assertEquals(1, heap.poll());
+        Assert.assertEquals(-1, heap.poll());
+        Assert.assertTrue(heap.isEmpty());
+    }
+
+    @Test
+    public void testUpdateAndRemoveArbitraryId() {
+        IndexedLongHeap heap = new IndexedLongHeap();
+        heap.put(0, 10);
+        heap.put(1, 20);
+        heap.put(2, 30);
+        heap.put(0, 40);
+        Assert.assertEquals(0, heap.peek());
+        Assert.assertEquals(40, heap.peekKey());
+        Assert.assertTrue(heap.remove(0));
+        Assert.assertFalse(heap.remove(0));
+        Assert.assertFalse(heap.contains(0));
+        heap.put(2, 5);
+        Assert.assertEquals(1, heap.poll());
+        Assert.assertEquals(2, heap.poll());
+    }
+
+    @Test
+    public void testMatchesSortOrderUnderRandomUpdates() {
+        Random random = new Random(7);
+        IndexedLongHeap heap = new IndexedLongHeap();
+        long[] keys = new long[500];
+        for (int i = 0; i < 5000; i++) {
+            int id = random.nextInt(keys.length);
+            if (random.nextInt(4) == 0) {
+                heap.remove(id);
+            } else {
+                keys[id] = random.nextInt(1000);
+                heap.put(id, keys[id]);
+            }
+        }
+        long previous = Long.MAX_VALUE;
+        while (!heap.isEmpty()) {
+            int id = heap.poll();
+            Assert.assertTrue(keys[id] <= previous);
+            previous = keys[id];
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.ank;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.ank.model.MarketData;
+import com.ank.processor.LastValueCache;
+
+public class LastValueCacheTest {
+
+    @Test
+    public void testLatestValue() {
+        LastValueCache cache = new LastValueCache();
+        Assert.assertNull(cache.get("MSFT"));
+        cache.update(new MarketData("MSFT", 101, 102, 101, 2, 1000));
+        cache.update(new MarketData("MSFT", 103, 104, 103, 2, 1001));
+        MarketData value = cache.get("MSFT");
+        Assert.assertEquals(103, value.getBidMantissa());
+        Assert.assertEquals(104, value.getAskMantissa());
+        Assert.assertEquals(2, value.getPriceScale());
+        Assert.assertEquals(1001, value.getUpdateTime());
+    }
+
+    @Test
+    public void testOlderDataIsIgnored() {
+        LastValueCache cache = new LastValueCache();
+        cache.update(new MarketData("MSFT", 103, 104, 103, 2, 1001));
+        cache.update(new MarketData("MSFT", 101, 102, 101, 2, 1000));
+        Assert.assertEquals(1001, cache.get("MSFT").getUpdateTime());
+    }
+
+    @Test
+    public void testSnapshot() {
+        LastValueCache cache = new LastValueCache();
+        cache.update(new MarketData("MSFT", 101, 102, 101, 2, 1000));
+        cache.update(new MarketData("TSLA", 201, 202, 201, 2, 1000));
+        List<MarketData> snapshot = cache.snapshot();
+        Assert.assertEquals(2, snapshot.size());
+        Assert.assertNotSame(snapshot.get(0), snapshot.get(1));
+
+        cache.remove("MSFT");
+        Assert.assertNull(cache.get("MSFT"));
+        Assert.assertEquals(1, cache.forEach(data -> Assert.assertEquals("TSLA", data.getSymbol())));
+    }
+
+    @Test
+    public void testReadersNeverSeeTornValues() throws InterruptedException {
+        LastValueCache cache = new LastValueCache();
+        cache.update(new MarketData("MSFT", 0, 0, 0, 0, 0));
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicLong torn = new AtomicLong();
+        Thread reader = new Thread(() -> {
+            MarketData value = new MarketData();
+            while (running.get()) {
+                cache.read("MSFT", value);
+                long time = value.getUpdateTime();
+                if (value.getBidMantissa() != time || value.getAskMantissa() != time
+                        || value.getLastMantissa() != time)
+                    torn.incrementAndGet();
+            }
+        });
+        reader.start();
+        MarketData tick = new MarketData();
+        for (long i = 1; i <= 1_000_000; i++) {
+            cache.update(tick.set("MSFT", i, i, i, 0, i));
+        }
+        running.set(false);
+        reader.join();
+        Assert.assertEquals(0, torn.get());
+        Assert.assertEquals(1_000_000, cache.get("MSFT").getUpdateTime());
+    }
+}
@@ -0,0 +1,46 @@
+package com.ank;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.ank.metrics.LatencyHistogram;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void testSmallValuesAreExact() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 100; i++) {
+            histogram.record(i);
+        }
+        Assert.assertEquals(100, histogram.getCount());
+        Assert.assertEquals(50, histogram.getValueAtPercentile(50));
+        Assert.assertEquals(99, histogram.getValueAtPercentile(99));
+        Assert.assertEquals(100, histogram.getValueAtPercentile(100));
+        Assert.assertEquals(50.5, histogram.getMean(), 0.0001);
+    }
+
+    @Test
+    public void testLargeValuesWithinRelativeError() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        long[] values = {1000, 123456, 98765432L, Long.MAX_VALUE / 3};
+        for (long value : values) {
+            histogram.reset();
+            histogram.record(value);
+            histogram.record(0);
+            long reported = histogram.getValueAtPercentile(50);
+            Assert.assertEquals(0, reported);
+            reported = histogram.getValueAtPercentile(100);
+            Assert.assertTrue(reported <= value && reported >= value - value / 64);
+        }
+    }
+
+    @Test
+    public void testNegativeRecordedAsZeroAndEmptyIsZero() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        Assert.assertEquals(0, histogram.getValueAtPercentile(99));
+        histogram.record(-5);
+        Assert.assertEquals(0, histogram.getMax());
+        Assert.assertEquals(1, histogram.getCount());
+    }
+}
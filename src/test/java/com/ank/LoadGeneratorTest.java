@@ -0,0 +1,94 @@
+package com.ank;
+
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.ank.simulation.LoadGenerator;
+import com.ank.simulation.LoadProfile;
+import com.ank.simulation.ThrottleQualityReport;
+import com.ank.simulation.ZipfDistribution;
+import com.ank.util.GcraRateLimiter;
+import com.ank.util.RingBufferRateLimiter;
+import com.ank.util.SlidingWindowRateLimiter;
+import com.ank.util.TokenBucketRateLimiter;
+
+public class LoadGeneratorTest {
+
+    private static final LoadProfile PROFILE = new LoadProfile(500, 1.0, 50_000, 5_000, 1000, 100, 10, 42);
+
+    @Test
+    public void testExactLimiterHasNoViolations() {
+        ThrottleQualityReport report = new LoadGenerator(PROFILE)
+                .run(timer -> new RingBufferRateLimiter(timer, 100, 1000), 100, 1000);
+        Assert.assertTrue(report.getTicks() > 250_000);
+        Assert.assertEquals(0, report.getRateViolations());
+        Assert.assertEquals(0, report.getSymbolWindowViolations());
+        // every symbol's latest tick is eventually published
+        Assert.assertEquals(report.getSymbolsTicked(), report.getSymbolsUpToDate());
+        Assert.assertEquals(100.0, report.getUpToDatePercent(), 0);
+        Assert.assertTrue(report.getMaxStalenessMillis() > 1000);
+    }
+
+    @Test
+    public void testRunIsDeterministic() {
+        ThrottleQualityReport first = new LoadGenerator(PROFILE)
+                .run(timer -> new RingBufferRateLimiter(timer, 100, 1000), 100, 1000);
+        ThrottleQualityReport second = new LoadGenerator(PROFILE)
+                .run(timer -> new RingBufferRateLimiter(timer, 100, 1000), 100, 1000);
+        Assert.assertEquals(first.getTicks(), second.getTicks());
+        Assert.assertEquals(first.getPublishes(), second.getPublishes());
+        Assert.assertEquals(first.getMaxStalenessMillis(), second.getMaxStalenessMillis());
+        Assert.assertEquals(first.getSimulatedMillis(), second.getSimulatedMillis());
+    }
+
+    /**
+     * Short bursts out of phase with the second boundaries: a burst late in one second fills its
+     * window, and the weighted approximation lets part of the next burst through too early.
+     */
+    @Test
+    public void testOracleCatchesApproximateWindow() {
+        LoadProfile bursts = new LoadProfile(120, 0, 1, 20_000, 2300, 100, 100_000, 42);
+        Assert.assertTrue(new LoadGenerator(bursts).run(SlidingWindowRateLimiter::new, 100, 1000).getRateViolations() > 0);
+        Assert.assertEquals(0, new LoadGenerator(bursts)
+                .run(timer -> new RingBufferRateLimiter(timer, 100, 1000), 100, 1000).getRateViolations());
+    }
+
+    @Test
+    public void testSpacedLimitersKeepWindowOnlyWithoutBurst() {
+        LoadProfile bursts = new LoadProfile(120, 0, 1, 20_000, 2300, 100, 100_000, 42);
+        Assert.assertEquals(0, new LoadGenerator(bursts)
+                .run(timer -> new GcraRateLimiter(timer, 100, 1000), 100, 1000).getRateViolations());
+        Assert.assertEquals(0, new LoadGenerator(bursts)
+                .run(timer -> new TokenBucketRateLimiter(timer, 100, 1000), 100, 1000).getRateViolations());
+        Assert.assertTrue(new LoadGenerator(bursts)
+                .run(timer -> new GcraRateLimiter(timer, 100, 1000, 10), 100, 1000).getRateViolations() > 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSlidingWindowRejectsLimitsItDoesNotApply() {
+        LoadGenerator.main(new String[] { "limiter=slidingWindow", "limit=50" });
+    }
+
+    @Test
+    public void testZipfPopularity() {
+        ZipfDistribution zipf = new ZipfDistribution(100, 1.0, new Random(1));
+        int[] counts = new int[100];
+        for (int i = 0; i < 100_000; i++) {
+            counts[zipf.next()]++;
+        }
+        Assert.assertTrue(counts[0] > counts[1]);
+        Assert.assertTrue(counts[1] > counts[10]);
+        Assert.assertEquals(zipf.probability(0), counts[0] / 100_000.0, 0.01);
+        // rank 0 is drawn twice as often as rank 1
+        Assert.assertEquals(2 * zipf.probability(1), zipf.probability(0), 1e-9);
+    }
+
+    @Test
+    public void testBurstProfile() {
+        Assert.assertEquals(500_000, PROFILE.getTickRate(50), 0);
+        Assert.assertEquals(50_000, PROFILE.getTickRate(150), 0);
+        Assert.assertEquals(500_000, PROFILE.getTickRate(1050), 0);
+    }
+}
@@ -0,0 +1,18 @@
+package com.ank;
+
+import java.math.BigDecimal;
+
+import com.ank.model.MarketData;
+
+/**
+ * Market data shared by the tests.
+ */
+final class MarketDataFixtures {
+
+    private MarketDataFixtures() {
+    }
+
+    static MarketData getDummyMarketData(final String symbol, final long updateTime) {
+        return new MarketData(symbol, BigDecimal.ONE, BigDecimal.ONE, BigDecimal.ONE, updateTime);
+    }
+}
@@ -0,0 +1,101 @@
+package com.ank;
+
+import static com.ank.MarketDataFixtures.getDummyMarketData;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.ank.model.MarketData;
+import com.ank.processor.MarketDataIngestPipeline;
+import com.ank.processor.MarketDataProcessor;
+import com.ank.util.BusySpinWaitStrategy;
+import com.ank.util.ParkingWaitStrategy;
+import com.ank.util.RingBufferRateLimiter;
+import com.ank.util.SimulatedTimer;
+import com.ank.util.YieldingWaitStrategy;
+
+public class MarketDataIngestPipelineTest {
+
+    // plain timer rather than a mock, it is read by the consumer thread while the test moves it
+    private final SimulatedTimer timer = new SimulatedTimer(1000L);
+
+    @Test
+    public void testTicksArePublishedByConsumer() throws InterruptedException {
+        RecordingProcessor processor = new RecordingProcessor(timer);
+        MarketDataIngestPipeline pipeline = new MarketDataIngestPipeline(processor, 8, new BusySpinWaitStrategy());
+        pipeline.start();
+        MarketData tick = new MarketData();
+        for (int i = 0; i < 50; i++) {
+            // the same instance is reused for every tick
+            pipeline.onMessage(tick.set("SYM" + i, 1, 2, 1, 0, 1000));
+        }
+        pipeline.close();
+        Assert.assertEquals(50, pipeline.getProcessedCount());
+        Assert.assertEquals(0, pipeline.getQueueDepth());
+        Assert.assertEquals(50, processor.published.size());
+        for (int i = 0; i < 50; i++) {
+            Assert.assertEquals("SYM" + i + "@1000", processor.published.get(i));
+        }
+    }
+
+    @Test
+    public void testSlowConsumerBacksUpProducer() throws InterruptedException {
+        RecordingProcessor processor = new RecordingProcessor(timer, new RingBufferRateLimiter(timer), 1);
+        MarketDataIngestPipeline pipeline = new MarketDataIngestPipeline(processor, 2, new YieldingWaitStrategy());
+        pipeline.start();
+        for (int i = 0; i < 20; i++) {
+            pipeline.onMessage(getDummyMarketData("SYM" + i, 1000));
+        }
+        pipeline.close();
+        Assert.assertEquals(20, processor.published.size());
+        Assert.assertTrue(pipeline.getProducerWaitCount() > 0);
+        Assert.assertTrue(pipeline.getProducerWaitNanos() > 0);
+        Assert.assertEquals(2, pipeline.getMaxQueueDepth());
+    }
+
+    @Test
+    public void testConsumerDrainsPendingWhileIdle() throws InterruptedException {
+        RecordingProcessor processor = new RecordingProcessor(timer);
+        MarketDataIngestPipeline pipeline = new MarketDataIngestPipeline(processor, 8,
+                new ParkingWaitStrategy(100_000));
+        pipeline.start();
+        pipeline.onMessage(getDummyMarketData("MSFT", 1000));
+        pipeline.onMessage(getDummyMarketData("MSFT", 1001));
+        while (pipeline.getQueueDepth() > 0) {
+            Thread.sleep(1);
+        }
+        timer.setCurrentTime(2001L);
+        long deadline = System.currentTimeMillis() + 5000;
+        while (processor.published.size() < 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+        }
+        pipeline.close();
+        Assert.assertEquals(2, processor.published.size());
+    }
+
+    @Test
+    public void testFullRingWithoutConsumerDropsTicks() throws InterruptedException {
+        RecordingProcessor processor = new RecordingProcessor(timer);
+        MarketDataIngestPipeline pipeline = new MarketDataIngestPipeline(processor, 4, new BusySpinWaitStrategy());
+        for (int i = 0; i < 6; i++) {
+            pipeline.onMessage(getDummyMarketData("SYM" + i, 1000));
+        }
+        Assert.assertEquals(2, pipeline.getDroppedCount());
+        Assert.assertEquals(4, pipeline.getQueueDepth());
+        Assert.assertEquals(4, pipeline.getMaxQueueDepth());
+
+        pipeline.start();
+        pipeline.close();
+        Assert.assertEquals(4, processor.published.size());
+        for (int i = 0; i < 5; i++) {
+            pipeline.onMessage(getDummyMarketData("LATE" + i, 1000));
+        }
+        Assert.assertEquals(3, pipeline.getDroppedCount());
+        Assert.assertEquals(4, processor.published.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBufferSizeMustBePowerOfTwo() {
+        new MarketDataIngestPipeline(new MarketDataProcessor(timer), 6, new BusySpinWaitStrategy());
+    }
+}
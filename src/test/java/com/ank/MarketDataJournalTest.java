@@ -0,0 +1,138 @@
+package com.ank;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.ank.journal.JournalReplay;
+import com.ank.journal.MarketDataJournal;
+import com.ank.journal.MarketDataJournalReader;
+import com.ank.model.MarketData;
+import com.ank.util.RingBufferRateLimiter;
+import com.ank.util.SimulatedTimer;
+
+public class MarketDataJournalTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testRecordsReadBackAcrossChunks() throws IOException {
+        Path path = folder.newFile("ticks.journal").toPath();
+        try (MarketDataJournal journal = new MarketDataJournal(path, 256)) {
+            for (int i = 0; i < 100; i++) {
+                MarketData data = new MarketData("SYM" + (i % 7), 100 + i, 101 + i, 100 + i, 2, 1000 + i);
+                journal.appendTick(2000 + i, data);
+                journal.appendDecision(MarketDataJournal.PUBLISH, 2000 + i, data);
+            }
+            journal.appendDrain(3000);
+            Assert.assertEquals(0, journal.getDroppedCount());
+        }
+
+        MarketData data = new MarketData();
+        try (MarketDataJournalReader reader = new MarketDataJournalReader(path)) {
+            for (int i = 0; i < 100; i++) {
+                Assert.assertTrue(reader.next());
+                Assert.assertEquals(MarketDataJournal.TICK, reader.getType());
+                Assert.assertEquals(2000 + i, reader.getTime());
+                reader.readMarketData(data);
+                Assert.assertEquals("SYM" + (i % 7), data.getSymbol());
+                Assert.assertEquals(101 + i, data.getAskMantissa());
+                Assert.assertEquals(2, data.getPriceScale());
+                Assert.assertEquals(1000 + i, data.getUpdateTime());
+
+                Assert.assertTrue(reader.next());
+                Assert.assertEquals(MarketDataJournal.PUBLISH, reader.getType());
+                Assert.assertEquals("SYM" + (i % 7), reader.getSymbol());
+                Assert.assertEquals(1000 + i, reader.getUpdateTime());
+            }
+            Assert.assertTrue(reader.next());
+            Assert.assertEquals(MarketDataJournal.DRAIN, reader.getType());
+            Assert.assertEquals(3000, reader.getTime());
+            Assert.assertFalse(reader.next());
+        }
+    }
+
+    @Test
+    public void testOverlongSymbolIsDropped() throws IOException {
+        Path path = folder.newFile("long.journal").toPath();
+        StringBuilder symbol = new StringBuilder();
+        for (int i = 0; i <= Short.MAX_VALUE; i++)
+            symbol.append('X');
+        try (MarketDataJournal journal = new MarketDataJournal(path, 4096)) {
+            MarketData data = new MarketData(symbol.toString(), 100, 101, 100, 2, 1000);
+            journal.appendTick(2000, data);
+            journal.appendDecision(MarketDataJournal.PUBLISH, 2000, data);
+            journal.appendTick(2001, new MarketData("MSFT", 100, 101, 100, 2, 1001));
+            Assert.assertEquals(2, journal.getDroppedCount());
+        }
+
+        try (MarketDataJournalReader reader = new MarketDataJournalReader(path)) {
+            Assert.assertTrue(reader.next());
+            Assert.assertEquals("MSFT", reader.getSymbol());
+            Assert.assertFalse(reader.next());
+        }
+    }
+
+    @Test
+    public void testReplayReproducesDecisions() throws IOException {
+        Path path = folder.newFile("replay.journal").toPath();
+        SimulatedTimer timer = new SimulatedTimer(1000);
+        RecordingProcessor production = newProcessor(timer, 5, 100);
+        try (MarketDataJournal journal = new MarketDataJournal(path, 4096)) {
+            production.setJournal(journal);
+            for (int i = 0; i < 500; i++) {
+                timer.advance(i % 3);
+                production.onMessage(new MarketData("SYM" + (i % 13), 100, 101, 100, 2, timer.getCurrentTime()));
+                if (i % 50 == 0)
+                    production.drainPending();
+            }
+            production.setJournal(null);
+        }
+
+        SimulatedTimer replayTimer = new SimulatedTimer(0);
+        RecordingProcessor replayed = newProcessor(replayTimer, 5, 100);
+        JournalReplay replay = new JournalReplay(path);
+        Assert.assertEquals(500, replay.replay(replayed, replayTimer));
+        Assert.assertEquals(production.published.size(), replay.getJournaledCount(MarketDataJournal.PUBLISH));
+        Assert.assertEquals(production.published, replayed.published);
+        Assert.assertEquals(production.getMetrics().getConflated(), replayed.getMetrics().getConflated());
+    }
+
+    @Test
+    public void testReplayRepeatsDrainsThatPublishNothing() throws IOException {
+        Path path = folder.newFile("empty-drain.journal").toPath();
+        SimulatedTimer timer = new SimulatedTimer(1000);
+        RecordingProcessor production = newProcessor(timer, 1, 1000);
+        try (MarketDataJournal journal = new MarketDataJournal(path, 4096)) {
+            production.setJournal(journal);
+            production.onMessage(new MarketData("MSFT", 100, 101, 100, 2, 1000));
+            timer.setCurrentTime(1500);
+            production.onMessage(new MarketData("MSFT", 100, 101, 100, 2, 1500));
+            production.onMessage(new MarketData("TSLA", 100, 101, 100, 2, 1500));
+            // MSFT is skipped behind TSLA, then the limiter refuses TSLA
+            timer.setCurrentTime(1600);
+            Assert.assertEquals(0, production.drainPending());
+            timer.setCurrentTime(2500);
+            Assert.assertEquals(1, production.drainPending());
+            production.setJournal(null);
+        }
+        Assert.assertEquals("TSLA@1500", production.published.get(1));
+
+        SimulatedTimer replayTimer = new SimulatedTimer(0);
+        RecordingProcessor replayed = newProcessor(replayTimer, 1, 1000);
+        JournalReplay replay = new JournalReplay(path);
+        replay.replay(replayed, replayTimer);
+        Assert.assertEquals(2, replay.getJournaledCount(MarketDataJournal.DRAIN));
+        Assert.assertEquals(production.published, replayed.published);
+    }
+
+    private static RecordingProcessor newProcessor(final SimulatedTimer timer, final int limit,
+            final long windowMillis) {
+        return new RecordingProcessor(timer, new RingBufferRateLimiter(timer, limit, windowMillis));
+    }
+}
@@ -3,14 +3,18 @@ package com.ank;
 import static org.mockito.Mockito.*;
 
 import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.List;
 import java.util.Random;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
+import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
@@ -21,8 +25,13 @@ import org.slf4j.LoggerFactory;
 
 import com.github.javafaker.Faker;
 import com.ank.model.MarketData;
+import com.ank.processor.DrainPriority;
 import com.ank.processor.MarketDataProcessor;
+import com.ank.processor.SignificantChangeFilter;
+import com.ank.util.GcraRateLimiter;
 import com.ank.util.MyTimer;
+import com.ank.util.RingBufferRateLimiter;
+import com.ank.util.SimulatedTimer;
 import com.ank.util.SlidingWindowRateLimiter;
 
 @RunWith(MockitoJUnitRunner.class)
@@ -37,13 +46,13 @@ public final class MarketDataProcessorTest {
     @InjectMocks
     private SlidingWindowRateLimiter rateLimiter;
 
-    @Spy
-    @InjectMocks
     private MarketDataProcessor marketDataProcessor;
 
     @Before
     public void before() {
-        Mockito.reset(rateLimiter,marketDataProcessor);
+        Mockito.reset(rateLimiter);
+        // built explicitly as constructor injection would pick the widest constructor
+        marketDataProcessor = spy(new MarketDataProcessor(timer));
     }
 
     @Test
@@ -145,6 +154,186 @@ public final class MarketDataProcessorTest {
     }
 
 
+    /**
+     * MSFT is throttled by its symbol window at 1000; once the window reopens only the
+     * newest of the throttled ticks gets published.
+     */
+    @Test
+    public void testThrottledSymbolPublishesLatestWhenWindowReopens() {
+        when(timer.getCurrentTime()).thenReturn(1000L);
+        for (int i = 0; i < 10; i++) {
+            marketDataProcessor.onMessage(getDummyMarketData("MSFT", 1000 + i));
+        }
+        verify(marketDataProcessor, times(1)).publishAggregatedMarketData(any());
+        Assert.assertEquals(1, marketDataProcessor.getPendingCount());
+
+        when(timer.getCurrentTime()).thenReturn(2001L);
+        Assert.assertEquals(1, marketDataProcessor.drainPending());
+
+        ArgumentCaptor<MarketData> captor = ArgumentCaptor.forClass(MarketData.class);
+        verify(marketDataProcessor, times(2)).publishAggregatedMarketData(captor.capture());
+        Assert.assertEquals(1009, captor.getValue().getUpdateTime());
+        Assert.assertEquals(0, marketDataProcessor.getPendingCount());
+    }
+
+    @Test
+    public void testGloballyThrottledSymbolsPublishedOnNextTick() {
+        Faker faker = new Faker(new Random(9));
+        when(timer.getCurrentTime()).thenReturn(1000L);
+        for (int i = 0; i < 100; i++) {
+            marketDataProcessor.onMessage(getDummyMarketData(faker.stock().nsdqSymbol(), 1000));
+        }
+        marketDataProcessor.onMessage(getDummyMarketData("PENDING1", 1000));
+        marketDataProcessor.onMessage(getDummyMarketData("PENDING2", 1000));
+        verify(marketDataProcessor, times(100)).publishAggregatedMarketData(any());
+        Assert.assertEquals(2, marketDataProcessor.getPendingCount());
+
+        // the first tick of the next window drains the pending symbols ahead of itself
+        when(timer.getCurrentTime()).thenReturn(3000L);
+        marketDataProcessor.onMessage(getDummyMarketData("MSFT", 3000));
+        ArgumentCaptor<MarketData> captor = ArgumentCaptor.forClass(MarketData.class);
+        verify(marketDataProcessor, times(103)).publishAggregatedMarketData(captor.capture());
+        List<MarketData> published = captor.getAllValues();
+        Assert.assertEquals("PENDING1", published.get(100).getSymbol());
+        Assert.assertEquals("PENDING2", published.get(101).getSymbol());
+        Assert.assertEquals("MSFT", published.get(102).getSymbol());
+    }
+
+    @Test
+    public void testPriorityDrainPublishesWeightedSymbolFirst() {
+        MarketDataProcessor processor = spy(new MarketDataProcessor(timer, new RingBufferRateLimiter(timer, 1, 1000),
+                new DrainPriority(0, Collections.singletonMap("PENDING2", 5000L))));
+        when(timer.getCurrentTime()).thenReturn(1000L);
+        processor.onMessage(getDummyMarketData("MSFT", 1000));
+        processor.onMessage(getDummyMarketData("PENDING1", 1000));
+        processor.onMessage(getDummyMarketData("PENDING2", 1000));
+        Assert.assertEquals(2, processor.getPendingCount());
+
+        // first in, first out would publish PENDING1 here
+        when(timer.getCurrentTime()).thenReturn(2000L);
+        Assert.assertEquals(1, processor.drainPending());
+        when(timer.getCurrentTime()).thenReturn(3000L);
+        Assert.assertEquals(1, processor.drainPending());
+        ArgumentCaptor<MarketData> captor = ArgumentCaptor.forClass(MarketData.class);
+        verify(processor, times(3)).publishAggregatedMarketData(captor.capture());
+        Assert.assertEquals("PENDING2", captor.getAllValues().get(1).getSymbol());
+        Assert.assertEquals("PENDING1", captor.getAllValues().get(2).getSymbol());
+    }
+
+    @Test
+    public void testInsignificantTickIsDroppedWithOlderPending() {
+        MarketDataProcessor processor = spy(new MarketDataProcessor(timer, new RingBufferRateLimiter(timer), null,
+                new SignificantChangeFilter(0.05, 0, 0, 10000)));
+        when(timer.getCurrentTime()).thenReturn(1000L);
+        processor.onMessage(new MarketData("MSFT", 10000, 10000, 10000, 2, 1000));
+        // window closed, a material move is conflated
+        processor.onMessage(new MarketData("MSFT", 10010, 10010, 10010, 2, 1100));
+        Assert.assertEquals(1, processor.getPendingCount());
+        // back within the threshold of what was published, nothing left to publish
+        processor.onMessage(new MarketData("MSFT", 10001, 10001, 10001, 2, 1200));
+        Assert.assertEquals(0, processor.getPendingCount());
+
+        when(timer.getCurrentTime()).thenReturn(3000L);
+        processor.onMessage(new MarketData("MSFT", 10002, 10002, 10002, 2, 3000));
+        verify(processor, times(1)).publishAggregatedMarketData(any());
+        processor.onMessage(new MarketData("MSFT", 10020, 10020, 10020, 2, 3100));
+        verify(processor, times(2)).publishAggregatedMarketData(any());
+        // stale enough to publish even without a move
+        when(timer.getCurrentTime()).thenReturn(13000L);
+        processor.onMessage(new MarketData("MSFT", 10020, 10020, 10020, 2, 13000));
+        verify(processor, times(3)).publishAggregatedMarketData(any());
+    }
+
+    @Test
+    public void testDrainDueOnlyOnceWindowReopens() {
+        when(timer.getCurrentTime()).thenReturn(1000L);
+        marketDataProcessor.onMessage(getDummyMarketData("MSFT", 1000));
+        marketDataProcessor.onMessage(getDummyMarketData("MSFT", 1100));
+        when(timer.getCurrentTime()).thenReturn(2000L);
+        Assert.assertEquals(0, marketDataProcessor.drainDue());
+        when(timer.getCurrentTime()).thenReturn(2001L);
+        Assert.assertEquals(1, marketDataProcessor.drainDue());
+        Assert.assertEquals(0, marketDataProcessor.getPendingCount());
+    }
+
+    @Test
+    public void testDrainDueWaitsForNextPermit() {
+        when(timer.getCurrentTime()).thenReturn(1000L);
+        MarketDataProcessor processor = new MarketDataProcessor(timer, new GcraRateLimiter(timer, 100, 1000, 1));
+        processor.onMessage(getDummyMarketData("MSFT", 1000));
+        processor.onMessage(getDummyMarketData("TSLA", 1000));
+        Assert.assertEquals(1, processor.getPendingCount());
+        when(timer.getCurrentTime()).thenReturn(1009L);
+        Assert.assertEquals(0, processor.drainDue());
+        when(timer.getCurrentTime()).thenReturn(1010L);
+        Assert.assertEquals(1, processor.drainDue());
+        Assert.assertEquals(0, processor.getPendingCount());
+    }
+
+    @Test
+    public void testLastValueCacheHoldsPublishedData() {
+        when(timer.getCurrentTime()).thenReturn(1000L);
+        marketDataProcessor.onMessage(getDummyMarketData("MSFT", 1000));
+        marketDataProcessor.onMessage(getDummyMarketData("MSFT", 1100));
+        // the throttled update is not in the cache until it is published
+        Assert.assertEquals(1000, marketDataProcessor.getLastValueCache().get("MSFT").getUpdateTime());
+        when(timer.getCurrentTime()).thenReturn(2001L);
+        marketDataProcessor.drainPending();
+        Assert.assertEquals(1100, marketDataProcessor.getLastValueCache().get("MSFT").getUpdateTime());
+        Assert.assertEquals(1, marketDataProcessor.getLastValueCache().snapshot().size());
+    }
+
+    @Test
+    public void testIdleSymbolsAreForgotten() {
+        when(timer.getCurrentTime()).thenReturn(1000L);
+        marketDataProcessor.setIdleExpiryMillis(60_000);
+        marketDataProcessor.onMessage(getDummyMarketData("MSFT", 1000));
+        marketDataProcessor.onMessage(getDummyMarketData("TSLA", 1000));
+        when(timer.getCurrentTime()).thenReturn(50_000L);
+        marketDataProcessor.onMessage(getDummyMarketData("TSLA", 50_000));
+        Assert.assertEquals(2, marketDataProcessor.getSymbolCount());
+
+        when(timer.getCurrentTime()).thenReturn(61_000L);
+        marketDataProcessor.onMessage(getDummyMarketData("AAPL", 61_000));
+        Assert.assertNull(marketDataProcessor.getSymbolHistory("MSFT"));
+        // quiet, not gone: late joiners still get its last value
+        Assert.assertEquals(1000, marketDataProcessor.getLastValueCache().get("MSFT").getUpdateTime());
+        Assert.assertNotNull(marketDataProcessor.getSymbolHistory("TSLA"));
+        Assert.assertEquals(2, marketDataProcessor.getSymbolCount());
+
+        when(timer.getCurrentTime()).thenReturn(200_000L);
+        marketDataProcessor.onMessage(getDummyMarketData("MSFT", 200_000));
+        Assert.assertEquals(1, marketDataProcessor.getSymbolCount());
+        Assert.assertEquals(200_000, marketDataProcessor.getSymbolHistory("MSFT").getMarketUpdateTime());
+    }
+
+    @Test
+    public void testOutdatedThrottledDataIsNotPublished() {
+        when(timer.getCurrentTime()).thenReturn(1000L);
+        marketDataProcessor.onMessage(getDummyMarketData("MSFT", 1000));
+        marketDataProcessor.onMessage(getDummyMarketData("MSFT", 900));
+        Assert.assertEquals(0, marketDataProcessor.getPendingCount());
+        when(timer.getCurrentTime()).thenReturn(2001L);
+        Assert.assertEquals(0, marketDataProcessor.drainPending());
+        verify(marketDataProcessor, times(1)).publishAggregatedMarketData(any());
+    }
+
+    @Test
+    public void testRejectedTicksTakeNoGlobalPermit() {
+        SimulatedTimer simulatedTimer = new SimulatedTimer(0);
+        RingBufferRateLimiter limiter = new RingBufferRateLimiter(simulatedTimer, 100, 1000);
+        MarketDataProcessor processor = new MarketDataProcessor(simulatedTimer, limiter);
+        for (int i = 0; i < 1000; i++) {
+            simulatedTimer.setCurrentTime(i);
+            processor.onMessage(getDummyMarketData("MSFT", i + 1));
+            if (i == 500)
+                processor.onMessage(getDummyMarketData("TSLA", i + 1));
+        }
+        Assert.assertEquals(2, processor.getMetrics().getTicksPublished());
+        Assert.assertEquals(2, limiter.getCurrentCount());
+        Assert.assertNotNull(processor.getLastValueCache().get("TSLA"));
+    }
+
 	/**
      * Faker with the seed will provide the same in-order symbols on every
      * request under each thread, namely:
@@ -0,0 +1,39 @@
+package com.ank;
+
+import java.math.BigDecimal;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.ank.model.MarketData;
+import com.ank.model.MarketDataPool;
+
+public class MarketDataTest {
+
+    @Test
+    public void testBigDecimalRoundTrip() {
+        MarketData data = new MarketData("MSFT", new BigDecimal("251.5"), new BigDecimal("251.52"),
+                BigDecimal.ONE, 1000);
+        Assert.assertEquals(2, data.getPriceScale());
+        Assert.assertEquals(25150, data.getBidMantissa());
+        Assert.assertEquals(25152, data.getAskMantissa());
+        Assert.assertEquals(100, data.getLastMantissa());
+        Assert.assertEquals(new BigDecimal("251.52"), data.getAsk());
+        Assert.assertEquals(0, new BigDecimal("251.5").compareTo(data.getBid()));
+    }
+
+    @Test(expected = ArithmeticException.class)
+    public void testPriceOutOfLongRangeRejected() {
+        new MarketData("MSFT", new BigDecimal("1e30"), BigDecimal.ONE, BigDecimal.ONE, 1000);
+    }
+
+    @Test
+    public void testPoolReusesInstances() {
+        MarketDataPool pool = new MarketDataPool(1);
+        MarketData data = pool.acquire();
+        Assert.assertEquals(0, pool.available());
+        pool.release(data.set("MSFT", 1, 2, 3, 0, 1000));
+        Assert.assertSame(data, pool.acquire());
+        Assert.assertNotSame(data, pool.acquire());
+    }
+}
@@ -0,0 +1,114 @@
+package com.ank;
+
+import static org.mockito.Mockito.when;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import com.ank.util.MultiWindowRateLimiter;
+import com.ank.util.MultiWindowRateLimiter.Window;
+import com.ank.util.MyTimer;
+
+@RunWith(MockitoJUnitRunner.class)
+public class MultiWindowRateLimiterTest {
+    @Mock
+    private MyTimer timer;
+
+    private MultiWindowRateLimiter newLimiter() {
+        return new MultiWindowRateLimiter(timer, new Window(10, 100), new Window(100, 1000), new Window(5000, 60_000));
+    }
+
+    @Test
+    public void testShortestWindow() {
+        MultiWindowRateLimiter rateLimiter = newLimiter();
+        when(timer.getCurrentTime()).thenReturn(1000L);
+        for (int i = 0; i < 10; i++) {
+            Assert.assertTrue(rateLimiter.isNewDataAllowed());
+        }
+        Assert.assertFalse(rateLimiter.isNewDataAllowed());
+        Assert.assertEquals(1100, rateLimiter.getNextPermitTime(1000));
+        when(timer.getCurrentTime()).thenReturn(1099L);
+        Assert.assertFalse(rateLimiter.isNewDataAllowed());
+        when(timer.getCurrentTime()).thenReturn(1100L);
+        Assert.assertTrue(rateLimiter.isNewDataAllowed());
+    }
+
+    @Test
+    public void testSecondWindowAcrossShortWindows() {
+        MultiWindowRateLimiter rateLimiter = newLimiter();
+        // 10 per 100 ms fills the second after 10 short windows
+        for (long time = 1000; time < 2000; time += 100) {
+            when(timer.getCurrentTime()).thenReturn(time);
+            for (int i = 0; i < 10; i++) {
+                Assert.assertTrue(rateLimiter.isNewDataAllowed());
+            }
+        }
+        Assert.assertEquals(100, rateLimiter.getCurrentCount(1));
+        when(timer.getCurrentTime()).thenReturn(1999L);
+        Assert.assertFalse(rateLimiter.isNewDataAllowed());
+        when(timer.getCurrentTime()).thenReturn(2000L);
+        Assert.assertTrue(rateLimiter.isNewDataAllowed());
+    }
+
+    @Test
+    public void testMinuteWindow() {
+        MultiWindowRateLimiter rateLimiter = newLimiter();
+        int accepted = 0;
+        for (long time = 0; time < 60_000; time += 100) {
+            when(timer.getCurrentTime()).thenReturn(time);
+            while (rateLimiter.isNewDataAllowed())
+                accepted++;
+        }
+        Assert.assertEquals(5000, accepted);
+        Assert.assertEquals(5000, rateLimiter.getCurrentCount(2));
+        // the first 5000 accepts were spread over 50 s, the first of them leaves the minute at 60 s
+        Assert.assertEquals(60_000, rateLimiter.getNextPermitTime(59_900));
+    }
+
+    @Test
+    public void testRefusedRequestTakesNoBudget() {
+        MultiWindowRateLimiter rateLimiter = new MultiWindowRateLimiter(timer, new Window(2, 100), new Window(3, 1000));
+        when(timer.getCurrentTime()).thenReturn(1000L);
+        Assert.assertTrue(rateLimiter.isNewDataAllowed());
+        Assert.assertTrue(rateLimiter.isNewDataAllowed());
+        Assert.assertFalse(rateLimiter.isNewDataAllowed());
+        // the refusal above did not use up the last permit of the second window
+        when(timer.getCurrentTime()).thenReturn(1100L);
+        Assert.assertTrue(rateLimiter.isNewDataAllowed());
+        Assert.assertFalse(rateLimiter.isNewDataAllowed());
+    }
+
+    @Test
+    public void testConcurrentAdmission() throws InterruptedException {
+        MultiWindowRateLimiter rateLimiter = newLimiter();
+        when(timer.getCurrentTime()).thenReturn(1000L);
+        AtomicInteger accepted = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch done = new CountDownLatch(8);
+        for (int t = 0; t < 8; t++) {
+            executor.execute(() -> {
+                for (int i = 0; i < 100; i++) {
+                    if (rateLimiter.isNewDataAllowed())
+                        accepted.incrementAndGet();
+                }
+                done.countDown();
+            });
+        }
+        done.await();
+        executor.shutdown();
+        Assert.assertEquals(10, accepted.get());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNoWindow() {
+        new MultiWindowRateLimiter(timer);
+    }
+}
@@ -0,0 +1,136 @@
+package com.ank;
+
+import static com.ank.MarketDataFixtures.getDummyMarketData;
+import static org.mockito.Mockito.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Properties;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import com.ank.policy.PolicyRateLimiter;
+import com.ank.policy.ThrottlePolicy;
+import com.ank.policy.ThrottlePolicyReloader;
+import com.ank.processor.MarketDataProcessor;
+import com.ank.util.MyTimer;
+
+@RunWith(MockitoJUnitRunner.class)
+public class PolicyRateLimiterTest {
+    @Mock
+    private MyTimer timer;
+
+    @Test
+    public void testGroupCapWithinGlobalBudget() {
+        when(timer.getCurrentTime()).thenReturn(1000L);
+        PolicyRateLimiter limiter = new PolicyRateLimiter(timer, policy("10", "3"));
+        for (int i = 0; i < 3; i++) {
+            Assert.assertTrue(limiter.isNewDataAllowed("MSFT"));
+        }
+        Assert.assertFalse(limiter.isNewDataAllowed("AAPL"));
+        for (int i = 0; i < 7; i++) {
+            Assert.assertTrue(limiter.isNewDataAllowed("TSLA"));
+        }
+        Assert.assertFalse(limiter.isNewDataAllowed("TSLA"));
+    }
+
+    @Test
+    public void testRefusedGlobalPermitTakesNoGroupPermit() {
+        when(timer.getCurrentTime()).thenReturn(1000L);
+        PolicyRateLimiter limiter = new PolicyRateLimiter(timer, policy("3", "2"));
+        for (int i = 0; i < 3; i++) {
+            Assert.assertTrue(limiter.isNewDataAllowed("TSLA"));
+        }
+        when(timer.getCurrentTime()).thenReturn(1500L);
+        for (int i = 0; i < 5; i++) {
+            Assert.assertFalse(limiter.isNewDataAllowed("MSFT"));
+        }
+        when(timer.getCurrentTime()).thenReturn(2000L);
+        Assert.assertTrue(limiter.isNewDataAllowed("MSFT"));
+        Assert.assertTrue(limiter.isNewDataAllowed("AAPL"));
+        Assert.assertFalse(limiter.isNewDataAllowed("MSFT"));
+    }
+
+    @Test
+    public void testReloadKeepsRecentAccepts() {
+        when(timer.getCurrentTime()).thenReturn(1000L);
+        PolicyRateLimiter limiter = new PolicyRateLimiter(timer, policy("10", "0"));
+        for (int i = 0; i < 10; i++) {
+            Assert.assertTrue(limiter.isNewDataAllowed("TSLA"));
+        }
+        limiter.update(policy("15", "0"));
+        for (int i = 0; i < 5; i++) {
+            Assert.assertTrue(limiter.isNewDataAllowed("TSLA"));
+        }
+        Assert.assertFalse(limiter.isNewDataAllowed("TSLA"));
+
+        limiter.update(policy("5", "0"));
+        when(timer.getCurrentTime()).thenReturn(1999L);
+        Assert.assertFalse(limiter.isNewDataAllowed("TSLA"));
+        when(timer.getCurrentTime()).thenReturn(2000L);
+        Assert.assertTrue(limiter.isNewDataAllowed("TSLA"));
+    }
+
+    @Test
+    public void testProcessorUsesGroupSymbolWindow() {
+        when(timer.getCurrentTime()).thenReturn(1000L);
+        MarketDataProcessor processor = spy(new MarketDataProcessor(timer, new PolicyRateLimiter(timer, policy("100", "0"))));
+        processor.onMessage(getDummyMarketData("MSFT", 1000));
+        processor.onMessage(getDummyMarketData("TSLA", 1000));
+        when(timer.getCurrentTime()).thenReturn(1300L);
+        processor.onMessage(getDummyMarketData("MSFT", 1300));
+        processor.onMessage(getDummyMarketData("TSLA", 1300));
+        verify(processor, times(3)).publishAggregatedMarketData(any());
+        Assert.assertEquals(1, processor.getPendingCount());
+    }
+
+    @Test
+    public void testReloaderAppliesChangedFileAndIgnoresInvalidOne() throws IOException {
+        Path file = Files.createTempFile("throttle", ".properties");
+        try {
+            Files.write(file, "throttle.global.limit=20\n".getBytes(StandardCharsets.ISO_8859_1));
+            PolicyRateLimiter limiter = new PolicyRateLimiter(timer, ThrottlePolicy.defaults());
+            ThrottlePolicyReloader reloader = new ThrottlePolicyReloader(file, limiter);
+            Assert.assertTrue(reloader.reloadIfModified());
+            Assert.assertEquals(20, limiter.getPolicy().getGlobalLimit());
+            Assert.assertFalse(reloader.reloadIfModified());
+
+            Files.write(file, "throttle.global.limit=-1\n".getBytes(StandardCharsets.ISO_8859_1));
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis() + 5000));
+            Assert.assertFalse(reloader.reloadIfModified());
+            Assert.assertEquals(20, limiter.getPolicy().getGlobalLimit());
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testApplicationPropertiesMatchDefaults() throws IOException {
+        ThrottlePolicy policy = ThrottlePolicyReloader.loadResource("application.properties");
+        Assert.assertEquals(ThrottlePolicy.DEFAULT_GLOBAL_LIMIT, policy.getGlobalLimit());
+        Assert.assertEquals(ThrottlePolicy.DEFAULT_WINDOW_MILLIS, policy.getSymbolWindowMillis("MSFT"));
+    }
+
+    @Test
+    public void testDefaultProcessorAppliesApplicationProperties() {
+        MarketDataProcessor processor = new MarketDataProcessor(timer);
+        Assert.assertTrue(processor.getRateLimiter() instanceof PolicyRateLimiter);
+        ThrottlePolicy policy = ((PolicyRateLimiter) processor.getRateLimiter()).getPolicy();
+        Assert.assertEquals(ThrottlePolicy.DEFAULT_GLOBAL_LIMIT, policy.getGlobalLimit());
+    }
+
+    private ThrottlePolicy policy(String globalLimit, String groupCap) {
+        Properties properties = new Properties();
+        properties.setProperty("throttle.global.limit", globalLimit);
+        properties.setProperty("throttle.group.liquid.symbols", "MSFT,AAPL");
+        properties.setProperty("throttle.group.liquid.windowMillis", "250");
+        properties.setProperty("throttle.group.liquid.cap", groupCap);
+        return ThrottlePolicy.fromProperties(properties);
+    }}
@@ -0,0 +1,111 @@
+package com.ank;
+
+import static org.mockito.Mockito.when;
+
+import java.util.Collections;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import com.ank.model.MarketData;
+import com.ank.processor.DrainPriority;
+import com.ank.processor.PriorityConflationBuffer;
+import com.ank.processor.SymbolStateTable;
+import com.ank.util.MyTimer;
+
+@RunWith(MockitoJUnitRunner.class)
+public class PriorityConflationBufferTest {
+
+    @Mock
+    private MyTimer timer;
+
+    private SymbolStateTable symbolStates;
+
+    @Before
+    public void before() {
+        symbolStates = new SymbolStateTable();
+        when(timer.getCurrentTime()).thenReturn(2000L);
+    }
+
+    @Test
+    public void testLeastRecentlyPublishedFirst() {
+        published("MSFT", 1500, 10000);
+        published("TSLA", 1000, 10000);
+        PriorityConflationBuffer buffer = new PriorityConflationBuffer(timer, symbolStates, DrainPriority.staleness());
+        buffer.offer(getDummyMarketData("MSFT", 10000, 1600));
+        buffer.offer(getDummyMarketData("TSLA", 10000, 1600));
+        buffer.offer(getDummyMarketData("AAPL", 10000, 1600));
+        Assert.assertEquals("AAPL", buffer.peek().getSymbol());
+        buffer.remove();
+        Assert.assertEquals("TSLA", buffer.peek().getSymbol());
+        buffer.remove();
+        Assert.assertEquals("MSFT", buffer.peek().getSymbol());
+        buffer.remove();
+        Assert.assertNull(buffer.peek());
+        Assert.assertTrue(buffer.isEmpty());
+    }
+
+    @Test
+    public void testPriceMoveAndBonusOutrankStaleness() {
+        published("MSFT", 1500, 10000);
+        published("TSLA", 1000, 10000);
+        published("AAPL", 1000, 10000);
+        PriorityConflationBuffer buffer = new PriorityConflationBuffer(timer, symbolStates,
+                new DrainPriority(10, Collections.singletonMap("AAPL", 2000L)));
+        buffer.offer(getDummyMarketData("TSLA", 10000, 1600));
+        // 100 basis points move counts as 1000ms of staleness
+        buffer.offer(getDummyMarketData("MSFT", 10100, 1600));
+        buffer.offer(getDummyMarketData("AAPL", 10000, 1600));
+        Assert.assertEquals("AAPL", buffer.peek().getSymbol());
+        buffer.remove();
+        Assert.assertEquals("MSFT", buffer.peek().getSymbol());
+        buffer.remove();
+        Assert.assertEquals("TSLA", buffer.peek().getSymbol());
+    }
+
+    @Test
+    public void testSkippedSymbolWaitsForRetryTime() {
+        PriorityConflationBuffer buffer = new PriorityConflationBuffer(timer, symbolStates, DrainPriority.staleness());
+        buffer.offer(getDummyMarketData("MSFT", 10000, 1600));
+        buffer.skip(2500);
+        Assert.assertNull(buffer.peek());
+        Assert.assertEquals(1, buffer.size());
+        Assert.assertEquals(1, buffer.getWaitingCount());
+
+        // a newer tick replaces the data but keeps waiting
+        Assert.assertTrue(buffer.offer(getDummyMarketData("MSFT", 10100, 1700)));
+        Assert.assertFalse(buffer.offer(getDummyMarketData("MSFT", 10200, 1650)));
+        Assert.assertNull(buffer.peek());
+
+        when(timer.getCurrentTime()).thenReturn(2500L);
+        Assert.assertEquals(1700, buffer.peek().getUpdateTime());
+        Assert.assertEquals(0, buffer.getWaitingCount());
+    }
+
+    @Test
+    public void testDiscardOnlyDropsOlderPending() {
+        PriorityConflationBuffer buffer = new PriorityConflationBuffer(timer, symbolStates, DrainPriority.staleness());
+        buffer.offer(getDummyMarketData("MSFT", 10000, 1600));
+        buffer.discard("MSFT", 1500);
+        Assert.assertEquals(1, buffer.size());
+        buffer.skip(5000);
+        buffer.discard("MSFT", 1600);
+        Assert.assertTrue(buffer.isEmpty());
+        Assert.assertNull(buffer.getPending("MSFT"));
+        buffer.discard("AAPL", 1600);
+    }
+
+    private void published(final String symbol, final long publishTime, final long last) {
+        int id = symbolStates.intern(symbol);
+        symbolStates.set(id, publishTime, publishTime);
+        symbolStates.setPublishedPrices(id, last, last, last, 2);
+    }
+
+    private MarketData getDummyMarketData(final String symbol, final long last, final long updateTime) {
+        return new MarketData(symbol, last, last, last, 2, updateTime);
+    }
+}
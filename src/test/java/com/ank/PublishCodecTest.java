@@ -0,0 +1,199 @@
+package com.ank;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.ank.feed.PublishCodec;
+import com.ank.feed.PublishDecoder;
+import com.ank.feed.PublishEncoder;
+import com.ank.model.AggregatedMarketData;
+import com.ank.model.MarketData;
+
+public class PublishCodecTest {
+
+    private final List<MarketData> decoded = new ArrayList<>();
+
+    private final PublishEncoder encoder = new PublishEncoder();
+
+    private final PublishDecoder decoder = new PublishDecoder(data -> decoded.add(new MarketData(data)));
+
+    @Test
+    public void testSmallMovesAreEncodedAsDeltas() {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(1024).order(PublishCodec.BYTE_ORDER);
+        int first = encoder.encode(buffer, new MarketData("MSFT", 41_250, 41_260, 41_255, 2, 1_000_000));
+        int second = encoder.encode(buffer, new MarketData("MSFT", 41_251, 41_262, 41_251, 2, 1_000_040));
+        int third = encoder.encode(buffer, new MarketData("MSFT", -5, Long.MAX_VALUE, Long.MIN_VALUE, 2, 1_000_050));
+        buffer.flip();
+
+        Assert.assertEquals(PublishCodec.HEADER_LENGTH + 6, second);
+        Assert.assertTrue(first > second);
+        Assert.assertTrue(third > second);
+        Assert.assertEquals(2, encoder.getDeltaCount());
+        Assert.assertEquals(3, decoder.decode(buffer));
+        Assert.assertFalse(buffer.hasRemaining());
+        assertData(decoded.get(0), "MSFT", 41_250, 41_260, 41_255, 2, 1_000_000);
+        assertData(decoded.get(1), "MSFT", 41_251, 41_262, 41_251, 2, 1_000_040);
+        assertData(decoded.get(2), "MSFT", -5, Long.MAX_VALUE, Long.MIN_VALUE, 2, 1_000_050);
+    }
+
+    @Test
+    public void testAggregatedRoundTrip() {
+        ByteBuffer buffer = ByteBuffer.allocate(4096).order(ByteOrder.BIG_ENDIAN);
+        AggregatedMarketData snapshot = new AggregatedMarketData(3);
+        snapshot.add(new MarketData("MSFT", 100, 101, 100, 2, 1000));
+        snapshot.add(new MarketData("TSLA", 200, 202, 201, 2, 1000));
+        snapshot.add(new MarketData("AAPL", 300, 303, 302, 3, 1000));
+        encoder.encode(buffer, snapshot);
+        snapshot.clear();
+        snapshot.add(new MarketData("TSLA", 199, 201, 200, 2, 1001));
+        // a new price scale cannot be a delta
+        snapshot.add(new MarketData("AAPL", 3000, 3030, 3020, 4, 1001));
+        encoder.encode(buffer, snapshot);
+        buffer.flip();
+
+        PublishDecoder aggregatedDecoder = new PublishDecoder();
+        AggregatedMarketData target = new AggregatedMarketData(3);
+        Assert.assertTrue(aggregatedDecoder.decode(buffer, target));
+        Assert.assertEquals(3, target.size());
+        assertData(target.get(2), "AAPL", 300, 303, 302, 3, 1000);
+        Assert.assertTrue(aggregatedDecoder.decode(buffer, target));
+        Assert.assertEquals(2, target.size());
+        assertData(target.get(0), "TSLA", 199, 201, 200, 2, 1001);
+        assertData(target.get(1), "AAPL", 3000, 3030, 3020, 4, 1001);
+        Assert.assertFalse(aggregatedDecoder.decode(buffer, target));
+        Assert.assertEquals(1, encoder.getDeltaCount());
+    }
+
+    @Test
+    public void testPartialMessageLeftInBuffer() {
+        ByteBuffer buffer = ByteBuffer.allocate(1024);
+        buffer.order(PublishCodec.BYTE_ORDER);
+        int first = encoder.encode(buffer, new MarketData("MSFT", 1, 2, 1, 0, 1000));
+        encoder.encode(buffer, new MarketData("MSFT", 2, 3, 2, 0, 1001));
+        buffer.flip();
+        buffer.limit(first + 3);
+
+        Assert.assertEquals(1, decoder.decode(buffer));
+        Assert.assertEquals(first, buffer.position());
+        buffer.limit(first + PublishCodec.HEADER_LENGTH + 6);
+        Assert.assertEquals(1, decoder.decode(buffer));
+        assertData(decoded.get(1), "MSFT", 2, 3, 2, 0, 1001);
+    }
+
+    @Test
+    public void testLateJoinerSkipsDeltasUntilReset() {
+        ByteBuffer buffer = ByteBuffer.allocate(1024).order(PublishCodec.BYTE_ORDER);
+        encoder.encode(buffer, new MarketData("MSFT", 1, 2, 1, 0, 1000));
+        buffer.clear();
+        // the decoder missed the full entry
+        encoder.encode(buffer, new MarketData("MSFT", 2, 3, 2, 0, 1001));
+        encoder.reset();
+        encoder.encode(buffer, new MarketData("MSFT", 3, 4, 3, 0, 1002));
+        buffer.flip();
+
+        Assert.assertEquals(1, decoder.decode(buffer));
+        Assert.assertEquals(1, decoder.getGapCount());
+        assertData(decoded.get(0), "MSFT", 3, 4, 3, 0, 1002);
+    }
+
+    @Test
+    public void testOverflowLeavesStreamDecodable() {
+        ByteBuffer buffer = ByteBuffer.allocate(1024).order(PublishCodec.BYTE_ORDER);
+        encoder.encode(buffer, new MarketData("MSFT", 1, 2, 1, 0, 1000));
+        ByteBuffer small = ByteBuffer.allocate(PublishCodec.HEADER_LENGTH + 2);
+        try {
+            encoder.encode(small, new MarketData("MSFT", 2, 3, 2, 0, 1001));
+            Assert.fail();
+        } catch (BufferOverflowException e) {
+            Assert.assertEquals(0, small.position());
+        }
+        encoder.encode(buffer, new MarketData("MSFT", 3, 4, 3, 0, 1002));
+        buffer.flip();
+
+        Assert.assertEquals(2, decoder.decode(buffer));
+        Assert.assertEquals(0, decoder.getGapCount());
+        assertData(decoded.get(1), "MSFT", 3, 4, 3, 0, 1002);
+    }
+
+    @Test
+    public void testManySymbols() {
+        ByteBuffer buffer = ByteBuffer.allocate(64 * 1024).order(PublishCodec.BYTE_ORDER);
+        for (int round = 0; round < 2; round++) {
+            for (int i = 0; i < 1000; i++) {
+                encoder.encode(buffer, new MarketData("SYM" + i, i, i + 1, i, 2, 1000 + round));
+            }
+            buffer.flip();
+            Assert.assertEquals(1000, decoder.decode(buffer));
+            buffer.compact();
+        }
+        Assert.assertEquals(1000, encoder.getSymbolCount());
+        Assert.assertEquals(1000, encoder.getDeltaCount());
+        assertData(decoded.get(1999), "SYM999", 999, 1000, 999, 2, 1001);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testCorruptLength() {
+        ByteBuffer buffer = ByteBuffer.allocate(16).order(PublishCodec.BYTE_ORDER);
+        buffer.putShort((short) 2).put(PublishCodec.UPDATES).put(PublishCodec.VERSION).putShort((short) 0);
+        buffer.flip();
+        decoder.decode(buffer);
+    }
+
+    @Test
+    public void testSnapshotTooSmallLeavesStateUnchanged() {
+        ByteBuffer buffer = ByteBuffer.allocate(1024).order(PublishCodec.BYTE_ORDER);
+        AggregatedMarketData snapshot = new AggregatedMarketData(3);
+        snapshot.add(new MarketData("MSFT", 100, 101, 100, 2, 1000));
+        snapshot.add(new MarketData("TSLA", 200, 202, 201, 2, 1000));
+        encoder.encode(buffer, snapshot);
+        snapshot.clear();
+        snapshot.add(new MarketData("MSFT", 102, 103, 102, 2, 1001));
+        snapshot.add(new MarketData("TSLA", 201, 203, 202, 2, 1001));
+        snapshot.add(new MarketData("AAPL", 300, 303, 302, 2, 1001));
+        encoder.encode(buffer, snapshot);
+        buffer.flip();
+
+        PublishDecoder aggregatedDecoder = new PublishDecoder();
+        Assert.assertTrue(aggregatedDecoder.decode(buffer, new AggregatedMarketData(2)));
+        int position = buffer.position();
+        try {
+            aggregatedDecoder.decode(buffer, new AggregatedMarketData(2));
+            Assert.fail();
+        } catch (IllegalArgumentException e) {
+            Assert.assertEquals(position, buffer.position());
+        }
+        // the deltas were not applied, so decoding again into a larger snapshot is exact
+        AggregatedMarketData target = new AggregatedMarketData(3);
+        Assert.assertTrue(aggregatedDecoder.decode(buffer, target));
+        assertData(target.get(0), "MSFT", 102, 103, 102, 2, 1001);
+        assertData(target.get(1), "TSLA", 201, 203, 202, 2, 1001);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testCorruptSymbolId() {
+        ByteBuffer buffer = ByteBuffer.allocate(32).order(PublishCodec.BYTE_ORDER);
+        buffer.putShort((short) 15).put(PublishCodec.UPDATES).put(PublishCodec.VERSION).putShort((short) 1);
+        // a well-formed full entry, except for a varint id just past the maximum
+        int id = PublishCodec.MAX_SYMBOL_ID + 1;
+        buffer.put(PublishCodec.FULL).put((byte) (id & 0x7F | 0x80)).put((byte) (id >>> 7 & 0x7F | 0x80))
+                .put((byte) (id >>> 14)).put((byte) 2).putInt(0);
+        buffer.flip();
+        decoder.decode(buffer);
+    }
+
+    private static void assertData(MarketData data, String symbol, long bid, long ask, long last, int priceScale,
+            long updateTime) {
+        Assert.assertEquals(symbol, data.getSymbol());
+        Assert.assertEquals(bid, data.getBidMantissa());
+        Assert.assertEquals(ask, data.getAskMantissa());
+        Assert.assertEquals(last, data.getLastMantissa());
+        Assert.assertEquals(priceScale, data.getPriceScale());
+        Assert.assertEquals(updateTime, data.getUpdateTime());
+    }
+}
@@ -0,0 +1,45 @@
+package com.ank;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.ank.model.MarketData;
+import com.ank.processor.MarketDataProcessor;
+import com.ank.util.IMarketDataLimiter;
+import com.ank.util.ITimer;
+import com.ank.util.RingBufferRateLimiter;
+
+/**
+ * Processor recording every publish as symbol@updateTime, optionally taking a while per publish.
+ */
+class RecordingProcessor extends MarketDataProcessor {
+    final List<String> published = Collections.synchronizedList(new ArrayList<>());
+
+    private final long publishMillis;
+
+    RecordingProcessor(ITimer timer) {
+        this(timer, new RingBufferRateLimiter(timer), 0);
+    }
+
+    RecordingProcessor(ITimer timer, IMarketDataLimiter rateLimiter) {
+        this(timer, rateLimiter, 0);
+    }
+
+    RecordingProcessor(ITimer timer, IMarketDataLimiter rateLimiter, long publishMillis) {
+        super(timer, rateLimiter);
+        this.publishMillis = publishMillis;
+    }
+
+    @Override
+    public void publishAggregatedMarketData(MarketData data) {
+        published.add(data.getSymbol() + "@" + data.getUpdateTime());
+        if (publishMillis > 0) {
+            try {
+                Thread.sleep(publishMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
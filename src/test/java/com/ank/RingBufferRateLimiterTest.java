@@ -0,0 +1,94 @@
+package com.ank;
+
+import static org.mockito.Mockito.when;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import com.ank.util.MyTimer;
+import com.ank.util.RingBufferRateLimiter;
+
+@RunWith(MockitoJUnitRunner.class)
+public class RingBufferRateLimiterTest {
+    @Mock
+    private MyTimer timer;
+
+    @Test
+    public void testHundredRequestsAtStart() {
+        RingBufferRateLimiter rateLimiter = new RingBufferRateLimiter(timer);
+        when(timer.getCurrentTime()).thenReturn(1000L);
+        for (int i = 0; i < 100; i++) {
+            Assert.assertTrue(rateLimiter.isNewDataAllowed());
+        }
+        Assert.assertFalse(rateLimiter.isNewDataAllowed());
+        Assert.assertEquals(100, rateLimiter.getCurrentCount());
+    }
+
+    /**
+     * 100 accepted at 1999. The weighted approximation lets another 50 through at 2500 although
+     * the real window (1500, 2500] already holds 100; the exact window waits until 2999.
+     */
+    @Test
+    public void testExactWindow() {
+        RingBufferRateLimiter rateLimiter = new RingBufferRateLimiter(timer);
+        when(timer.getCurrentTime()).thenReturn(1999L);
+        for (int i = 0; i < 100; i++) {
+            Assert.assertTrue(rateLimiter.isNewDataAllowed());
+        }
+        when(timer.getCurrentTime()).thenReturn(2500L);
+        Assert.assertFalse(rateLimiter.isNewDataAllowed());
+        when(timer.getCurrentTime()).thenReturn(2998L);
+        Assert.assertFalse(rateLimiter.isNewDataAllowed());
+        when(timer.getCurrentTime()).thenReturn(2999L);
+        for (int i = 0; i < 100; i++) {
+            Assert.assertTrue(rateLimiter.isNewDataAllowed());
+        }
+        Assert.assertFalse(rateLimiter.isNewDataAllowed());
+    }
+
+    @Test
+    public void testSlidingRelease() {
+        RingBufferRateLimiter rateLimiter = new RingBufferRateLimiter(timer, 10, 100);
+        for (int i = 0; i < 10; i++) {
+            when(timer.getCurrentTime()).thenReturn(1000L + i * 10);
+            Assert.assertTrue(rateLimiter.isNewDataAllowed());
+        }
+        when(timer.getCurrentTime()).thenReturn(1099L);
+        Assert.assertFalse(rateLimiter.isNewDataAllowed());
+        // only the request at 1000 has left the window
+        when(timer.getCurrentTime()).thenReturn(1100L);
+        Assert.assertTrue(rateLimiter.isNewDataAllowed());
+        Assert.assertFalse(rateLimiter.isNewDataAllowed());
+    }
+
+    @Test
+    public void testConcurrentUpdateExceedingRate() throws InterruptedException {
+        RingBufferRateLimiter rateLimiter = new RingBufferRateLimiter(timer);
+        when(timer.getCurrentTime()).thenReturn(1000L);
+        int numberOfThreads = 5;
+
+        ExecutorService service = Executors.newFixedThreadPool(numberOfThreads);
+        CountDownLatch latch = new CountDownLatch(numberOfThreads);
+        AtomicInteger failCount = new AtomicInteger(0);
+        for (int i = 0; i < numberOfThreads; i++) {
+            service.submit(() -> {
+                for (int j = 0; j < 1000; j++) {
+                    if (!rateLimiter.isNewDataAllowed())
+                        failCount.incrementAndGet();
+                }
+                latch.countDown();
+            });
+        }
+        latch.await();
+        service.shutdown();
+        Assert.assertEquals(4900, failCount.get());
+    }
+}
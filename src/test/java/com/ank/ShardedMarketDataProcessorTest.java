@@ -0,0 +1,61 @@
+package com.ank;
+
+import static com.ank.MarketDataFixtures.getDummyMarketData;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.ank.processor.ShardedMarketDataProcessor;
+import com.ank.util.SimulatedTimer;
+import com.ank.util.YieldingWaitStrategy;
+
+public class ShardedMarketDataProcessorTest {
+
+    // plain timer rather than a mock, it is read by the shard threads
+    private final SimulatedTimer timer = new SimulatedTimer(1000L);
+
+    private final AtomicInteger publishCount = new AtomicInteger();
+
+    private final ShardedMarketDataProcessor processor = new ShardedMarketDataProcessor(timer,
+            data -> publishCount.incrementAndGet(), 4, 64, new YieldingWaitStrategy());
+
+    @Test
+    public void testGlobalLimitHoldsAcrossShards() throws InterruptedException {
+        processor.start();
+        for (int i = 0; i < 2000; i++) {
+            processor.onMessage(getDummyMarketData("SYM" + i, 1000));
+        }
+        processor.close();
+        Assert.assertTrue(publishCount.get() <= 100);
+        Assert.assertTrue(publishCount.get() > 0);
+        Assert.assertEquals(publishCount.get(), processor.snapshot().size());
+    }
+
+    @Test
+    public void testSymbolStaysOnItsShard() throws InterruptedException {
+        for (int i = 0; i < 100; i++) {
+            Assert.assertEquals(processor.shardFor("MSFT"), processor.shardFor("MSFT"));
+        }
+        processor.start();
+        for (int i = 0; i < 100; i++) {
+            processor.onMessage(getDummyMarketData("MSFT", 1000 + i));
+        }
+        processor.close();
+        Assert.assertEquals(1, publishCount.get());
+        Assert.assertEquals(1, processor.getShard(processor.shardFor("MSFT")).getPendingCount());
+        Assert.assertEquals(1000, processor.getLastValue("MSFT").getUpdateTime());
+    }
+
+    @Test
+    public void testSymbolsSpreadOverShards() {
+        Map<Integer, AtomicInteger> perShard = new ConcurrentHashMap<>();
+        for (int i = 0; i < 1000; i++) {
+            perShard.computeIfAbsent(processor.shardFor("SYM" + i), k -> new AtomicInteger()).incrementAndGet();
+        }
+        Assert.assertEquals(4, perShard.size());
+    }
+}
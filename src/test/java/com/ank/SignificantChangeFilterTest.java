@@ -0,0 +1,71 @@
+package com.ank;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.ank.model.MarketData;
+import com.ank.processor.SignificantChangeFilter;
+import com.ank.processor.SymbolStateTable;
+
+public class SignificantChangeFilterTest {
+
+    private SymbolStateTable symbolStates;
+    private int msft;
+
+    @Before
+    public void before() {
+        symbolStates = new SymbolStateTable();
+        msft = symbolStates.intern("MSFT");
+        symbolStates.set(msft, 1000, 1000);
+        // published at 100.00
+        symbolStates.setPublishedPrices(msft, 10000, 10000, 10000, 2);
+    }
+
+    @Test
+    public void testNeverPublishedSymbolIsSignificant() {
+        SignificantChangeFilter filter = new SignificantChangeFilter(1, 0, 0, 5000);
+        int tsla = symbolStates.intern("TSLA");
+        Assert.assertTrue(filter.isSignificant(symbolStates, tsla, tick(10000, 2), 1100));
+    }
+
+    @Test
+    public void testAnyChangeWhenNoThreshold() {
+        SignificantChangeFilter filter = new SignificantChangeFilter(0, 0, 0, 5000);
+        Assert.assertFalse(filter.isSignificant(symbolStates, msft, tick(10000, 2), 1100));
+        // same price at another scale
+        Assert.assertFalse(filter.isSignificant(symbolStates, msft, tick(100000, 3), 1100));
+        Assert.assertTrue(filter.isSignificant(symbolStates, msft, tick(100001, 3), 1100));
+    }
+
+    @Test
+    public void testAbsoluteRelativeAndTickThresholds() {
+        SignificantChangeFilter absolute = new SignificantChangeFilter(0.05, 0, 0, 5000);
+        Assert.assertFalse(absolute.isSignificant(symbolStates, msft, tick(10004, 2), 1100));
+        Assert.assertTrue(absolute.isSignificant(symbolStates, msft, tick(9995, 2), 1100));
+
+        SignificantChangeFilter relative = new SignificantChangeFilter(0, 10, 0, 5000);
+        Assert.assertFalse(relative.isSignificant(symbolStates, msft, tick(10009, 2), 1100));
+        Assert.assertTrue(relative.isSignificant(symbolStates, msft, tick(10010, 2), 1100));
+
+        SignificantChangeFilter tick = new SignificantChangeFilter(0, 0, 0.01, 5000);
+        Assert.assertFalse(tick.isSignificant(symbolStates, msft, tick(100005, 3), 1100));
+        Assert.assertTrue(tick.isSignificant(symbolStates, msft, tick(10001, 2), 1100));
+    }
+
+    @Test
+    public void testStaleSymbolIsSignificant() {
+        SignificantChangeFilter filter = new SignificantChangeFilter(1, 0, 0, 5000);
+        Assert.assertFalse(filter.isSignificant(symbolStates, msft, tick(10000, 2), 5999));
+        Assert.assertTrue(filter.isSignificant(symbolStates, msft, tick(10000, 2), 6000));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsNegativeThreshold() {
+        new SignificantChangeFilter(-1, 0, 0, 5000);
+    }
+
+    private MarketData tick(final long price, final int scale) {
+        return new MarketData("MSFT", price, price, price, scale, 2000);
+    }
+}
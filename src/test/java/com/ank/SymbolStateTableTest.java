@@ -0,0 +1,72 @@
+package com.ank;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.ank.processor.SymbolStateTable;
+
+public class SymbolStateTableTest {
+
+    @Test
+    public void testInternAssignsDenseIds() {
+        SymbolStateTable table = new SymbolStateTable();
+        Assert.assertEquals(0, table.intern("MSFT"));
+        Assert.assertEquals(1, table.intern("TSLA"));
+        Assert.assertEquals(0, table.intern("MSFT"));
+        Assert.assertEquals(SymbolStateTable.UNKNOWN_SYMBOL, table.idOf("AAPL"));
+        Assert.assertEquals("TSLA", table.symbolOf(1));
+        Assert.assertEquals(2, table.size());
+    }
+
+    @Test
+    public void testInternAcrossPages() {
+        SymbolStateTable table = new SymbolStateTable(100000);
+        for (int i = 0; i < 100000; i++) {
+            Assert.assertEquals(i, table.intern("SYM" + i));
+        }
+        Assert.assertTrue(table.tryAcquire(99999, 1000, 1000, 1000));
+        Assert.assertEquals(1000, table.getMarketUpdateTime(99999));
+        Assert.assertEquals(SymbolStateTable.NONE, table.getSystemProcessTime(99998));
+    }
+
+    @Test
+    public void testTryAcquireHonoursWindowAndMarketTime() {
+        SymbolStateTable table = new SymbolStateTable();
+        int id = table.intern("MSFT");
+        Assert.assertTrue(table.tryAcquire(id, 500, 1000, 1000));
+        Assert.assertFalse(table.tryAcquire(id, 600, 2000, 1000));
+        Assert.assertFalse(table.tryAcquire(id, 500, 2001, 1000));
+        Assert.assertTrue(table.tryAcquire(id, 600, 2001, 1000));
+        Assert.assertEquals(600, table.getMarketUpdateTime(id));
+        Assert.assertEquals(2001, table.getSystemProcessTime(id));
+    }
+
+    @Test
+    public void testConcurrentTryAcquireHasSingleWinner() throws InterruptedException {
+        SymbolStateTable table = new SymbolStateTable();
+        int id = table.intern("MSFT");
+        int numberOfThreads = 5;
+
+        ExecutorService service = Executors.newFixedThreadPool(numberOfThreads);
+        CountDownLatch latch = new CountDownLatch(numberOfThreads);
+        AtomicInteger winCount = new AtomicInteger(0);
+        for (int i = 0; i < numberOfThreads; i++) {
+            int finalI = i;
+            service.submit(() -> {
+                for (int j = 0; j < 100; j++) {
+                    if (table.tryAcquire(id, 1000 + finalI * 100 + j, 1000, 1000))
+                        winCount.incrementAndGet();
+                }
+                latch.countDown();
+            });
+        }
+        latch.await();
+        service.shutdown();
+        Assert.assertEquals(1, winCount.get());
+    }
+}
@@ -0,0 +1,167 @@
+package com.ank;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.ank.journal.ThrottleCheckpoint;
+import com.ank.model.MarketData;
+import com.ank.processor.SymbolStateTable;
+import com.ank.util.RingBufferRateLimiter;
+import com.ank.util.SimulatedTimer;
+
+public class ThrottleCheckpointTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testSymbolWindowContinuesAfterRestart() throws IOException {
+        Path path = folder.getRoot().toPath().resolve("throttle.checkpoint");
+        SimulatedTimer timer = new SimulatedTimer(1000);
+        RecordingProcessor before = newProcessor(timer);
+        before.onMessage(new MarketData("MSFT", 100, 101, 100, 2, 1000));
+        Assert.assertEquals(1, before.checkpoint(path));
+
+        timer.setCurrentTime(1500);
+        RecordingProcessor after = newProcessor(timer);
+        Assert.assertEquals(1, after.restore(path));
+        // older than the last publish before the restart
+        after.onMessage(new MarketData("MSFT", 100, 101, 100, 2, 999));
+        after.onMessage(new MarketData("MSFT", 100, 101, 100, 2, 1001));
+        // not in the checkpoint
+        after.onMessage(new MarketData("TSLA", 100, 101, 100, 2, 1500));
+        Assert.assertEquals(1, after.published.size());
+        Assert.assertEquals("TSLA@1500", after.published.get(0));
+        Assert.assertEquals(1, after.getMetrics().getRejectedStale());
+        Assert.assertEquals(1, after.getPendingCount());
+
+        timer.setCurrentTime(2001);
+        Assert.assertEquals(1, after.drainPending());
+        Assert.assertEquals("MSFT@1001", after.published.get(1));
+    }
+
+    @Test
+    public void testGlobalWindowContinuesAfterRestart() throws IOException {
+        Path path = folder.getRoot().toPath().resolve("throttle.checkpoint");
+        SimulatedTimer timer = new SimulatedTimer(1000);
+        RecordingProcessor before = newProcessor(timer);
+        for (int i = 0; i < 5; i++) {
+            before.onMessage(new MarketData("SYM" + i, 100, 101, 100, 2, 1000));
+        }
+        before.checkpoint(path);
+
+        timer.setCurrentTime(1050);
+        RecordingProcessor after = newProcessor(timer);
+        after.restore(path);
+        after.onMessage(new MarketData("AAPL", 100, 101, 100, 2, 1050));
+        Assert.assertTrue(after.published.isEmpty());
+        timer.setCurrentTime(1100);
+        Assert.assertEquals(1, after.drainPending());
+    }
+
+    @Test
+    public void testSymbolsNotSeenAreCarriedOver() throws IOException {
+        Path first = folder.getRoot().toPath().resolve("first.checkpoint");
+        Path second = folder.getRoot().toPath().resolve("second.checkpoint");
+        SimulatedTimer timer = new SimulatedTimer(1000);
+        RecordingProcessor before = newProcessor(timer);
+        before.onMessage(new MarketData("MSFT", 100, 101, 100, 2, 1000));
+        before.onMessage(new MarketData("TSLA", 100, 101, 100, 2, 1000));
+        before.checkpoint(first);
+
+        timer.setCurrentTime(5000);
+        RecordingProcessor after = newProcessor(timer);
+        after.restore(first);
+        after.onMessage(new MarketData("MSFT", 100, 101, 100, 2, 5000));
+        Assert.assertEquals(2, after.checkpoint(second));
+        Assert.assertFalse(Files.exists(folder.getRoot().toPath().resolve("second.checkpoint.tmp")));
+
+        ThrottleCheckpoint checkpoint = ThrottleCheckpoint.open(second);
+        SymbolStateTable table = new SymbolStateTable();
+        int tsla = table.intern("TSLA");
+        Assert.assertTrue(checkpoint.restore("TSLA", table, tsla));
+        Assert.assertEquals(1000, table.getSystemProcessTime(tsla));
+
+        // idle expiry would have forgotten TSLA by now
+        after.setIdleExpiryMillis(3000);
+        Assert.assertEquals(1, after.checkpoint(second));
+    }
+
+    @Test
+    public void testLookupAmongManySymbols() throws IOException {
+        Path path = folder.getRoot().toPath().resolve("throttle.checkpoint");
+        SymbolStateTable table = new SymbolStateTable();
+        for (int i = 0; i < 10_000; i++) {
+            table.set(table.intern("SYM" + i), 2 * i, 1000 + i);
+        }
+        // interned but never published
+        table.intern("IDLE");
+        Assert.assertEquals(10_000, ThrottleCheckpoint.write(path, 2000, new long[] { 10, 20 }, table, null,
+                Long.MIN_VALUE));
+
+        ThrottleCheckpoint checkpoint = ThrottleCheckpoint.open(path);
+        Assert.assertEquals(2000, checkpoint.getCheckpointTime());
+        Assert.assertEquals(10_000, checkpoint.getSymbolCount());
+        Assert.assertArrayEquals(new long[] { 10, 20 }, checkpoint.getAcceptTimes());
+        SymbolStateTable restored = new SymbolStateTable();
+        for (int i = 9_999; i >= 0; i--) {
+            int id = restored.intern("SYM" + i);
+            Assert.assertTrue(checkpoint.restore("SYM" + i, restored, id));
+            Assert.assertEquals(2 * i, restored.getMarketUpdateTime(id));
+            Assert.assertEquals(1000 + i, restored.getSystemProcessTime(id));
+        }
+        // each symbol is restored once
+        Assert.assertFalse(checkpoint.restore("SYM1", restored, restored.intern("SYM1")));
+        Assert.assertFalse(checkpoint.restore("IDLE", restored, restored.intern("IDLE")));
+    }
+
+    @Test
+    public void testSymbolRestoredDuringWriteIsKept() throws Exception {
+        Path first = folder.getRoot().toPath().resolve("first.checkpoint");
+        Path second = folder.getRoot().toPath().resolve("second.checkpoint");
+        SymbolStateTable table = new SymbolStateTable();
+        table.set(table.intern("MSFT"), 1000, 1000);
+        ThrottleCheckpoint.write(first, 1000, new long[0], table, null, Long.MIN_VALUE);
+
+        ThrottleCheckpoint previous = ThrottleCheckpoint.open(first);
+        CountDownLatch restoring = new CountDownLatch(1);
+        SymbolStateTable live = new SymbolStateTable() {
+            @Override
+            public long getSystemProcessTime(final int id) {
+                long processTime = super.getSystemProcessTime(id);
+                if (restoring.getCount() > 0) {
+                    // the feed thread restores MSFT right after the scan saw it unpublished
+                    Thread feed = new Thread(() -> previous.restore("MSFT", this, id));
+                    restoring.countDown();
+                    feed.start();
+                    try {
+                        feed.join(100);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                return processTime;
+            }
+        };
+        live.intern("MSFT");
+        Assert.assertEquals(1, ThrottleCheckpoint.write(second, 2000, new long[0], live, previous, Long.MIN_VALUE));
+    }
+
+    @Test(expected = IOException.class)
+    public void testNotACheckpoint() throws IOException {
+        Path path = folder.newFile("empty.checkpoint").toPath();
+        Files.write(path, new byte[64]);
+        ThrottleCheckpoint.open(path);
+    }
+
+    private static RecordingProcessor newProcessor(final SimulatedTimer timer) {
+        return new RecordingProcessor(timer, new RingBufferRateLimiter(timer, 5, 100));
+    }
+}
@@ -0,0 +1,97 @@
+package com.ank;
+
+import static org.mockito.Mockito.when;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import com.ank.metrics.ThrottleMetrics;
+import com.ank.metrics.ThrottleMetricsSnapshot;
+import com.ank.model.MarketData;
+import com.ank.processor.MarketDataProcessor;
+import com.ank.util.MyTimer;
+import com.ank.util.RingBufferRateLimiter;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ThrottleMetricsTest {
+
+    @Mock
+    private MyTimer timer;
+
+    @Test
+    public void testProcessorCountsRejectReasons() {
+        MarketDataProcessor processor = new MarketDataProcessor(timer, new RingBufferRateLimiter(timer, 1, 1000));
+        when(timer.getCurrentTime()).thenReturn(1000L);
+        processor.onMessage(tick("MSFT", 990));
+        // symbol window
+        processor.onMessage(tick("MSFT", 995));
+        // stale
+        processor.onMessage(tick("MSFT", 900));
+        // global limit, rejected ticks above took no permit
+        processor.onMessage(tick("TSLA", 1000));
+        Assert.assertEquals(2, processor.getConflatedCount("MSFT") + processor.getConflatedCount("TSLA"));
+
+        when(timer.getCurrentTime()).thenReturn(2500L);
+        processor.drainPending();
+        when(timer.getCurrentTime()).thenReturn(3500L);
+        processor.drainPending();
+
+        ThrottleMetricsSnapshot snapshot = processor.getMetrics().snapshot();
+        Assert.assertEquals(4, snapshot.getTicksReceived());
+        Assert.assertEquals(3, snapshot.getTicksPublished());
+        Assert.assertEquals(1, snapshot.getRejectedSymbolWindow());
+        Assert.assertEquals(1, snapshot.getRejectedStale());
+        Assert.assertEquals(1, snapshot.getRejectedGlobalLimit());
+        Assert.assertEquals(2, snapshot.getConflated());
+        Assert.assertEquals(0, snapshot.getQueueDepth());
+        // direct publish on receipt, then 1500ms and 2500ms conflated, reported within 1/64
+        Assert.assertEquals(1500, snapshot.getPublishLatencyP50Millis(), 1500 / 64.0);
+        Assert.assertEquals(2500, snapshot.getPublishLatencyMaxMillis());
+    }
+
+    @Test
+    public void testLatencyExcludesFeedDelayAndSkew() {
+        MarketDataProcessor processor = new MarketDataProcessor(timer);
+        when(timer.getCurrentTime()).thenReturn(1000L);
+        // a feed clock ahead of ours, then a tick delayed upstream
+        processor.onMessage(tick("MSFT", 5000));
+        processor.onMessage(tick("TSLA", 200));
+        when(timer.getCurrentTime()).thenReturn(1500L);
+        processor.onMessage(tick("MSFT", 5100));
+        when(timer.getCurrentTime()).thenReturn(2100L);
+        processor.drainPending();
+
+        ThrottleMetricsSnapshot snapshot = processor.getMetrics().snapshot();
+        Assert.assertEquals(3, snapshot.getTicksPublished());
+        // conflated at 1500, drained at 2100
+        Assert.assertEquals(600, snapshot.getPublishLatencyMaxMillis());
+    }
+
+    @Test
+    public void testRegisteredAsMBean() throws Exception {
+        ThrottleMetrics metrics = new ThrottleMetrics(() -> 7);
+        metrics.onTickReceived();
+        metrics.onPublished(12);
+        ObjectName name = metrics.registerMBean("test");
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            Assert.assertEquals(1L, server.getAttribute(name, "TicksReceived"));
+            Assert.assertEquals(7L, server.getAttribute(name, "QueueDepth"));
+            Assert.assertEquals(12L, server.getAttribute(name, "PublishLatencyMaxMillis"));
+        } finally {
+            server.unregisterMBean(name);
+        }
+    }
+
+    private MarketData tick(final String symbol, final long updateTime) {
+        return new MarketData(symbol, 100, 100, 100, 2, updateTime);
+    }
+}
@@ -0,0 +1,54 @@
+package com.ank;
+
+import java.util.Properties;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.ank.policy.ThrottlePolicy;
+
+public class ThrottlePolicyTest {
+
+    @Test
+    public void testDefaults() {
+        ThrottlePolicy policy = ThrottlePolicy.fromProperties(new Properties());
+        Assert.assertEquals(100, policy.getGlobalLimit());
+        Assert.assertEquals(1000, policy.getGlobalWindowMillis());
+        Assert.assertEquals(1000, policy.getSymbolWindowMillis("MSFT"));
+        Assert.assertNull(policy.getGroup("MSFT"));
+    }
+
+    @Test
+    public void testSymbolOverrideWinsOverGroup() {
+        Properties properties = new Properties();
+        properties.setProperty("throttle.global.limit", "200");
+        properties.setProperty("throttle.symbol.windowMillis", "2000");
+        properties.setProperty("throttle.group.liquid.symbols", "AAPL, MSFT");
+        properties.setProperty("throttle.group.liquid.windowMillis", "250");
+        properties.setProperty("throttle.group.liquid.cap", "60");
+        properties.setProperty("throttle.symbol.MSFT.windowMillis", "500");
+        ThrottlePolicy policy = ThrottlePolicy.fromProperties(properties);
+
+        Assert.assertEquals(200, policy.getGlobalLimit());
+        Assert.assertEquals(500, policy.getSymbolWindowMillis("MSFT"));
+        Assert.assertEquals(250, policy.getSymbolWindowMillis("AAPL"));
+        Assert.assertEquals(2000, policy.getSymbolWindowMillis("TSLA"));
+        Assert.assertEquals(60, policy.getGroup("AAPL").getCap());
+        Assert.assertEquals("liquid", policy.getGroup("MSFT").getName());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSymbolInTwoGroupsRejected() {
+        Properties properties = new Properties();
+        properties.setProperty("throttle.group.a.symbols", "MSFT");
+        properties.setProperty("throttle.group.b.symbols", "MSFT");
+        ThrottlePolicy.fromProperties(properties);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidNumberRejected() {
+        Properties properties = new Properties();
+        properties.setProperty("throttle.global.limit", "lots");
+        ThrottlePolicy.fromProperties(properties);
+    }
+}
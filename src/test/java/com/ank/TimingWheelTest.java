@@ -0,0 +1,82 @@
+package com.ank;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.ank.util.TimingWheel;
+
+public class TimingWheelTest {
+
+    private final List<long[]> fired = new ArrayList<>();
+
+    private final TimingWheel wheel = new TimingWheel(1, 1000, (id, time) -> fired.add(new long[] {id, time}));
+
+    @Test
+    public void testFiresAtDeadline() {
+        wheel.schedule(1, 1010);
+        wheel.schedule(2, 1005);
+        Assert.assertEquals(0, wheel.advance(1004));
+        Assert.assertEquals(1, wheel.advance(1005));
+        Assert.assertEquals(2, fired.get(0)[0]);
+        Assert.assertEquals(1, wheel.advance(1100));
+        Assert.assertEquals(1, fired.get(1)[0]);
+        Assert.assertEquals(0, wheel.size());
+    }
+
+    @Test
+    public void testPastDeadlineFiresOnNextAdvance() {
+        wheel.schedule(3, 500);
+        Assert.assertEquals(1, wheel.advance(1001));
+    }
+
+    @Test
+    public void testCancelAndReschedule() {
+        wheel.schedule(1, 1010);
+        wheel.schedule(2, 1010);
+        Assert.assertTrue(wheel.cancel(1));
+        Assert.assertFalse(wheel.cancel(1));
+        wheel.schedule(2, 5000);
+        Assert.assertEquals(0, wheel.advance(4999));
+        Assert.assertTrue(wheel.isScheduled(2));
+        Assert.assertEquals(1, wheel.advance(5000));
+        Assert.assertFalse(wheel.isScheduled(2));
+    }
+
+    @Test
+    public void testCascadesThroughLevelsInOrder() {
+        Random random = new Random(3);
+        long[] deadlines = new long[2000];
+        for (int id = 0; id < deadlines.length; id++) {
+            // from a few ms up to about a week ahead
+            deadlines[id] = 1000 + 1 + (long) Math.pow(10, random.nextDouble() * 8.8);
+            wheel.schedule(id, deadlines[id]);
+        }
+        long time = 1000;
+        while (wheel.size() > 0) {
+            time += 1 + random.nextInt(50_000);
+            wheel.advance(time);
+        }
+        Assert.assertEquals(deadlines.length, fired.size());
+        for (long[] event : fired) {
+            long deadline = deadlines[(int) event[0]];
+            Assert.assertTrue(event[1] >= deadline);
+        }
+    }
+
+    @Test
+    public void testFiresExactlyWhenAdvancedEveryTick() {
+        wheel.schedule(7, 1000 + 4096 + 65);
+        wheel.schedule(8, 1000 + 300_000);
+        for (long time = 1001; time <= 1000 + 300_000; time++) {
+            wheel.advance(time);
+            if (fired.size() == 1)
+                Assert.assertEquals(1000 + 4096 + 65, fired.get(0)[1]);
+        }
+        Assert.assertEquals(2, fired.size());
+        Assert.assertEquals(1000 + 300_000, fired.get(1)[1]);
+    }
+}
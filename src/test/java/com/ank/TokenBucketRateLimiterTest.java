@@ -0,0 +1,62 @@
+package com.ank;
+
+import static org.mockito.Mockito.when;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import com.ank.util.MyTimer;
+import com.ank.util.TokenBucketRateLimiter;
+
+@RunWith(MockitoJUnitRunner.class)
+public class TokenBucketRateLimiterTest {
+    @Mock
+    private MyTimer timer;
+
+    @Test
+    public void testStartsFull() {
+        TokenBucketRateLimiter rateLimiter = new TokenBucketRateLimiter(timer, 100, 1000, 20);
+        when(timer.getCurrentTime()).thenReturn(1000L);
+        Assert.assertEquals(20, rateLimiter.getAvailableTokens());
+        for (int i = 0; i < 20; i++) {
+            Assert.assertTrue(rateLimiter.isNewDataAllowed());
+        }
+        Assert.assertFalse(rateLimiter.isNewDataAllowed());
+        Assert.assertEquals(0, rateLimiter.getAvailableTokens());
+    }
+
+    @Test
+    public void testRefill() {
+        TokenBucketRateLimiter rateLimiter = new TokenBucketRateLimiter(timer, 100, 1000, 20);
+        when(timer.getCurrentTime()).thenReturn(1000L);
+        for (int i = 0; i < 20; i++) {
+            Assert.assertTrue(rateLimiter.isNewDataAllowed());
+        }
+        Assert.assertEquals(1010, rateLimiter.getNextPermitTime(1000));
+        when(timer.getCurrentTime()).thenReturn(1009L);
+        Assert.assertFalse(rateLimiter.isNewDataAllowed());
+        when(timer.getCurrentTime()).thenReturn(1055L);
+        Assert.assertEquals(5, rateLimiter.getAvailableTokens());
+
+        // the bucket never holds more than its capacity
+        when(timer.getCurrentTime()).thenReturn(60_000L);
+        Assert.assertEquals(20, rateLimiter.getAvailableTokens());
+        Assert.assertEquals(60_000, rateLimiter.getNextPermitTime(60_000));
+    }
+
+    @Test
+    public void testSustainedRate() {
+        TokenBucketRateLimiter rateLimiter = new TokenBucketRateLimiter(timer, 100, 1000, 10);
+        int accepted = 0;
+        for (long time = 1000; time < 3000; time++) {
+            when(timer.getCurrentTime()).thenReturn(time);
+            while (rateLimiter.isNewDataAllowed())
+                accepted++;
+        }
+        // the initial burst plus the refill over two seconds
+        Assert.assertEquals(10 + 199, accepted);
+    }
+}